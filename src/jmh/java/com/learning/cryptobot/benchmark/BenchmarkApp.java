@@ -0,0 +1,48 @@
+package com.learning.cryptobot.benchmark;
+
+import com.learning.cryptobot.CryptobotApplication;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * BenchmarkApp
+ * Starts the real application for benchmarks, with everything that talks to the outside
+ * world replaced: in-memory H2, bundled symbol list, no Telegram, no web server,
+ * a fresh journal folder and StubPriceService instead of Binance.
+ */
+public final class BenchmarkApp {
+
+    private BenchmarkApp() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        Path journal;
+        try {
+            journal = Files.createTempDirectory("cryptobot-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        SpringApplication app = new SpringApplication(CryptobotApplication.class);
+        app.addInitializers(context -> context.addBeanFactoryPostProcessor(beanFactory -> {
+            BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+            registry.removeBeanDefinition("binancePriceService");
+            registry.registerBeanDefinition("binancePriceService", new RootBeanDefinition(StubPriceService.class));
+        }));
+        return app.run(
+                "--bot.enabled=false",
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "--binance.symbols.source=snapshot",
+                "--ledger.journal.dir=" + journal.toAbsolutePath());
+    }
+}
@@ -0,0 +1,61 @@
+package com.learning.cryptobot.benchmark;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.dto.TradingPair;
+import com.learning.cryptobot.service.BinanceClient;
+import com.learning.cryptobot.service.BinancePriceService;
+import com.learning.cryptobot.service.LivePriceTable;
+import com.learning.cryptobot.service.MarketTickBus;
+import com.learning.cryptobot.service.SymbolRegistry;
+import com.learning.cryptobot.service.TickerCache;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StubPriceService
+ * BinancePriceService that never goes to the network: every known pair costs $100.
+ * Benchmarks measure OUR code, not Binance's latency.
+ */
+public class StubPriceService extends BinancePriceService {
+
+    public static final BigDecimal PRICE = new BigDecimal("100.00");
+
+    private final SymbolRegistry symbolRegistry;
+
+    public StubPriceService(TickerCache tickerCache, LivePriceTable livePriceTable, SymbolRegistry symbolRegistry,
+                            MarketTickBus tickBus, BinanceClient binanceClient, MeterRegistry meterRegistry) {
+        super(tickerCache, livePriceTable, symbolRegistry, tickBus, binanceClient, meterRegistry);
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    @Override
+    public BinanceTickerDto getData(String symbol) {
+        return ticker(symbolRegistry.resolve(symbol));
+    }
+
+    @Override
+    public Map<String, BinanceTickerDto> getDataBatch(Collection<String> symbols) {
+        Map<String, BinanceTickerDto> result = new HashMap<>();
+        for (String symbol : symbols) {
+            TradingPair pair = symbolRegistry.find(symbol);
+            if (pair != null) result.put(pair.symbol(), ticker(pair));
+        }
+        return result;
+    }
+
+    private static BinanceTickerDto ticker(TradingPair pair) {
+        BinanceTickerDto ticker = new BinanceTickerDto();
+        ticker.setSymbol(pair.symbol());
+        ticker.setLastPrice(PRICE);
+        ticker.setHighPrice(PRICE);
+        ticker.setLowPrice(PRICE);
+        ticker.setWeightedAvgPrice(PRICE);
+        ticker.setPriceChangePercent("0.000");
+        ticker.setVolume(BigDecimal.ZERO);
+        return ticker;
+    }
+}
@@ -0,0 +1,64 @@
+package com.learning.cryptobot.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TickerJsonBenchmark
+ * Cost of turning Binance's /api/v3/ticker/24hr answer into BinanceTickerDto,
+ * with the same Jackson setup RestTemplate uses. "tickers" = 1 is a single lookup,
+ * 100 is one full batch request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class TickerJsonBenchmark {
+
+    // A real answer has ~20 fields, most of which we ignore
+    private static final String TICKER = """
+            {"symbol":"%s","priceChange":"-94.99999800","priceChangePercent":"-95.960",\
+            "weightedAvgPrice":"0.29628482","prevClosePrice":"0.10002000","lastPrice":"4.00000200",\
+            "lastQty":"200.00000000","bidPrice":"4.00000000","bidQty":"100.00000000","askPrice":"4.00000200",\
+            "askQty":"100.00000000","openPrice":"99.00000000","highPrice":"100.00000000","lowPrice":"0.10000000",\
+            "volume":"8913.30000000","quoteVolume":"15.30000000","openTime":1499783499040,\
+            "closeTime":1499869899040,"firstId":28385,"lastId":28460,"count":76}""";
+
+    @Param({"1", "100"})
+    private int tickers;
+
+    // RestTemplate's mapper ignores unknown fields too
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringJoiner array = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < tickers; i++) array.add(TICKER.formatted("COIN" + i + "USDT"));
+        json = array.toString();
+    }
+
+    @Benchmark
+    public BinanceTickerDto[] deserialize() throws Exception {
+        return objectMapper.readValue(json, BinanceTickerDto[].class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.learning.cryptobot.benchmark;
+
+import com.learning.cryptobot.service.TradingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TradingBenchmark
+ * buyCrypto / sellCrypto / getWallet through the real TradingService, ledger, journal and H2,
+ * with prices from StubPriceService.
+ *
+ * Each benchmark buys and then sells the same amount, so balances never run out
+ * and every iteration does the same work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class TradingBenchmark {
+
+    private static final BigDecimal QUANTITY = new BigDecimal("0.01");
+    // Coins held by the wallet user, so the report has 10 lines to value
+    private static final String[] WALLET_COINS = {"BTC", "ETH", "SOL", "BNB", "XRP", "ADA", "DOGE", "DOT", "LTC", "LINK"};
+
+    private ConfigurableApplicationContext context;
+    private TradingService tradingService;
+
+    // Every thread trades on its own account (no lock contention) unless it uses the shared one
+    private final AtomicLong nextChatId = new AtomicLong(1_000);
+
+    @State(Scope.Thread)
+    public static class Account {
+        long chatId;
+
+        @Setup(Level.Trial)
+        public void setUp(TradingBenchmark benchmark) {
+            chatId = benchmark.nextChatId.incrementAndGet();
+            benchmark.tradingService.getOrCreateUser(chatId, "bench-" + chatId);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        tradingService = context.getBean(TradingService.class);
+
+        tradingService.getOrCreateUser(1L, "shared");
+        tradingService.getOrCreateUser(2L, "wallet");
+        for (String coin : WALLET_COINS) tradingService.buyCrypto(2L, "wallet", coin, QUANTITY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String buyThenSell(Account account) {
+        tradingService.buyCrypto(account.chatId, "bench", "BTC", QUANTITY);
+        return tradingService.sellCrypto(account.chatId, "bench", "BTC", QUANTITY);
+    }
+
+    // 8 threads, each on its own account: shows how well different users trade in parallel
+    @Benchmark
+    @Threads(8)
+    public String buyThenSellParallelUsers(Account account) {
+        tradingService.buyCrypto(account.chatId, "bench", "BTC", QUANTITY);
+        return tradingService.sellCrypto(account.chatId, "bench", "BTC", QUANTITY);
+    }
+
+    // 8 threads on ONE account: worst case for the per-user lock
+    @Benchmark
+    @Threads(8)
+    public String buyThenSellSameUser() {
+        tradingService.buyCrypto(1L, "shared", "BTC", QUANTITY);
+        return tradingService.sellCrypto(1L, "shared", "BTC", QUANTITY);
+    }
+
+    @Benchmark
+    public String walletReport() {
+        return tradingService.getWallet(2L);
+    }
+}
@@ -0,0 +1,94 @@
+package com.learning.cryptobot.bot;
+
+import com.learning.cryptobot.benchmark.BenchmarkApp;
+import com.learning.cryptobot.service.TradingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BotCommandBenchmark
+ * One Telegram message from text to queued reply: parsing, the service call and
+ * formatting the answer. Lives in the bot package because it calls handleUpdate()
+ * directly - onUpdateReceived() only hands the update to a worker thread.
+ *
+ * With bot.enabled=false replies are queued but never sent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class BotCommandBenchmark {
+
+    private static final long CHAT_ID = 42L;
+
+    @Param({"/start", "BTC", "wallet", "history", "orders", "alerts"})
+    private String command;
+
+    private ConfigurableApplicationContext context;
+    private CryptoBot bot;
+    private Update update;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApp.start();
+        bot = context.getBean(CryptoBot.class);
+
+        TradingService tradingService = context.getBean(TradingService.class);
+        tradingService.getOrCreateUser(CHAT_ID, "bench");
+        tradingService.buyCrypto(CHAT_ID, "bench", "BTC", new BigDecimal("0.01"));
+        tradingService.buyCrypto(CHAT_ID, "bench", "ETH", new BigDecimal("0.01"));
+
+        update = textUpdate(command);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void handleCommand() {
+        bot.handleUpdate(update);
+    }
+
+    private static Update textUpdate(String text) {
+        Chat chat = new Chat();
+        chat.setId(CHAT_ID);
+        chat.setFirstName("bench");
+
+        User from = new User();
+        from.setId(CHAT_ID);
+        from.setFirstName("bench");
+        from.setIsBot(false);
+
+        Message message = new Message();
+        message.setChat(chat);
+        message.setFrom(from);
+        message.setText(text);
+
+        Update update = new Update();
+        update.setMessage(message);
+        return update;
+    }
+}
@@ -0,0 +1,45 @@
+package com.learning.cryptobot.loadsim;
+
+import java.util.Arrays;
+
+/**
+ * LatencyRecorder
+ * Every latency of one command (in nanoseconds), plus error / timeout counts.
+ * Keeps all samples and sorts them once at the end: exact percentiles, and a few
+ * million longs is only a few MB.
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+    private long timeouts;
+
+    public synchronized void record(long nanos, boolean error) {
+        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+        if (error) errors++;
+    }
+
+    public synchronized void timeout() {
+        timeouts++;
+    }
+
+    public synchronized int getCount() { return count; }
+    public synchronized long getErrors() { return errors; }
+    public synchronized long getTimeouts() { return timeouts; }
+
+    // Sorted copy of the samples (call once, when the run is over)
+    public synchronized long[] sorted() {
+        long[] copy = Arrays.copyOf(samples, count);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    // Nearest-rank percentile, q between 0 and 1
+    public static long percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+}
@@ -0,0 +1,160 @@
+package com.learning.cryptobot.loadsim;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadGenerator
+ * Simulates many Telegram users. Each chat sends ONE command, waits for the bot's reply,
+ * (optionally thinks a bit) and sends the next one - like a real person would.
+ *
+ * Latency = time from "message put in getUpdates" (or POSTed to the webhook) to "sendMessage received",
+ * so it includes polling, the dispatcher queue, the trade/price work and the outbound queue.
+ */
+public class LoadGenerator {
+
+    // Command waiting for its reply
+    private record Pending(String command, long startNanos) {}
+
+    private final StubTelegramServer telegram;
+    private final int chats;
+    private final long thinkMillis;
+    private final long timeoutMillis;
+    private final List<String> symbols;
+
+    // Weighted command mix: "price" -> 40 ...
+    private final List<String> commands = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+        Thread t = new Thread(r, "loadsim");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean running;
+    // Replies to commands sent before this moment are warmup and not recorded
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+    // ... and replies after this one arrive after the measured window
+    private volatile long measureUntilNanos = Long.MAX_VALUE;
+
+    public LoadGenerator(StubTelegramServer telegram, int chats, Map<String, Integer> mix, List<String> symbols,
+                         long thinkMillis, long timeoutMillis) {
+        this.telegram = telegram;
+        this.chats = chats;
+        this.symbols = symbols;
+        this.thinkMillis = thinkMillis;
+        this.timeoutMillis = timeoutMillis;
+
+        cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            total += e.getValue();
+            cumulativeWeights[commands.size()] = total;
+            commands.add(e.getKey());
+            recorders.put(e.getKey(), new LatencyRecorder());
+        }
+    }
+
+    // Starts every chat, spread over rampUpMillis so they don't all hit at the same instant
+    public void start(long rampUpMillis) {
+        running = true;
+        for (int i = 0; i < chats; i++) {
+            long chatId = 10_000_000L + i;
+            long delay = rampUpMillis > 0 ? ThreadLocalRandom.current().nextLong(rampUpMillis) : 0;
+            scheduler.schedule(() -> issue(chatId), delay, TimeUnit.MILLISECONDS);
+        }
+        scheduler.scheduleWithFixedDelay(this::expireTimeouts, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public void startMeasuring() {
+        measureFromNanos = System.nanoTime();
+    }
+
+    public void stopMeasuring() {
+        measureUntilNanos = System.nanoTime();
+    }
+
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    public Map<String, LatencyRecorder> getRecorders() {
+        return recorders;
+    }
+
+    public int getInFlight() {
+        return pending.size();
+    }
+
+    // Called by StubTelegramServer for every message the bot sends
+    public void onReply(long chatId, String text) {
+        Pending command = pending.remove(chatId);
+        if (command == null) return; // reply after a timeout, or a notification (alert / fill)
+
+        long now = System.nanoTime();
+        if (command.startNanos() >= measureFromNanos && now <= measureUntilNanos) {
+            boolean error = text.startsWith("Error:") || text.startsWith("Transaction Failed");
+            recorders.get(command.command()).record(now - command.startNanos(), error);
+        }
+        next(chatId);
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void next(long chatId) {
+        if (!running) return;
+        if (thinkMillis > 0) {
+            scheduler.schedule(() -> issue(chatId), thinkMillis, TimeUnit.MILLISECONDS);
+        } else {
+            issue(chatId);
+        }
+    }
+
+    private void issue(long chatId) {
+        if (!running) return;
+        String command = pickCommand();
+        pending.put(chatId, new Pending(command, System.nanoTime()));
+        telegram.sendText(chatId, text(command));
+    }
+
+    private String pickCommand() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) return commands.get(i);
+        }
+        return commands.get(commands.size() - 1);
+    }
+
+    private String text(String command) {
+        String symbol = symbols.get(ThreadLocalRandom.current().nextInt(symbols.size()));
+        return switch (command) {
+            case "buy" -> "buy " + symbol + " 0.001";
+            case "sell" -> "sell " + symbol + " 0.001";
+            case "price" -> symbol;
+            default -> command; // wallet, history, orders, alerts ...
+        };
+    }
+
+    // A chat whose reply never came is counted as a timeout and moves on
+    private void expireTimeouts() {
+        long now = System.nanoTime();
+        for (Map.Entry<Long, Pending> e : pending.entrySet()) {
+            Pending command = e.getValue();
+            if (now - command.startNanos() < TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) continue;
+            if (!pending.remove(e.getKey(), command)) continue;
+            if (command.startNanos() >= measureFromNanos && now <= measureUntilNanos) recorders.get(command.command()).timeout();
+            next(e.getKey());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.learning.cryptobot.loadsim;
+
+import com.learning.cryptobot.CryptobotApplication;
+import com.learning.cryptobot.bot.OutboundMessageSender;
+import com.learning.cryptobot.bot.UpdateDispatcher;
+import com.learning.cryptobot.service.TickerCache;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LoadSimulation
+ * Runs the whole app against local stand-ins for Binance and Telegram and drives it
+ * with thousands of simulated chats, then prints throughput and p50/p99/p999 per command.
+ *
+ *   mvn -Ploadsim test-compile exec:exec -Dloadsim.args="--loadsim.chats=5000 --loadsim.duration-s=120"
+ *
+ * Options (all optional):
+ *   --loadsim.chats=2000               simulated users
+ *   --loadsim.duration-s=60            measured time
+ *   --loadsim.warmup-s=10              not measured (includes ramp-up)
+ *   --loadsim.ramp-up-s=5              chats start spread over this time
+ *   --loadsim.think-ms=1000               pause between a reply and the next command
+ *   --loadsim.timeout-ms=30000         a command without reply after this counts as timeout
+ *   --loadsim.mix=price=40,buy=20,sell=20,wallet=20
+ *   --loadsim.symbols=BTC,ETH,SOL,BNB,XRP
+ *   --loadsim.binance.latency-ms=50    --loadsim.binance.jitter-ms=50
+ *   --loadsim.binance.error-rate=0.0   --loadsim.binance.error-status=500
+ *   --loadsim.webhook=false            true = updates are POSTed to the bot's webhook instead of polled
+ * Every other --key=value goes to the app (e.g. --bot.dispatcher.threads=32).
+ */
+public final class LoadSimulation {
+
+    private LoadSimulation() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        // Without this the JDK's little HTTP server adds ~40ms (Nagle + delayed ACK) to every stub answer
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        StubBinanceServer binance = new StubBinanceServer(
+                Long.parseLong(options.getOrDefault("loadsim.binance.latency-ms", "50")),
+                Long.parseLong(options.getOrDefault("loadsim.binance.jitter-ms", "50")),
+                Double.parseDouble(options.getOrDefault("loadsim.binance.error-rate", "0.0")),
+                Integer.parseInt(options.getOrDefault("loadsim.binance.error-status", "500")));
+
+        // The generator needs the Telegram stub and the stub needs the generator's callback
+        LoadGenerator[] generator = new LoadGenerator[1];
+        StubTelegramServer telegram = new StubTelegramServer((chatId, text) -> generator[0].onReply(chatId, text));
+        generator[0] = new LoadGenerator(telegram,
+                Integer.parseInt(options.getOrDefault("loadsim.chats", "2000")),
+                mix(options.getOrDefault("loadsim.mix", "price=40,buy=20,sell=20,wallet=20")),
+                Arrays.asList(options.getOrDefault("loadsim.symbols", "BTC,ETH,SOL,BNB,XRP").split(",")),
+                Long.parseLong(options.getOrDefault("loadsim.think-ms", "1000")),
+                Long.parseLong(options.getOrDefault("loadsim.timeout-ms", "30000")));
+
+        binance.start();
+        telegram.start();
+        boolean webhook = Boolean.parseBoolean(options.getOrDefault("loadsim.webhook", "false"));
+        ConfigurableApplicationContext context = startApp(options, binance, telegram, webhook);
+        if (webhook) {
+            // The app's port is only known now (server.port=0)
+            telegram.setWebhook("http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("bot.webhook.path", "/telegram/webhook"));
+        }
+
+        long warmupMillis = Long.parseLong(options.getOrDefault("loadsim.warmup-s", "10")) * 1000;
+        long durationMillis = Long.parseLong(options.getOrDefault("loadsim.duration-s", "60")) * 1000;
+        long rampUpMillis = Long.parseLong(options.getOrDefault("loadsim.ramp-up-s", "5")) * 1000;
+
+        System.out.println("Warming up for " + warmupMillis / 1000 + "s ...");
+        generator[0].start(rampUpMillis);
+        Thread.sleep(warmupMillis);
+
+        System.out.println("Measuring for " + durationMillis / 1000 + "s ...");
+        generator[0].startMeasuring();
+        Thread.sleep(durationMillis);
+        generator[0].stopMeasuring();
+        generator[0].stop();
+
+        report(generator[0], durationMillis, options);
+        System.out.println();
+        System.out.println("Binance stub: " + binance.getRequests() + " requests, " + binance.getErrors() + " errors");
+        System.out.println("Telegram stub: " + telegram.getPolls() + " getUpdates, " + telegram.getWebhookCalls()
+                + " webhook calls (" + telegram.getWebhookErrors() + " failed), " + telegram.getReplies()
+                + " sendMessage, " + telegram.getBacklog() + " updates never picked up");
+        TickerCache cache = context.getBean(TickerCache.class);
+        System.out.println("Ticker cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses, "
+                + cache.getCoalesced() + " coalesced");
+        OutboundMessageSender sender = context.getBean(OutboundMessageSender.class);
+        System.out.println("Outbound: " + sender.getSent() + " sent, " + sender.getRetried() + " retried, "
+                + sender.getFailed() + " failed, " + sender.getDropped() + " dropped, " + sender.getQueueDepth()
+                + " still queued (avg wait " + Math.round(sender.getAverageQueueMillis()) + "ms)");
+        System.out.println("Dispatcher queue: " + context.getBean(UpdateDispatcher.class).getQueueDepth()
+                + ", chats still waiting for a reply: " + generator[0].getInFlight());
+
+        context.close();
+        telegram.stop();
+        binance.stop();
+        // telegrambots leaves non-daemon threads behind
+        System.exit(0);
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private static ConfigurableApplicationContext startApp(Map<String, String> options, StubBinanceServer binance,
+                                                           StubTelegramServer telegram, boolean webhook) throws Exception {
+        Map<String, String> app = new LinkedHashMap<>();
+        app.put("bot.token", "loadsim");
+        app.put("bot.api-url", telegram.getBotApiUrl());
+        app.put("binance.api-url", binance.getUrl());
+        app.put("binance.symbols.source", "snapshot");
+        app.put("spring.datasource.url", "jdbc:h2:mem:loadsim;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        app.put("ledger.journal.dir", Files.createTempDirectory("cryptobot-loadsim").toString());
+        app.put("server.port", "0");
+        app.put("spring.main.banner-mode", "off");
+        app.put("logging.level.root", "WARN");
+        // Telegram's own limits would cap the run at 30 replies/s: lift them to measure the app itself.
+        // Pass --bot.sender.global-per-second=30 to see the real-world picture.
+        app.put("bot.sender.global-per-second", "1000000");
+        app.put("bot.sender.chat-per-second", "1000");
+        app.put("bot.sender.chat-burst", "1000");
+        app.put("bot.api-threads", "8");
+        // Same for the per-chat admission limit (a chat with a short think time would hit it)
+        app.put("admission.chat.limit", "65535");
+        if (webhook) app.put("bot.mode", "webhook");
+        // Anything given on the command line wins
+        options.forEach((key, value) -> {
+            if (!key.startsWith("loadsim.")) app.put(key, value);
+        });
+
+        // DevTools would restart the app in another class loader, away from our stubs
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> springArgs = new ArrayList<>();
+        app.forEach((key, value) -> springArgs.add("--" + key + "=" + value));
+        return SpringApplication.run(CryptobotApplication.class, springArgs.toArray(new String[0]));
+    }
+
+    private static void report(LoadGenerator generator, long durationMillis, Map<String, String> options) {
+        double seconds = durationMillis / 1000.0;
+        System.out.println();
+        System.out.printf("%d chats, %ds measured, Binance latency %sms +%sms jitter, error rate %s%n",
+                Integer.parseInt(options.getOrDefault("loadsim.chats", "2000")), durationMillis / 1000,
+                options.getOrDefault("loadsim.binance.latency-ms", "50"),
+                options.getOrDefault("loadsim.binance.jitter-ms", "50"),
+                options.getOrDefault("loadsim.binance.error-rate", "0.0"));
+        System.out.printf("%-10s %10s %9s %8s %8s %10s %10s %10s %10s%n",
+                "command", "count", "ops/s", "errors", "timeouts", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        LatencyRecorder all = new LatencyRecorder();
+        for (Map.Entry<String, LatencyRecorder> e : generator.getRecorders().entrySet()) {
+            long[] sorted = e.getValue().sorted();
+            for (long sample : sorted) all.record(sample, false);
+            printRow(e.getKey(), sorted, e.getValue().getErrors(), e.getValue().getTimeouts(), seconds);
+        }
+        long errors = generator.getRecorders().values().stream().mapToLong(LatencyRecorder::getErrors).sum();
+        long timeouts = generator.getRecorders().values().stream().mapToLong(LatencyRecorder::getTimeouts).sum();
+        printRow("TOTAL", all.sorted(), errors, timeouts, seconds);
+    }
+
+    private static void printRow(String name, long[] sorted, long errors, long timeouts, double seconds) {
+        System.out.printf("%-10s %10d %9.1f %8d %8d %10.2f %10.2f %10.2f %10.2f%n",
+                name, sorted.length, sorted.length / seconds, errors, timeouts,
+                millis(LatencyRecorder.percentile(sorted, 0.50)),
+                millis(LatencyRecorder.percentile(sorted, 0.99)),
+                millis(LatencyRecorder.percentile(sorted, 0.999)),
+                millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // "--key=value" -> key: value
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) continue;
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    // "price=40,buy=20" -> {price: 40, buy: 20}
+    private static Map<String, Integer> mix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+}
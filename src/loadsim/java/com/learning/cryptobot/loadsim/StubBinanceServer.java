@@ -0,0 +1,140 @@
+package com.learning.cryptobot.loadsim;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StubBinanceServer
+ * Pretends to be https://api.binance.com for /api/v3/ticker/24hr (single symbol and batch).
+ * Every answer waits latencyMs (+ random jitter), and errorRate of them fail with errorStatus,
+ * so we can see how the app behaves when Binance is slow or broken.
+ */
+public class StubBinanceServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final int errorStatus;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public StubBinanceServer(long latencyMs, long jitterMs, double errorRate, int errorStatus) throws IOException {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/ticker/24hr", this::ticker);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequests() { return requests.get(); }
+    public long getErrors() { return errors.get(); }
+
+    // --- HANDLER ---
+
+    private void ticker(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            sleep();
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                respond(exchange, errorStatus, "{\"code\":-1003,\"msg\":\"Stub error\"}");
+                return;
+            }
+
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            Object body;
+            if (query.containsKey("symbols")) {
+                // symbols=["BTCUSDT","ETHUSDT"]
+                List<Map<String, Object>> tickers = new ArrayList<>();
+                for (String symbol : objectMapper.readValue(query.get("symbols"), String[].class)) tickers.add(ticker(symbol));
+                body = tickers;
+            } else {
+                body = ticker(query.getOrDefault("symbol", "BTCUSDT"));
+            }
+            respond(exchange, 200, objectMapper.writeValueAsString(body));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // A price that stays around the same level for each symbol, moving a little on every call
+    private static Map<String, Object> ticker(String symbol) {
+        double base = 1 + Math.abs(symbol.hashCode() % 50_000);
+        double price = base * (1 + ThreadLocalRandom.current().nextDouble(-0.005, 0.005));
+        Map<String, Object> ticker = new LinkedHashMap<>();
+        ticker.put("symbol", symbol);
+        ticker.put("lastPrice", String.format("%.8f", price));
+        ticker.put("highPrice", String.format("%.8f", base * 1.05));
+        ticker.put("lowPrice", String.format("%.8f", base * 0.95));
+        ticker.put("priceChangePercent", "0.500");
+        ticker.put("weightedAvgPrice", String.format("%.8f", base));
+        ticker.put("volume", "12345.00000000");
+        return ticker;
+    }
+
+    private void sleep() {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
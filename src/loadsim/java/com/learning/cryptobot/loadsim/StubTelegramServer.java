@@ -0,0 +1,231 @@
+package com.learning.cryptobot.loadsim;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * StubTelegramServer
+ * Pretends to be the Telegram Bot API for one bot:
+ * - getUpdates hands out the messages the load generator queued with sendText() (long polling),
+ * - or, once a webhook is set, every message is POSTed to the bot's webhook instead,
+ * - sendMessage passes the bot's reply to the load generator,
+ * - everything else (deleteWebhook ...) just answers "ok".
+ *
+ * Like the real API, updates stay "unconfirmed" until the bot asks for a higher offset.
+ */
+public class StubTelegramServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BlockingQueue<Map<String, Object>> incoming = new LinkedBlockingQueue<>();
+    // Delivered to the bot but not confirmed yet (only touched by the single poller, under "this")
+    private final Deque<Map<String, Object>> unconfirmed = new ArrayDeque<>();
+    private final AtomicLong nextUpdateId = new AtomicLong(1);
+    private final AtomicLong nextMessageId = new AtomicLong(1);
+
+    // Called with (chatId, text) for every message the bot sends
+    private final BiConsumer<Long, String> onReply;
+
+    // Webhook mode: where updates are POSTed (null = the bot polls)
+    private volatile String webhookUrl;
+    // Plain HTTP/1.1 like Telegram, on two threads of its own (the default pool starts one per request in flight)
+    private final ExecutorService webhookExecutor = Executors.newFixedThreadPool(2);
+    private final HttpClient webhookClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .executor(webhookExecutor).build();
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong replies = new AtomicLong();
+    private final AtomicLong webhookCalls = new AtomicLong();
+    private final AtomicLong webhookErrors = new AtomicLong();
+
+    public StubTelegramServer(BiConsumer<Long, String> onReply) throws IOException {
+        this.onReply = onReply;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        webhookExecutor.shutdownNow();
+    }
+
+    // Value for bot.api-url (the bot appends "<token>/<method>")
+    public String getBotApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    public long getPolls() { return polls.get(); }
+    public long getReplies() { return replies.get(); }
+    public int getBacklog() { return incoming.size(); }
+    public long getWebhookCalls() { return webhookCalls.get(); }
+    public long getWebhookErrors() { return webhookErrors.get(); }
+
+    // Like the real setWebhook: from now on updates are pushed to this URL
+    public void setWebhook(String url) {
+        this.webhookUrl = url;
+    }
+
+    // A user types "text" in chat "chatId"
+    public void sendText(long chatId, String text) {
+        long updateId = nextUpdateId.getAndIncrement();
+
+        Map<String, Object> chat = new LinkedHashMap<>();
+        chat.put("id", chatId);
+        chat.put("type", "private");
+        chat.put("first_name", "sim" + chatId);
+
+        Map<String, Object> from = new LinkedHashMap<>();
+        from.put("id", chatId);
+        from.put("is_bot", false);
+        from.put("first_name", "sim" + chatId);
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("message_id", updateId);
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.put("chat", chat);
+        message.put("from", from);
+        message.put("text", text);
+
+        Map<String, Object> update = new LinkedHashMap<>();
+        update.put("update_id", updateId);
+        update.put("message", message);
+
+        if (webhookUrl == null) {
+            incoming.add(update);
+        } else {
+            pushToWebhook(update);
+        }
+    }
+
+    // --- HANDLERS ---
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            // The library asks for "getupdates", "sendmessage" ...
+            String method = path.substring(path.lastIndexOf('/') + 1).toLowerCase();
+            JsonNode body = readBody(exchange);
+
+            Object result = switch (method) {
+                case "getupdates" -> getUpdates(body);
+                case "sendmessage" -> sendMessage(body);
+                case "setwebhook" -> {
+                    setWebhook(body.path("url").asText(null));
+                    yield Boolean.TRUE;
+                }
+                default -> Boolean.TRUE;
+            };
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("ok", true);
+            response.put("result", result);
+            StubBinanceServer.respond(exchange, 200, objectMapper.writeValueAsString(response));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized List<Map<String, Object>> getUpdates(JsonNode body) throws InterruptedException {
+        polls.incrementAndGet();
+        long offset = body.path("offset").asLong(0);
+        int limit = body.path("limit").asInt(100);
+        int timeoutSeconds = body.path("timeout").asInt(0);
+
+        // Asking for "offset" confirms every update before it
+        while (!unconfirmed.isEmpty() && ((Number) unconfirmed.peekFirst().get("update_id")).longValue() < offset) {
+            unconfirmed.removeFirst();
+        }
+
+        if (unconfirmed.isEmpty()) {
+            // Long polling: wait for the first update, then take whatever else is ready
+            Map<String, Object> first = incoming.poll(Math.max(timeoutSeconds, 1), TimeUnit.SECONDS);
+            if (first != null) {
+                unconfirmed.add(first);
+                List<Map<String, Object>> more = new ArrayList<>();
+                incoming.drainTo(more, Math.max(limit - 1, 0));
+                unconfirmed.addAll(more);
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> update : unconfirmed) {
+            if (result.size() >= limit) break;
+            result.add(update);
+        }
+        return result;
+    }
+
+    private Map<String, Object> sendMessage(JsonNode body) {
+        long chatId = body.path("chat_id").asLong();
+        String text = body.path("text").asText();
+        replies.incrementAndGet();
+        onReply.accept(chatId, text);
+
+        // The bot expects the Message it just sent back
+        Map<String, Object> chat = new LinkedHashMap<>();
+        chat.put("id", chatId);
+        chat.put("type", "private");
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("message_id", nextMessageId.getAndIncrement());
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.put("chat", chat);
+        message.put("text", text);
+        return message;
+    }
+
+    // One update per request, like Telegram. A failed delivery is counted, not retried.
+    private void pushToWebhook(Map<String, Object> update) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(webhookUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(update)))
+                    .build();
+            webhookCalls.incrementAndGet();
+            webhookClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() != 200) webhookErrors.incrementAndGet();
+                    });
+        } catch (IOException e) {
+            webhookErrors.incrementAndGet();
+        }
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes = exchange.getRequestBody().readAllBytes();
+        if (bytes.length == 0) return objectMapper.createObjectNode();
+        return objectMapper.readTree(bytes);
+    }
+}
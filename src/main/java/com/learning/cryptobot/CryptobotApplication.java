@@ -2,8 +2,10 @@ package com.learning.cryptobot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Runs the @Scheduled background jobs (e.g. saving the ledger to the DB)
 public class CryptobotApplication {
 
 	public static void main(String[] args) {
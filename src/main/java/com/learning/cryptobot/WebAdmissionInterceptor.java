@@ -0,0 +1,61 @@
+package com.learning.cryptobot;
+
+import com.learning.cryptobot.service.AdmissionControl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * WebAdmissionInterceptor
+ * Rate limits every web request that can reach Binance per session, and holds them back when the
+ * global Binance budget is used up, through AdmissionControl: price lookups and trades, the wallet
+ * (prices of its coins, cross rates), candles (history download) and the live streams (first prices).
+ * Runs before WebController, so a rejected request costs nothing:
+ * it gets 429 Too Many Requests with a Retry-After header (seconds).
+ */
+@Component
+public class WebAdmissionInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+
+    // Method + path of the handlers that may call Binance. Showing the /price and /trade forms is free.
+    private static final Set<String> UPSTREAM = Set.of(
+            "POST /price", "POST /trade", "GET /wallet", "GET /candles", "GET /stream/prices", "GET /stream/wallet");
+
+    private final AdmissionControl admissionControl;
+
+    public WebAdmissionInterceptor(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/price", "/trade", "/wallet", "/candles", "/stream/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!UPSTREAM.contains(request.getMethod() + " " + request.getServletPath())) return true;
+        HttpSession session = request.getSession(false);
+        if (session == null) return true; // not logged in: WebController sends them to /login
+
+        long wait = admissionControl.admitSession(session.getId(), true);
+        if (wait == 0) return true;
+
+        long seconds = AdmissionControl.toSeconds(wait);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("Too many requests, try again in " + seconds + " s.");
+        return false;
+    }
+}
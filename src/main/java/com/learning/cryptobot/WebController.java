@@ -1,20 +1,41 @@
 package com.learning.cryptobot;
 
+import com.learning.cryptobot.cluster.ClusterTopology;
 import com.learning.cryptobot.dto.BinanceTickerDto;
 import com.learning.cryptobot.entity.Asset;
+import com.learning.cryptobot.entity.OpenOrder;
+import com.learning.cryptobot.entity.PriceAlert;
+import com.learning.cryptobot.service.AlertEngine;
 import com.learning.cryptobot.entity.User;
 import com.learning.cryptobot.service.BinancePriceService;
+import com.learning.cryptobot.service.CandleSeries;
+import com.learning.cryptobot.service.CandleService;
+import com.learning.cryptobot.service.FixedPoint;
+import com.learning.cryptobot.service.LeaderboardService;
+import com.learning.cryptobot.service.LiveUpdateHub;
+import com.learning.cryptobot.service.OrderEngine;
 import com.learning.cryptobot.service.TradingService;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.view.RedirectView;
 
 import java.math.BigDecimal;
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -28,11 +49,30 @@ public class WebController {
     // Dependencies (The Services that do the actual work)
     private final TradingService tradingService;
     private final BinancePriceService binancePriceService;
+    private final OrderEngine orderEngine;
+    private final AlertEngine alertEngine;
+    private final LiveUpdateHub liveUpdateHub;
+    private final LeaderboardService leaderboardService;
+    private final CandleService candleService;
+    private final ClusterTopology cluster;
+
+    // How many users the leaderboard page lists
+    private final int leaderboardSize;
 
     // Constructor Injection
-    public WebController(TradingService tradingService, BinancePriceService binancePriceService) {
+    public WebController(TradingService tradingService, BinancePriceService binancePriceService,
+                         OrderEngine orderEngine, AlertEngine alertEngine, LiveUpdateHub liveUpdateHub,
+                         LeaderboardService leaderboardService, CandleService candleService, ClusterTopology cluster,
+                         @Value("${leaderboard.size:10}") int leaderboardSize) {
         this.tradingService = tradingService;
         this.binancePriceService = binancePriceService;
+        this.orderEngine = orderEngine;
+        this.alertEngine = alertEngine;
+        this.liveUpdateHub = liveUpdateHub;
+        this.leaderboardService = leaderboardService;
+        this.candleService = candleService;
+        this.cluster = cluster;
+        this.leaderboardSize = leaderboardSize;
     }
 
     // --- LOGIN SECTION ---
@@ -43,11 +83,19 @@ public class WebController {
     }
 
     @PostMapping("/login")
-    public String processLogin(@RequestParam(required = false) Long userId, @RequestParam String userName, HttpSession session) {
+    public Object processLogin(@RequestParam(required = false) Long userId, @RequestParam String userName, HttpSession session) {
 
         // If the user left ID blank (Web User), create a random fake ID
         if (userId == null) userId = ThreadLocalRandom.current().nextLong(1000000L, 999999999L);
 
+        // Cluster mode: log in on the node that keeps this user's wallet, and stay there
+        // (307 makes the browser repeat the same POST, userName included)
+        if (!cluster.isLocal(userId)) {
+            RedirectView owner = new RedirectView(cluster.urlOf(cluster.ownerOf(userId)) + "/login?userId=" + userId);
+            owner.setStatusCode(HttpStatus.TEMPORARY_REDIRECT);
+            return owner;
+        }
+
         // Create or fetch the User from Database
         User user = tradingService.getOrCreateUser(userId, userName);
 
@@ -86,9 +134,11 @@ public class WebController {
     // --- PRICE CHECKER SECTION ---
 
     @GetMapping("/price")
-    public String getPrice(HttpSession session){
+    public String getPrice(HttpSession session, Model model){
         // Checks if user already exists
-        if (session.getAttribute("userId") == null) return "redirect:/login";
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) return "redirect:/login";
+        model.addAttribute("alerts", alertEngine.list(userId));
         return "price"; // Loads price.html
     }
 
@@ -107,21 +157,82 @@ public class WebController {
             // Put error message in Model
             model.addAttribute("error", "Invalid Symbol : Error -> " + e.getMessage());
         }
+        model.addAttribute("alerts", alertEngine.list((Long) session.getAttribute("userId")));
 
         // Reloads the same page, but now the 'model' has data, so the result box appears
         return "price";
     }
 
+    // Candles as JSON for the chart on the price page: [{"time": ms, "open": .., "high": .., "low": .., "close": ..}, ...]
+    // Served from memory (CandleService), so reloading the chart never calls Binance.
+    @GetMapping("/candles")
+    @ResponseBody
+    public List<Map<String, Object>> candles(HttpSession session, @RequestParam String symbol,
+                                             @RequestParam(defaultValue = "1h") String interval,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        if (session.getAttribute("userId") == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        CandleSeries.Candles candles;
+        try {
+            candles = candleService.candles(symbol, CandleService.Interval.parse(interval), limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(candles.size());
+        for (int i = 0; i < candles.size(); i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("time", candles.openTime()[i]);
+            row.put("open", FixedPoint.toPrice(candles.open()[i]));
+            row.put("high", FixedPoint.toPrice(candles.high()[i]));
+            row.put("low", FixedPoint.toPrice(candles.low()[i]));
+            row.put("close", FixedPoint.toPrice(candles.close()[i]));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // --- PRICE ALERTS ---
+
+    @PostMapping("/alerts")
+    public String createAlert(HttpSession session, Model model, @RequestParam String symbol,
+                              @RequestParam String condition, @RequestParam BigDecimal threshold) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) return "redirect:/login";
+
+        try {
+            // Delivered through the Telegram bot, to the chat with this user's ID
+            alertEngine.create(userId, symbol, PriceAlert.Condition.valueOf(condition.toUpperCase()), threshold);
+        } catch (Exception e) {
+            model.addAttribute("error", "Alert Failed: " + e.getMessage());
+            model.addAttribute("alerts", alertEngine.list(userId));
+            return "price";
+        }
+        return "redirect:/price";
+    }
+
+    @PostMapping("/alerts/delete")
+    public String deleteAlert(HttpSession session, @RequestParam Long alertId) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) return "redirect:/login";
+
+        alertEngine.delete(userId, alertId);
+        return "redirect:/price";
+    }
+
     // --- TRADING SECTION ---
 
     @GetMapping("/trade")
-    public String showTrade(HttpSession session){
-        if (session.getAttribute("userId") == null) return "redirect:/login";
+    public String showTrade(HttpSession session, Model model){
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) return "redirect:/login";
+        model.addAttribute("orders", orderEngine.list(userId));
         return "trade";
     }
 
     @PostMapping("/trade")
-    public String processTrade(HttpSession session, Model model, @RequestParam String symbol, @RequestParam BigDecimal quantity, String action){
+    public String processTrade(HttpSession session, Model model, @RequestParam String symbol, @RequestParam BigDecimal quantity, String action,
+                               @RequestParam(defaultValue = "MARKET") String orderType,
+                               @RequestParam(required = false) BigDecimal triggerPrice){
 
         // 1. Get User ID from Session
         Long userId = (Long) session.getAttribute("userId");
@@ -133,7 +244,16 @@ public class WebController {
             String result;
 
             // 2. Decide logic based on button clicked
-            if ("buy".equalsIgnoreCase(action)){
+            if (!"MARKET".equalsIgnoreCase(orderType)) {
+                // Resting order: waits until the price reaches triggerPrice
+                if (triggerPrice == null) throw new IllegalArgumentException("Trigger price is required for " + orderType + " orders");
+                OpenOrder.Side side = "buy".equalsIgnoreCase(action) ? OpenOrder.Side.BUY : OpenOrder.Side.SELL;
+                OpenOrder order = orderEngine.place(userId, userName, side, OpenOrder.Type.valueOf(orderType.toUpperCase()),
+                        symbol, quantity, triggerPrice);
+                result = "📌 Order #" + order.getId() + " placed: " + order.getType() + " " + order.getSide() + " "
+                        + order.getQuantity().stripTrailingZeros().toPlainString() + " " + order.getSymbol()
+                        + " @ $" + order.getTriggerPrice().toPlainString();
+            } else if ("buy".equalsIgnoreCase(action)){
                 result = tradingService.buyCrypto(userId, userName, symbol, quantity);
             } else {
                 result = tradingService.sellCrypto(userId, userName, symbol, quantity);
@@ -146,22 +266,77 @@ public class WebController {
             model.addAttribute("error", "Trade Failed: " + e.getMessage());
         }
 
+        model.addAttribute("orders", orderEngine.list(userId));
         return "trade";
     }
 
+    @PostMapping("/orders/cancel")
+    public String cancelOrder(HttpSession session, @RequestParam Long orderId) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) return "redirect:/login";
+
+        orderEngine.cancel(userId, orderId);
+        return "redirect:/trade";
+    }
+
     // --- WALLET SECTION ---
 
     @GetMapping("/wallet")
-    public String showWallet(HttpSession session, Model model){
+    public String showWallet(HttpSession session, Model model, @RequestParam(required = false) String quote){
         Long userId = (Long) session.getAttribute("userId");
         if (userId == null) return "redirect:/login";
 
-        // Fetches the string formatted with \n newlines
-        String result = tradingService.getWallet(userId);
+        // ?quote=EUR also shows the total in EUR (converted locally, see CrossRateEngine)
+        if (quote != null && quote.isBlank()) quote = null;
+        String result;
+        try {
+            // Fetches the string formatted with \n newlines
+            result = tradingService.getWallet(userId, quote);
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("error", e.getMessage());
+            result = tradingService.getWallet(userId);
+        }
 
         // 'wallettxt' is just a name we invented for the HTML to look for
         model.addAttribute("wallettxt", result);
 
         return "wallet";
     }
-}
\ No newline at end of file
+
+    // --- LEADERBOARD SECTION ---
+
+    @GetMapping("/leaderboard")
+    public String showLeaderboard(HttpSession session, Model model) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) return "redirect:/login";
+
+        LeaderboardService.Board board = leaderboardService.board(leaderboardSize);
+        model.addAttribute("top", board.top());
+        model.addAttribute("me", leaderboardService.standing(userId));
+        model.addAttribute("stats", board.stats());
+        return "leaderboard";
+    }
+
+    // --- LIVE UPDATES (Server-Sent Events) ---
+    // The browser keeps ONE connection open and the server pushes new prices / wallet values,
+    // instead of the user reloading /price and /wallet.
+
+    @GetMapping(value = "/stream/prices", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrices(HttpSession session, @RequestParam String symbols) {
+        if (session.getAttribute("userId") == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        try {
+            // "BTC,ETH" -> ["BTC", "ETH"]; unknown symbols are skipped
+            return liveUpdateHub.subscribePrices(Arrays.stream(symbols.split(","))
+                    .map(String::trim).filter(s -> !s.isEmpty()).toList());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/stream/wallet", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamWallet(HttpSession session) {
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        return liveUpdateHub.subscribeWallet(userId);
+    }
+}
@@ -0,0 +1,201 @@
+package com.learning.cryptobot.backtest;
+
+import com.learning.cryptobot.entity.OpenOrder;
+import com.learning.cryptobot.service.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Backtest
+ * One simulated account replaying a tape through a Strategy, with the same rules as the live app:
+ * - market buy / sell at the last price, cost rounded to cents like TradingService,
+ *   refused when the cash or coins aren't there (like LedgerService)
+ * - LIMIT / STOP / TAKE_PROFIT orders trigger and fill at the tick that crosses them (like OrderEngine)
+ *
+ * Everything is a FixedPoint long so replaying millions of ticks creates no garbage:
+ * prices and quantities with 8 decimals, cash in cents.
+ */
+public class Backtest implements TickTapeReader.TickHandler {
+
+    // Quantity / price long -> real number
+    public static final long UNIT = 100_000_000L;
+
+    public record Result(long ticks, long filled, long rejected, BigDecimal cash, BigDecimal value,
+                         BigDecimal pnl, double maxDrawdownPercent) {}
+
+    // A resting order of the simulated account
+    private record Order(long id, int symbol, OpenOrder.Side side, long quantity, long trigger, boolean fireBelow) {}
+
+    private final Strategy strategy;
+    private final List<String> symbols;
+    private final long startingCash;
+
+    private long cash;
+    private long[] holdings = new long[16];
+    private long[] prices = new long[16];
+    private final List<List<Order>> orders = new ArrayList<>();
+    private long nextOrderId = 1;
+
+    private long ticks;
+    private long filled;
+    private long rejected;
+    private long now;
+    // Drawdown tracking only, so doubles are precise enough
+    private double holdingsValue;
+    private double peakValue;
+    private double maxDrawdown;
+
+    // symbols = the reader's symbol list (TickTapeReader.symbols()), startingCash in dollars
+    public Backtest(Strategy strategy, List<String> symbols, BigDecimal startingCash) {
+        this.strategy = strategy;
+        this.symbols = symbols;
+        this.startingCash = FixedPoint.money(startingCash);
+        this.cash = this.startingCash;
+        this.peakValue = this.startingCash / 100.0;
+    }
+
+    @Override
+    public void onTick(int symbol, long timeMillis, long price) {
+        if (symbol >= prices.length) grow(symbol);
+        holdingsValue += (double) holdings[symbol] * (price - prices[symbol]) / UNIT / UNIT;
+        prices[symbol] = price;
+        now = timeMillis;
+        ticks++;
+
+        triggerOrders(symbol, price);
+        strategy.onTick(this, symbol, timeMillis, price);
+
+        double value = cash / 100.0 + holdingsValue;
+        if (value > peakValue) peakValue = value;
+        else maxDrawdown = Math.max(maxDrawdown, (peakValue - value) / peakValue);
+    }
+
+    // --- TRADING (called by the strategy) ---
+
+    // Market buy at the last price. false = not enough cash (or no price yet).
+    public boolean buy(int symbol, long quantity) {
+        long price = price(symbol);
+        if (quantity <= 0 || price <= 0) return reject();
+        long cost = FixedPoint.cost(price, quantity);
+        if (cash - cost < 0) return reject();
+
+        cash -= cost;
+        holdings[symbol] += quantity;
+        holdingsValue += (double) quantity * price / UNIT / UNIT;
+        filled++;
+        return true;
+    }
+
+    // Market sell at the last price. false = not enough coins.
+    public boolean sell(int symbol, long quantity) {
+        long price = price(symbol);
+        if (quantity <= 0 || price <= 0 || holdings(symbol) < quantity) return reject();
+
+        cash += FixedPoint.cost(price, quantity);
+        holdings[symbol] -= quantity;
+        holdingsValue -= (double) quantity * price / UNIT / UNIT;
+        filled++;
+        return true;
+    }
+
+    // Resting order, same meaning as OpenOrder: BUY LIMIT waits for a drop, STOP sells on a drop,
+    // SELL LIMIT / TAKE_PROFIT sell on a rise. Returns the order id.
+    public long place(int symbol, OpenOrder.Side side, OpenOrder.Type type, long quantity, long triggerPrice) {
+        if (symbol >= prices.length) grow(symbol);
+        while (orders.size() <= symbol) orders.add(new ArrayList<>());
+        boolean fireBelow = side == OpenOrder.Side.BUY || type == OpenOrder.Type.STOP;
+        Order order = new Order(nextOrderId++, symbol, side, quantity, triggerPrice, fireBelow);
+        orders.get(symbol).add(order);
+        return order.id();
+    }
+
+    public boolean cancel(long orderId) {
+        for (List<Order> book : orders) {
+            if (book.removeIf(o -> o.id() == orderId)) return true;
+        }
+        return false;
+    }
+
+    // --- STATE ---
+
+    public long holdings(int symbol) {
+        return symbol < holdings.length ? holdings[symbol] : 0;
+    }
+
+    public long price(int symbol) {
+        return symbol < prices.length ? prices[symbol] : 0;
+    }
+
+    // In cents
+    public long cash() {
+        return cash;
+    }
+
+    // How much of a coin this many cents pay for at the last price
+    public long quantityFor(int symbol, long cents) {
+        return FixedPoint.quantityFor(cents, price(symbol));
+    }
+
+    public String symbol(int symbol) {
+        return symbols.get(symbol);
+    }
+
+    // Time of the tick being replayed (epoch ms)
+    public long now() {
+        return now;
+    }
+
+    // Cash + every coin at its last price, exact
+    public Result result() {
+        BigDecimal value = FixedPoint.toMoney(cash);
+        for (int s = 0; s < holdings.length; s++) {
+            if (holdings[s] != 0) {
+                value = value.add(FixedPoint.toQuantity(holdings[s]).multiply(FixedPoint.toPrice(prices[s])));
+            }
+        }
+        value = value.setScale(2, RoundingMode.HALF_UP);
+        return new Result(ticks, filled, rejected, FixedPoint.toMoney(cash), value,
+                value.subtract(FixedPoint.toMoney(startingCash)), maxDrawdown * 100);
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void triggerOrders(int symbol, long price) {
+        if (symbol >= orders.size()) return;
+        List<Order> book = orders.get(symbol);
+        boolean any = false;
+        for (int i = 0; i < book.size() && !any; i++) any = crossed(book.get(i), price);
+        if (!any) return;
+
+        // Take the crossed orders out first, then fill them (like OrderEngine: an order fills at most once)
+        List<Order> crossed = new ArrayList<>();
+        book.removeIf(o -> {
+            boolean fire = crossed(o, price);
+            if (fire) crossed.add(o);
+            return fire;
+        });
+        for (Order order : crossed) {
+            if (order.side() == OpenOrder.Side.BUY) buy(symbol, order.quantity());
+            else sell(symbol, order.quantity());
+        }
+    }
+
+    private static boolean crossed(Order order, long price) {
+        return order.fireBelow() ? price <= order.trigger() : price >= order.trigger();
+    }
+
+    private boolean reject() {
+        rejected++;
+        return false;
+    }
+
+    private void grow(int symbol) {
+        int size = Math.max(symbol + 1, prices.length * 2);
+        holdings = Arrays.copyOf(holdings, size);
+        prices = Arrays.copyOf(prices, size);
+    }
+}
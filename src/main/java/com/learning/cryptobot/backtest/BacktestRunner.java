@@ -0,0 +1,76 @@
+package com.learning.cryptobot.backtest;
+
+import com.learning.cryptobot.service.LedgerService;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BacktestRunner
+ * Replays recorded ticks (market.recorder.enabled=true) through a strategy, offline, and prints the result.
+ * No Spring, no DB, no Binance: just the tape and a simulated account.
+ *
+ *   mvn -Pbacktest compile exec:exec -Dbacktest.args="--tape=./data/ticks --fast=50 --slow=200"
+ *
+ * Options (all optional):
+ *   --tape=./data/ticks     a tape file, or a folder of ticks-*.bin
+ *   --cash=1000.00          starting cash (same as a new user)
+ *   --fast=20 --slow=100    moving averages, in ticks of the same coin
+ *   --budget=100.00         spent on each buy
+ *   --speed=0               0 = as fast as possible, 60 = one hour of ticks per minute
+ */
+public final class BacktestRunner {
+
+    private BacktestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        TickTapeReader reader = TickTapeReader.of(Path.of(options.getOrDefault("tape", "./data/ticks")));
+        Strategy strategy = new MovingAverageCrossStrategy(
+                Integer.parseInt(options.getOrDefault("fast", "20")),
+                Integer.parseInt(options.getOrDefault("slow", "100")),
+                new BigDecimal(options.getOrDefault("budget", "100.00")).movePointRight(2).longValue());
+        Backtest backtest = new Backtest(strategy, reader.symbols(),
+                new BigDecimal(options.getOrDefault("cash", LedgerService.STARTING_BALANCE.toPlainString())));
+        double speed = Double.parseDouble(options.getOrDefault("speed", "0"));
+
+        long start = System.nanoTime();
+        long ticks = reader.read(speed > 0 ? paced(backtest, speed) : backtest);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // The report is this tool's output, so it goes to stdout (not through a logger)
+        Backtest.Result result = backtest.result();
+        System.out.printf("Replayed %,d ticks of %d symbols in %.2fs (%,.0f ticks/s)%n",
+                ticks, reader.symbols().size(), seconds, ticks / Math.max(seconds, 1e-9));
+        System.out.printf("Trades: %d filled, %d rejected%n", result.filled(), result.rejected());
+        System.out.printf("Cash: $%s, portfolio value: $%s, P&L: $%s%n", result.cash(), result.value(), result.pnl());
+        System.out.printf("Max drawdown: %.2f%%%n", result.maxDrawdownPercent());
+    }
+
+    // Waits between ticks so the tape plays "speed" times faster than it was recorded
+    private static TickTapeReader.TickHandler paced(Backtest backtest, double speed) {
+        long[] firstTick = {-1};
+        long startNanos = System.nanoTime();
+        return (symbol, timeMillis, price) -> {
+            if (firstTick[0] < 0) firstTick[0] = timeMillis;
+            long dueNanos = startNanos + (long) ((timeMillis - firstTick[0]) * 1_000_000 / speed);
+            long waitNanos = dueNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                try {
+                    Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            backtest.onTick(symbol, timeMillis, price);
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.learning.cryptobot.backtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MovingAverageCrossStrategy
+ * The classic example strategy: per coin, buy for a fixed budget when the average of the
+ * last "fast" ticks rises above the average of the last "slow" ticks, sell it all when it falls below.
+ */
+public class MovingAverageCrossStrategy implements Strategy {
+
+    // Last "slow" prices of one coin in a ring, with running sums so an average costs nothing
+    private static final class Averages {
+        final long[] ring;
+        int count;
+        int next;
+        long fastSum;
+        long slowSum;
+        boolean fastAbove;
+
+        Averages(int slow) {
+            ring = new long[slow];
+        }
+    }
+
+    private final int fast;
+    private final int slow;
+    private final long budgetCents;
+    private final List<Averages> coins = new ArrayList<>();
+
+    // budgetCents = money spent on each buy
+    public MovingAverageCrossStrategy(int fast, int slow, long budgetCents) {
+        if (fast <= 0 || fast >= slow) throw new IllegalArgumentException("Need 0 < fast < slow, got " + fast + " / " + slow);
+        this.fast = fast;
+        this.slow = slow;
+        this.budgetCents = budgetCents;
+    }
+
+    @Override
+    public void onTick(Backtest backtest, int symbol, long timeMillis, long price) {
+        while (coins.size() <= symbol) coins.add(new Averages(slow));
+        Averages a = coins.get(symbol);
+
+        // The price leaving the fast window is "fast" ticks back, the one leaving the slow window is overwritten now
+        if (a.count >= fast) a.fastSum -= a.ring[(a.next - fast + slow) % slow];
+        if (a.count >= slow) a.slowSum -= a.ring[a.next];
+        a.ring[a.next] = price;
+        a.next = (a.next + 1) % slow;
+        a.fastSum += price;
+        a.slowSum += price;
+        if (a.count < slow) a.count++;
+        if (a.count < slow) return; // not enough history yet
+
+        // Only a signal, doubles are precise enough (and long sums * window could overflow)
+        boolean fastAbove = (double) a.fastSum / fast > (double) a.slowSum / slow;
+        if (fastAbove && !a.fastAbove) {
+            backtest.buy(symbol, backtest.quantityFor(symbol, Math.min(budgetCents, backtest.cash())));
+        } else if (!fastAbove && a.fastAbove && backtest.holdings(symbol) > 0) {
+            backtest.sell(symbol, backtest.holdings(symbol));
+        }
+        a.fastAbove = fastAbove;
+    }
+}
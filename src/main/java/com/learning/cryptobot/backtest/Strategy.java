@@ -0,0 +1,11 @@
+package com.learning.cryptobot.backtest;
+
+/**
+ * A trading strategy to test offline. Gets every replayed tick and trades through the Backtest
+ * (buy / sell / place), the same way a user trades through the bot.
+ */
+public interface Strategy {
+
+    // price is in units of 1e-8, like everything in a backtest (see Backtest)
+    void onTick(Backtest backtest, int symbol, long timeMillis, long price);
+}
@@ -0,0 +1,172 @@
+package com.learning.cryptobot.backtest;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.service.FixedPoint;
+import com.learning.cryptobot.service.MarketTickBus;
+import com.learning.cryptobot.service.PriceTickListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TickRecorder
+ * Records every price we receive (REST, stream, other cluster nodes) to tape files,
+ * one per UTC day: ticks-2026-10-18.bin. Replay them later with BacktestRunner.
+ *
+ * Off by default (market.recorder.enabled). Stale prices are not recorded: they are old ticks again.
+ * A tick only goes into a bounded queue; one "tick-recorder" thread does all the file writing,
+ * so a slow disk never holds up the price path. If the queue is full the tick is dropped (and counted).
+ */
+@Component
+public class TickRecorder implements PriceTickListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TickRecorder.class);
+
+    // One price as it arrived, waiting to be written
+    private record Tick(String symbol, long at, BigDecimal price) {}
+
+    // Put in the queue by close(): everything before it is written, then the thread ends
+    private static final Tick STOP = new Tick(null, 0, null);
+
+    private final MarketTickBus tickBus;
+    private final boolean enabled;
+    private final Path directory;
+    private final int blockTicks;
+    private final long flushMillis;
+    private final BlockingQueue<Tick> queue;
+
+    // Only the recorder thread touches the writer
+    private TickTapeWriter writer;
+    private LocalDate writerDay;
+    private volatile Thread worker;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public TickRecorder(MarketTickBus tickBus,
+                        @Value("${market.recorder.enabled:false}") boolean enabled,
+                        @Value("${market.recorder.dir:./data/ticks}") String directory,
+                        @Value("${market.recorder.block-ticks:8192}") int blockTicks,
+                        @Value("${market.recorder.flush-interval-ms:5000}") long flushMillis,
+                        @Value("${market.recorder.queue-size:65536}") int queueSize) {
+        this.tickBus = tickBus;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.blockTicks = blockTicks;
+        this.flushMillis = flushMillis;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        Thread t = new Thread(this::run, "tick-recorder");
+        t.setDaemon(true);
+        worker = t;
+        t.start();
+        tickBus.register(this);
+    }
+
+    @Override
+    public void onTick(BinanceTickerDto ticker) {
+        if (ticker.isStale()) return;
+        if (!queue.offer(new Tick(ticker.getSymbol(), System.currentTimeMillis(), ticker.getLastPrice()))) {
+            // The disk can't keep up: losing a tick of history must never slow down the price path
+            if (dropped.incrementAndGet() % 10_000 == 1) log.warn("Tick recorder: queue full, {} ticks dropped so far", dropped.get());
+        }
+    }
+
+    // Writes what is still queued and closes the file
+    @PreDestroy
+    public void close() throws InterruptedException {
+        Thread t = worker;
+        if (t == null) return;
+        worker = null;
+        queue.put(STOP);
+        t.join(10_000);
+    }
+
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // --- RECORDER THREAD ---
+
+    // Writes ticks as they come, and flushes every flush-interval-ms so at most that much
+    // history is lost on a crash
+    private void run() {
+        long nextFlush = System.currentTimeMillis() + flushMillis;
+        try {
+            while (true) {
+                Tick tick = queue.poll(Math.max(1, nextFlush - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (tick == STOP) break;
+                if (tick != null) write(tick);
+                if (System.currentTimeMillis() >= nextFlush) {
+                    flushWriter();
+                    nextFlush = System.currentTimeMillis() + flushMillis;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeWriter();
+        }
+    }
+
+    private void write(Tick tick) {
+        try {
+            writerFor(tick.at()).append(tick.symbol(), tick.at(), FixedPoint.price(tick.price()));
+            recorded.incrementAndGet();
+        } catch (IOException | ArithmeticException e) {
+            log.warn("Tick recorder: could not record {}: {}", tick.symbol(), e.getMessage());
+        }
+    }
+
+    private void flushWriter() {
+        if (writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("Tick recorder: flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Tick recorder: close failed: {}", e.getMessage());
+        }
+        writer = null;
+    }
+
+    // Today's file, starting a new one after midnight (UTC)
+    private TickTapeWriter writerFor(long now) throws IOException {
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(now), ZoneOffset.UTC);
+        if (writer != null && day.equals(writerDay)) return writer;
+
+        closeWriter();
+        writer = new TickTapeWriter(directory.resolve("ticks-" + day + ".bin"), blockTicks);
+        writerDay = day;
+        return writer;
+    }
+}
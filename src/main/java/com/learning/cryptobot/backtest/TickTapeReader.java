@@ -0,0 +1,166 @@
+package com.learning.cryptobot.backtest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * TickTapeReader
+ * Plays recorded tapes back, oldest file first, as fast as it can decode them.
+ *
+ * Each block is decoded into plain long / int arrays and handed over tick by tick
+ * as primitives, so replaying creates no objects per tick (no BigDecimal, no DTO).
+ * Symbols are numbered 0, 1, 2 ... in the order they first appear (see symbols()).
+ */
+public class TickTapeReader {
+
+    // Gets every tick. price is a FixedPoint price (FixedPoint.toPrice turns it back into a BigDecimal).
+    public interface TickHandler {
+        void onTick(int symbol, long timeMillis, long price);
+    }
+
+    private final List<Path> files;
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    // Reused for every block
+    private byte[] payload = new byte[64 * 1024];
+    private long[] times = new long[0];
+    private int[] blockSymbols = new int[0];
+    private long[] prices = new long[0];
+
+    public TickTapeReader(List<Path> files) {
+        this.files = files;
+    }
+
+    // One tape file, or every ticks-*.bin in a folder (their names sort by date)
+    public static TickTapeReader of(Path fileOrDirectory) throws IOException {
+        if (!Files.isDirectory(fileOrDirectory)) return new TickTapeReader(List.of(fileOrDirectory));
+        try (Stream<Path> list = Files.list(fileOrDirectory)) {
+            return new TickTapeReader(list
+                    .filter(p -> p.getFileName().toString().startsWith("ticks-") && p.getFileName().toString().endsWith(".bin"))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    // Symbol names by number. Grows while reading: a symbol is known before its first tick is handed over.
+    public List<String> symbols() {
+        return Collections.unmodifiableList(symbols);
+    }
+
+    // Replays every file, returns the number of ticks
+    public long read(TickHandler handler) throws IOException {
+        long ticks = 0;
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (!hasMagic(channel)) throw new IOException(file + " is not a tick tape");
+                long position = 4;
+                int length;
+                while ((length = readBlock(channel, position)) >= 0) {
+                    ticks += replay(handler);
+                    position += 4 + length + 4;
+                }
+            }
+        }
+        return ticks;
+    }
+
+    // Bytes at the start of the file that hold complete blocks (0 = empty file).
+    // Everything after that is a block cut short by a crash.
+    static long validLength(FileChannel channel) throws IOException {
+        if (channel.size() == 0) return 0;
+        if (!hasMagic(channel)) throw new IOException("Not a tick tape file");
+
+        TickTapeReader reader = new TickTapeReader(List.of());
+        long position = 4;
+        int length;
+        while ((length = reader.readBlock(channel, position)) >= 0) {
+            position += 4 + length + 4;
+        }
+        return position;
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private static boolean hasMagic(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        return readFully(channel, magic, 0) && magic.getInt(0) == TickTape.MAGIC;
+    }
+
+    // Loads the block at position into payload. Returns its length, or -1 at the end of the data.
+    private int readBlock(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        if (!readFully(channel, header, position)) return -1;
+        int length = header.getInt(0);
+        if (length <= 0 || position + 4 + length + 4 > channel.size()) return -1;
+
+        if (payload.length < length + 4) payload = new byte[Math.max(length + 4, payload.length * 2)];
+        if (!readFully(channel, ByteBuffer.wrap(payload, 0, length + 4), position + 4)) return -1;
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, length);
+        int stored = ByteBuffer.wrap(payload, length, 4).getInt();
+        return stored == (int) crc.getValue() ? length : -1;
+    }
+
+    // Decodes the loaded block and hands its ticks to the handler
+    private int replay(TickHandler handler) {
+        TickTape.Cursor in = new TickTape.Cursor(payload, 0);
+
+        // Block symbol number -> our symbol number
+        int symbolCount = in.varInt();
+        int[] global = new int[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            int nameLength = in.varInt();
+            String name = new String(payload, in.position, nameLength, StandardCharsets.UTF_8);
+            in.position += nameLength;
+            global[i] = ids.computeIfAbsent(name, n -> {
+                symbols.add(n);
+                return symbols.size() - 1;
+            });
+        }
+
+        int count = in.varInt();
+        if (times.length < count) {
+            times = new long[count];
+            blockSymbols = new int[count];
+            prices = new long[count];
+        }
+        long time = in.fixedLong();
+        for (int i = 0; i < count; i++) {
+            time += in.varLong();
+            times[i] = time;
+        }
+        for (int i = 0; i < count; i++) blockSymbols[i] = in.varInt();
+        long[] previousPrice = new long[symbolCount];
+        for (int i = 0; i < count; i++) {
+            int s = blockSymbols[i];
+            previousPrice[s] += in.varLong();
+            prices[i] = previousPrice[s];
+        }
+
+        for (int i = 0; i < count; i++) handler.onTick(global[blockSymbols[i]], times[i], prices[i]);
+        return count;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) return false;
+            position += read;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,132 @@
+package com.learning.cryptobot.backtest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * TickTapeWriter
+ * Appends ticks to a tape file (format: see TickTape). Ticks are collected in plain
+ * arrays and written one block at a time, when the block is full or on flush().
+ *
+ * Opening an existing file continues after its last complete block
+ * (a half written block from a crash is cut off first). Not thread safe.
+ */
+public class TickTapeWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final int blockTicks;
+
+    // The block being filled: one array per column, symbols as an index into blockSymbols
+    private final long[] times;
+    private final int[] symbols;
+    private final long[] prices;
+    private int size;
+    private final List<String> blockSymbols = new ArrayList<>();
+    private final Map<String, Integer> blockIds = new HashMap<>();
+
+    public TickTapeWriter(Path file, int blockTicks) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.blockTicks = blockTicks;
+        this.times = new long[blockTicks];
+        this.symbols = new int[blockTicks];
+        this.prices = new long[blockTicks];
+
+        try {
+            long end = TickTapeReader.validLength(channel);
+            if (end == 0) {
+                ByteBuffer magic = ByteBuffer.allocate(4).putInt(0, TickTape.MAGIC);
+                channel.write(magic, 0);
+                end = 4;
+            }
+            channel.truncate(end);
+            channel.position(end);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // price as a FixedPoint price (8 decimals)
+    public void append(String symbol, long timeMillis, long price) throws IOException {
+        Integer id = blockIds.get(symbol);
+        if (id == null) {
+            id = blockSymbols.size();
+            blockSymbols.add(symbol);
+            blockIds.put(symbol, id);
+        }
+        times[size] = timeMillis;
+        symbols[size] = id;
+        prices[size] = price;
+        size++;
+        if (size == blockTicks) flush();
+    }
+
+    // Writes the ticks collected so far as one block
+    public void flush() throws IOException {
+        if (size == 0) return;
+
+        List<byte[]> names = new ArrayList<>(blockSymbols.size());
+        int nameBytes = 0;
+        for (String symbol : blockSymbols) {
+            byte[] name = symbol.getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            nameBytes += 5 + name.length;
+        }
+        // Worst case per tick: 10 bytes time + 5 symbol + 10 price
+        ByteBuffer out = ByteBuffer.allocate(4 + 5 + nameBytes + 5 + 8 + size * 25 + 4);
+        out.position(4);
+
+        TickTape.putVarInt(out, names.size());
+        for (byte[] name : names) {
+            TickTape.putVarInt(out, name.length);
+            out.put(name);
+        }
+
+        TickTape.putVarInt(out, size);
+        out.putLong(times[0]);
+        long previousTime = times[0];
+        for (int i = 0; i < size; i++) {
+            TickTape.putVarLong(out, times[i] - previousTime);
+            previousTime = times[i];
+        }
+        for (int i = 0; i < size; i++) TickTape.putVarInt(out, symbols[i]);
+        long[] previousPrice = new long[names.size()];
+        for (int i = 0; i < size; i++) {
+            TickTape.putVarLong(out, prices[i] - previousPrice[symbols[i]]);
+            previousPrice[symbols[i]] = prices[i];
+        }
+
+        int length = out.position() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 4, length);
+        out.putInt((int) crc.getValue());
+        out.putInt(0, length);
+        out.flip();
+        while (out.hasRemaining()) channel.write(out);
+
+        size = 0;
+        blockSymbols.clear();
+        blockIds.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
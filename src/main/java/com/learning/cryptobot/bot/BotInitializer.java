@@ -1,24 +1,56 @@
 package com.learning.cryptobot.bot;
 
+import com.learning.cryptobot.cluster.ClusterTopology;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
 @Configuration // Runs during application startup
+// bot.enabled=false starts only the web app (tests, benchmarks, no Telegram token)
+@ConditionalOnProperty(name = "bot.enabled", havingValue = "true", matchIfMissing = true)
 public class BotInitializer {
 
+    // polling = we ask Telegram for updates (getUpdates), webhook = Telegram POSTs them to TelegramWebhookController
+    @Value("${bot.mode:polling}")
+    private String mode;
+
+    // Public https URL of the webhook (what Telegram calls), e.g. https://bot.example.com/telegram/webhook
+    @Value("${bot.webhook.url:}")
+    private String webhookUrl;
+
+    @Value("${bot.webhook.secret:}")
+    private String webhookSecret;
+
     @Bean
-    public TelegramBotsApi telegramBotsApi(CryptoBot cryptoBot) throws TelegramApiException {
+    public TelegramBotsApi telegramBotsApi(CryptoBot cryptoBot, ClusterTopology cluster) throws TelegramApiException {
 
         // Create the API instance (Handles the connection sessions)
         TelegramBotsApi api = new TelegramBotsApi(DefaultBotSession.class);
 
+        // Telegram allows only ONE getUpdates poller or webhook per bot token: in cluster mode node 0
+        // sets it up. The other nodes only send replies (and receive webhooks through the load balancer).
+        if (cluster.isEnabled() && cluster.getNodeId() != 0) return api;
+
+        if ("webhook".equalsIgnoreCase(mode)) {
+            // Tell Telegram where to send updates. Empty URL = it was set up by hand (or by another deployment).
+            if (!webhookUrl.isBlank()) {
+                SetWebhook setWebhook = SetWebhook.builder().url(webhookUrl).build();
+                if (!webhookSecret.isBlank()) setWebhook.setSecretToken(webhookSecret);
+                cryptoBot.execute(setWebhook);
+            }
+            return api;
+        }
+
         // Register your specific bot instance!
         // This links your logic (onUpdateReceived) to the incoming web requests.
+        // (Registering also removes a webhook left over from webhook mode.)
         api.registerBot(cryptoBot);
 
         return api;
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,159 @@
 package com.learning.cryptobot.bot;
 
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.cluster.PeerClient;
+import com.learning.cryptobot.entity.OpenOrder;
+import com.learning.cryptobot.entity.PriceAlert;
+import com.learning.cryptobot.entity.RecurringOrder;
+import com.learning.cryptobot.service.AdmissionControl;
+import com.learning.cryptobot.service.AlertEngine;
 import com.learning.cryptobot.service.BinancePriceService;
+import com.learning.cryptobot.service.BinanceUnavailableException;
+import com.learning.cryptobot.service.CandleSeries;
+import com.learning.cryptobot.service.CandleService;
+import com.learning.cryptobot.service.CrossRateEngine;
+import com.learning.cryptobot.service.FixedPoint;
+import com.learning.cryptobot.service.LeaderboardService;
 import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.service.OrderEngine;
+import com.learning.cryptobot.service.RateGraph;
+import com.learning.cryptobot.service.RecurringOrderEngine;
 import com.learning.cryptobot.service.TradingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
 
 @Component // Register this class as a Spring Bean so it can start automatically
 public class CryptoBot extends TelegramLongPollingBot {
 
+    private static final Logger log = LoggerFactory.getLogger(CryptoBot.class);
+
     // Dependencies to fetch prices and handle trades (Database interactions)
     private final BinancePriceService binancePriceService;
     private final TradingService tradingService;
 
+    // Resting limit / stop / take-profit orders
+    private final OrderEngine orderEngine;
+
+    // Price alerts pushed to the user
+    private final AlertEngine alertEngine;
+
+    // Recurring buys ("dca BTC 10 daily")
+    private final RecurringOrderEngine recurringOrderEngine;
+
+    // Ranking of all users by portfolio value
+    private final LeaderboardService leaderboardService;
+
+    // 1m / 5m / 1h candles for "chart"
+    private final CandleService candleService;
+
+    // "ETH in BTC": cross rates worked out from prices we already have
+    private final CrossRateEngine crossRates;
+
+    // Runs each chat's messages on a worker thread, in order
+    private final UpdateDispatcher updateDispatcher;
+
+    // Queues replies and sends them in the background, respecting Telegram's rate limits
+    private final OutboundMessageSender outboundSender;
+
+    // Per-chat and global rate limits, checked before a message is queued
+    private final AdmissionControl admissionControl;
+
+    // Cluster mode: chats owned by another node are forwarded there
+    private final ClusterTopology cluster;
+    private final PeerClient peerClient;
+
+    // Timers per command (bot.command), see /actuator/prometheus
+    private final MeterRegistry meterRegistry;
+
+    // Commands get their own metric tag, anything else is a price check
+    private static final Set<String> COMMANDS = Set.of("/start", "buy", "sell", "stop", "tp", "orders", "cancel",
+            "wallet", "balance", "alert", "alerts", "unalert", "history", "top", "chart", "dca", "dcas", "undca", "convert");
+
+    // Commands answered from memory / the DB only: they don't use the Binance budget
+    private static final Set<String> LOCAL_COMMANDS = Set.of("/start", "orders", "cancel", "alerts", "unalert",
+            "history", "top", "dcas", "undca");
+
+    // How many candles "chart" draws, and how many it lists with their numbers
+    private static final int CHART_CANDLES = 24;
+    private static final int CHART_ROWS = 5;
+    private static final char[] SPARKS = "▁▂▃▄▅▆▇█".toCharArray();
+    private static final DateTimeFormatter CANDLE_TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm").withZone(ZoneOffset.UTC);
+
     // Inject the bot name from application.properties
     @Value("${bot.name}")
     private String botUsername;
 
+    // When the bot is switched off, replies stay queued instead of going to Telegram
+    @Value("${bot.enabled:true}")
+    private boolean botEnabled;
+
+    // How many users the "top" command lists
+    @Value("${leaderboard.size:10}")
+    private int leaderboardSize;
+
     public CryptoBot(@Value("${bot.token}") String botToken ,
+                     @Value("${bot.api-url:https://api.telegram.org/bot}") String botApiUrl,
+                     @Value("${bot.api-threads:1}") int botApiThreads,
                      BinancePriceService binancePriceService,
-                     TradingService tradingService){
-        super(botToken);
+                     TradingService tradingService,
+                     OrderEngine orderEngine,
+                     AlertEngine alertEngine,
+                     RecurringOrderEngine recurringOrderEngine,
+                     LeaderboardService leaderboardService,
+                     CandleService candleService,
+                     CrossRateEngine crossRates,
+                     UpdateDispatcher updateDispatcher,
+                     OutboundMessageSender outboundSender,
+                     AdmissionControl admissionControl,
+                     ClusterTopology cluster,
+                     PeerClient peerClient,
+                     MeterRegistry meterRegistry){
+        super(botOptions(botApiUrl, botApiThreads), botToken);
         this.binancePriceService = binancePriceService;
         this.tradingService = tradingService;
+        this.orderEngine = orderEngine;
+        this.alertEngine = alertEngine;
+        this.recurringOrderEngine = recurringOrderEngine;
+        this.leaderboardService = leaderboardService;
+        this.candleService = candleService;
+        this.crossRates = crossRates;
+        this.updateDispatcher = updateDispatcher;
+        this.outboundSender = outboundSender;
+        this.admissionControl = admissionControl;
+        this.cluster = cluster;
+        this.peerClient = peerClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Where Telegram lives (changed only to talk to a local stand-in, e.g. the load simulation)
+    // and how many threads send our replies. One is plenty for Telegram's 30 messages/second.
+    private static DefaultBotOptions botOptions(String botApiUrl, int botApiThreads) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(botApiUrl);
+        options.setMaxThreads(botApiThreads);
+        return options;
+    }
+
+    @PostConstruct
+    public void startSender() {
+        if (botEnabled) outboundSender.start(this);
     }
 
     // Helper method to make prices look nice (e.g., 50000.12345 instead of 50000.123456789)
@@ -41,100 +165,416 @@ public class CryptoBot extends TelegramLongPollingBot {
     public void onUpdateReceived(Update update) {
         // checks and tell that only act if there is a message and it contains text
         if (update.hasMessage() && update.getMessage().hasText()) {
-
-            // .trim() removes accidental spaces at the start/end
-            String messageText = update.getMessage().getText().trim();
-            // Chat ID is unique to the user - used to reply back to the specific person
             long chatId = update.getMessage().getChatId();
+            if (cluster.isLocal(chatId)) {
+                dispatchLocal(update);
+            } else {
+                // Another node keeps this user's wallet: it handles (and answers) the message
+                peerClient.forwardUpdate(cluster.ownerOf(chatId), update);
+            }
+        }
+    }
 
-            // Get user's first name for a personal greeting. Default to "Trader" if hidden.
-            String username = update.getMessage().getFrom().getFirstName();
-            if (username == null) username = "Trader";
-
-            String responseText;
-
-            // 2. Parse Command
-            // Split by space: "buy BTC 0.1" -> parts["buy", "BTC", "0.1"]
-            String[] parts = messageText.split(" ");
-            // Normalize command to lowercase ("Buy" -> "buy") for comparison
-            String command = parts[0].toLowerCase();
-
-            try {
-                // ---START COMMAND (/start) ---
-                if (command.equals("/start")) {
-                    responseText = "Welcome " + username + "!\n" +
-                            "🔹 Check Price: Type symbol (e.g., BTC/BTCUSDT)\n" +
-                            "🔹 Buy Asset ->  Type 'buy <symbol> <qty>' (e.g., buy BTC 0.05)\n" +
-                            "🔹 Sell Asset ->  Type 'sell <symbol> <qty>' (e.g., sell BTC 0.05)\n" +
-                            "🔹 Check Wallet -> wallet";
-                }
+    // Hand the work to the dispatcher so the polling thread (or webhook request) is free right away.
+    // Also used for updates forwarded by another node in cluster mode.
+    public void dispatchLocal(Update update) {
+        long chatId = update.getMessage().getChatId();
 
-                // --- BUYING ---
-                else if (command.equals("buy")) {
-                    // Validatate that Did the user type 3 parts? (buy + symbol + qty)
-                    if (parts.length < 3) {
-                        responseText = "Usage: buy <SYMBOL> <QUANTITY>\nExample: buy BTC 0.01";
-                    } else {
-                        String symbol = parts[1]; // e.g."BTC"
-                        BigDecimal quantity = new BigDecimal(parts[2]); // e.g."0.01"
+        // Too many messages (or Binance budget nearly used up): answer "try again in N s" and drop it
+        String text = update.getMessage().getText().trim();
+        int space = text.indexOf(' ');
+        String command = (space < 0 ? text : text.substring(0, space)).toLowerCase();
+        long wait = admissionControl.admitChat(chatId, !LOCAL_COMMANDS.contains(command));
+        if (wait > 0) {
+            if (admissionControl.shouldNotify(chatId)) {
+                sendMessage(chatId, "⏳ Slow down! Too many requests right now, try again in "
+                        + AdmissionControl.toSeconds(wait) + " s.");
+            }
+            return;
+        }
 
+        updateDispatcher.submit(chatId, () -> handleUpdate(update));
+    }
+
+    // Does the actual work for one text message (runs on a dispatcher worker thread)
+    void handleUpdate(Update update) {
+        // .trim() removes accidental spaces at the start/end
+        String messageText = update.getMessage().getText().trim();
+        // Chat ID is unique to the user - used to reply back to the specific person
+        long chatId = update.getMessage().getChatId();
+
+        // Get user's first name for a personal greeting. Default to "Trader" if hidden.
+        String username = update.getMessage().getFrom().getFirstName();
+        if (username == null) username = "Trader";
+
+        String responseText;
+
+        // 2. Parse Command
+        // Split by space: "buy BTC 0.1" -> parts["buy", "BTC", "0.1"]
+        String[] parts = messageText.split("\\s+");
+        // Normalize command to lowercase ("Buy" -> "buy") for comparison
+        String command = parts[0].toLowerCase();
+
+        // Measures this command from here until the reply is queued
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "ok";
+
+        try {
+            // ---START COMMAND (/start) ---
+            if (command.equals("/start")) {
+                responseText = "Welcome " + username + "!\n" +
+                        "🔹 Check Price: Type symbol (e.g., BTC/BTCUSDT)\n" +
+                        "🔹 Buy Asset ->  Type 'buy <symbol> <qty>' (e.g., buy BTC 0.05)\n" +
+                        "🔹 Sell Asset ->  Type 'sell <symbol> <qty>' (e.g., sell BTC 0.05)\n" +
+                        "🔹 Limit Order -> add '@ <price>' (e.g., buy BTC 0.1 @ 60000)\n" +
+                        "🔹 Stop-Loss / Take-Profit -> 'stop BTC 0.1 @ 55000', 'tp BTC 0.1 @ 75000'\n" +
+                        "🔹 Open Orders -> orders, cancel <id>\n" +
+                        "🔹 Price Alerts -> 'alert BTC > 70000', alerts, unalert <id>\n" +
+                        "🔹 Recurring Buys -> 'dca BTC 10 daily' (hourly, daily, weekly), dcas, undca <id>\n" +
+                        "🔹 Check Wallet -> wallet (or 'wallet EUR' for the total in EUR)\n" +
+                        "🔹 Convert -> 'ETH in BTC', 'convert 0.5 ETH EUR'\n" +
+                        "🔹 Trade History -> history\n" +
+                        "🔹 Price Chart -> 'chart BTC 1h' (1m, 5m or 1h)\n" +
+                        "🔹 Leaderboard -> top";
+            }
+
+            // --- BUYING ---
+            else if (command.equals("buy")) {
+                // Validatate that Did the user type 3 parts? (buy + symbol + qty)
+                if (parts.length < 3) {
+                    responseText = "Usage: buy <SYMBOL> <QUANTITY>\nExample: buy BTC 0.01";
+                } else {
+                    String symbol = parts[1]; // e.g."BTC"
+                    BigDecimal quantity = new BigDecimal(parts[2]); // e.g."0.01"
+                    BigDecimal limitPrice = parseTriggerPrice(parts); // "@ 60000" -> resting order
+
+                    if (limitPrice != null) {
+                        responseText = formatOrder(orderEngine.place(chatId, username, OpenOrder.Side.BUY,
+                                OpenOrder.Type.LIMIT, symbol, quantity, limitPrice));
+                    } else {
                         // Call Service to update Database
                         responseText = tradingService.buyCrypto(chatId, username, symbol, quantity);
                     }
                 }
+            }
 
-                // --- SELLING ---
-                else if (command.equals("sell")) {
-                    if (parts.length < 3) {
-                        responseText = "Usage: sell <SYMBOL> <QUANTITY>\nExample: sell BTC 0.01";
-                    } else {
-                        String symbol = parts[1];
-                        BigDecimal quantity = new BigDecimal(parts[2]);
+            // --- SELLING ---
+            else if (command.equals("sell")) {
+                if (parts.length < 3) {
+                    responseText = "Usage: sell <SYMBOL> <QUANTITY>\nExample: sell BTC 0.01";
+                } else {
+                    String symbol = parts[1];
+                    BigDecimal quantity = new BigDecimal(parts[2]);
+                    BigDecimal limitPrice = parseTriggerPrice(parts);
 
+                    if (limitPrice != null) {
+                        responseText = formatOrder(orderEngine.place(chatId, username, OpenOrder.Side.SELL,
+                                OpenOrder.Type.LIMIT, symbol, quantity, limitPrice));
+                    } else {
                         // Call Service to sell assets from Database
                         responseText = tradingService.sellCrypto(chatId, username, symbol, quantity);
                     }
                 }
+            }
+
+            // --- STOP-LOSS / TAKE-PROFIT (always sell orders) ---
+            else if (command.equals("stop") || command.equals("tp")) {
+                BigDecimal triggerPrice = parts.length >= 3 ? parseTriggerPrice(parts) : null;
+                if (triggerPrice == null) {
+                    responseText = "Usage: " + command + " <SYMBOL> <QUANTITY> @ <PRICE>\nExample: " + command + " BTC 0.01 @ 60000";
+                } else {
+                    OpenOrder.Type type = command.equals("stop") ? OpenOrder.Type.STOP : OpenOrder.Type.TAKE_PROFIT;
+                    responseText = formatOrder(orderEngine.place(chatId, username, OpenOrder.Side.SELL,
+                            type, parts[1], new BigDecimal(parts[2]), triggerPrice));
+                }
+            }
+
+            // --- OPEN ORDERS ---
+            else if (command.equals("orders")) {
+                List<OpenOrder> orders = orderEngine.list(chatId);
+                if (orders.isEmpty()) {
+                    responseText = "📋 No open orders.";
+                } else {
+                    StringBuilder sb = new StringBuilder("📋 **OPEN ORDERS**\n\n");
+                    for (OpenOrder order : orders) sb.append(describeOrder(order)).append("\n");
+                    responseText = sb.toString();
+                }
+            }
+
+            else if (command.equals("cancel")) {
+                if (parts.length < 2) {
+                    responseText = "Usage: cancel <ORDER_ID>";
+                } else {
+                    responseText = orderEngine.cancel(chatId, Long.parseLong(parts[1].replace("#", "")))
+                            ? "🗑 Order cancelled." : "No open order with that id.";
+                }
+            }
+
+            // --- RECURRING BUYS ---
+            else if (command.equals("dca")) {
+                // "dca BTC 10 daily" -> parts["dca", "BTC", "10", "daily"]
+                if (parts.length < 4) {
+                    responseText = "Usage: dca <SYMBOL> <DOLLARS> <hourly|daily|weekly>\nExample: dca BTC 10 daily";
+                } else {
+                    RecurringOrder.Frequency frequency = parseFrequency(parts[3]);
+                    RecurringOrder order = recurringOrderEngine.create(chatId, username, parts[1], new BigDecimal(parts[2]), frequency);
+                    responseText = "🔁 Recurring order set\n" + describeRecurring(order) + "\nThe first buy happens now.";
+                }
+            }
+
+            else if (command.equals("dcas")) {
+                List<RecurringOrder> orders = recurringOrderEngine.list(chatId);
+                if (orders.isEmpty()) {
+                    responseText = "🔁 No recurring orders.";
+                } else {
+                    StringBuilder sb = new StringBuilder("🔁 **RECURRING ORDERS**\n\n");
+                    for (RecurringOrder order : orders) sb.append(describeRecurring(order)).append("\n");
+                    responseText = sb.toString();
+                }
+            }
+
+            else if (command.equals("undca")) {
+                if (parts.length < 2) {
+                    responseText = "Usage: undca <ORDER_ID>";
+                } else {
+                    responseText = recurringOrderEngine.cancel(chatId, Long.parseLong(parts[1].replace("#", "")))
+                            ? "🗑 Recurring order stopped." : "No recurring order with that id.";
+                }
+            }
 
-                // --- SCENARIO 4: WALLET CHECK ---
-                else if (command.equals("wallet") || command.equals("balance")) {
-                    // Calls service to generate the text report of wallet
-                    responseText = tradingService.getWallet(chatId);
+            // --- SCENARIO 4: WALLET CHECK ---
+            else if (command.equals("wallet") || command.equals("balance")) {
+                // Calls service to generate the text report of wallet ("wallet EUR" adds the total in EUR)
+                responseText = tradingService.getWallet(chatId, parts.length > 1 ? parts[1] : null);
+            }
+
+            // --- CURRENCY CONVERSION ---
+            else if (command.equals("convert")) {
+                // "convert 0.5 ETH BTC" -> parts["convert", "0.5", "ETH", "BTC"]
+                if (parts.length < 4) {
+                    responseText = "Usage: convert <AMOUNT> <FROM> <TO>\nExample: convert 0.5 ETH BTC";
+                } else {
+                    responseText = formatConversion(new BigDecimal(parts[1]), parts[2], parts[3]);
                 }
+            }
 
-                // --- SCENARIO 5: DEFAULT (PRICE CHECK) ---
-                // If the user typed "BTC" or "ETH"
-                else {
-                    try {
-                        // Attempt to fetch price data from Binance
-                        BinanceTickerDto stat = binancePriceService.getData(messageText);
-
-                        responseText = "📊 *Market Report for " + stat.getSymbol() + "*\n\n" +
-                                "💰 Price: $" + formatCurrency(stat.getLastPrice())  + "\n" +
-                                "📈 24h High: $" + formatCurrency(stat.getHighPrice()) + "\n" +
-                                "📉 24h Low: $" + formatCurrency(stat.getLowPrice()) + "\n" +
-                                "Change (24h): " + stat.getPriceChangePercent() + "%\n"+
-                                "Volume: " + formatCurrency(stat.getVolume()) + "\n" +
-                                "ATR(Average True Range: " + formatCurrency(stat.getWeightedAvgPrice());
-
-                    } catch (Exception e) {
-                        // If Binance API throws error, it means the symbol (e.g., "XYZ") doesn't exist
-                        responseText = "Error: Could not find market data for '" + messageText + "'. check spelling.";
+            // "ETH in BTC" -> parts["ETH", "in", "BTC"]
+            else if (parts.length == 3 && parts[1].equalsIgnoreCase("in")) {
+                responseText = formatConversion(BigDecimal.ONE, parts[0], parts[2]);
+            }
+
+            // --- PRICE ALERTS ---
+            else if (command.equals("alert")) {
+                // "alert BTC > 70000" -> parts["alert", "BTC", ">", "70000"]
+                if (parts.length < 4 || !(parts[2].equals(">") || parts[2].equals("<"))) {
+                    responseText = "Usage: alert <SYMBOL> > <PRICE> (or <)\nExample: alert BTC > 70000";
+                } else {
+                    PriceAlert.Condition condition = parts[2].equals(">") ? PriceAlert.Condition.ABOVE : PriceAlert.Condition.BELOW;
+                    PriceAlert alert = alertEngine.create(chatId, parts[1], condition, new BigDecimal(parts[3]));
+                    responseText = "🔔 Alert #" + alert.getId() + " set: " + alert.getSymbol() + " " + parts[2] + " "
+                            + alert.getThreshold().toPlainString() + "\nI'll message you, no need to keep checking!";
+                }
+            }
+
+            else if (command.equals("alerts")) {
+                List<PriceAlert> alerts = alertEngine.list(chatId);
+                if (alerts.isEmpty()) {
+                    responseText = "🔔 No active alerts.";
+                } else {
+                    StringBuilder sb = new StringBuilder("🔔 **ACTIVE ALERTS**\n\n");
+                    for (PriceAlert alert : alerts) {
+                        sb.append("#").append(alert.getId()).append(" ").append(alert.getSymbol())
+                                .append(alert.getCondition() == PriceAlert.Condition.ABOVE ? " > " : " < ")
+                                .append(alert.getThreshold().toPlainString()).append("\n");
                     }
+                    responseText = sb.toString();
+                }
+            }
+
+            else if (command.equals("unalert")) {
+                if (parts.length < 2) {
+                    responseText = "Usage: unalert <ALERT_ID>";
+                } else {
+                    responseText = alertEngine.delete(chatId, Long.parseLong(parts[1].replace("#", "")))
+                            ? "🗑 Alert removed." : "No active alert with that id.";
                 }
+            }
+
+            // --- TRADE HISTORY ---
+            else if (command.equals("history")) {
+                responseText = tradingService.getHistory(chatId);
+            }
+
+            // --- LEADERBOARD ---
+            else if (command.equals("top")) {
+                responseText = formatLeaderboard(chatId);
+            }
 
-            } catch (NumberFormatException e) {
-                // Catches if user types "buy BTC hello" instead of "buy BTC 0.05"
-                responseText = "Invalid Quantity. Use 0.05 not words.";
-            } catch (Exception e) {
-                // Catch all other unexpected errors
-                e.printStackTrace();
-                responseText = "Transaction Failed: " + e.getMessage();
+            // --- CANDLE CHART ---
+            else if (command.equals("chart")) {
+                if (parts.length < 2) {
+                    responseText = "Usage: chart <SYMBOL> [1m|5m|1h]\nExample: chart BTC 1h";
+                } else {
+                    CandleService.Interval interval = CandleService.Interval.parse(parts.length > 2 ? parts[2] : "1h");
+                    responseText = formatChart(parts[1], interval);
+                }
             }
 
-            // sends the constructed text back to the user
-            sendMessage(chatId, responseText);
+            // --- SCENARIO 5: DEFAULT (PRICE CHECK) ---
+            // If the user typed "BTC" or "ETH"
+            else {
+                try {
+                    // Attempt to fetch price data from Binance
+                    BinanceTickerDto stat = binancePriceService.getData(messageText);
+
+                    responseText = "📊 *Market Report for " + stat.getSymbol() + "*\n\n" +
+                            "💰 Price: $" + formatCurrency(stat.getLastPrice())  + "\n" +
+                            "📈 24h High: $" + formatCurrency(stat.getHighPrice()) + "\n" +
+                            "📉 24h Low: $" + formatCurrency(stat.getLowPrice()) + "\n" +
+                            "Change (24h): " + stat.getPriceChangePercent() + "%\n"+
+                            "Volume: " + formatCurrency(stat.getVolume()) + "\n" +
+                            "ATR(Average True Range: " + formatCurrency(stat.getWeightedAvgPrice()) +
+                            (stat.isStale() ? "\n\n⚠️ Binance is unreachable, this is the last known price." : "");
+
+                } catch (BinanceUnavailableException e) {
+                    // Binance is down and we never saw a price for this symbol
+                    outcome = "error";
+                    responseText = "⚠️ Binance is unreachable right now and there is no known price for '" + messageText + "'. Try again in a minute.";
+                } catch (Exception e) {
+                    // If Binance API throws error, it means the symbol (e.g., "XYZ") doesn't exist
+                    outcome = "not_found";
+                    responseText = "Error: Could not find market data for '" + messageText + "'. check spelling.";
+                }
+            }
+
+        } catch (NumberFormatException e) {
+            // Catches if user types "buy BTC hello" instead of "buy BTC 0.05"
+            outcome = "invalid";
+            responseText = "Invalid Quantity. Use 0.05 not words.";
+        } catch (Exception e) {
+            // Catch all other unexpected errors
+            log.error("Command '{}' from chat {} failed", messageText, chatId, e);
+            outcome = "error";
+            responseText = "Transaction Failed: " + e.getMessage();
         }
+
+        // sends the constructed text back to the user
+        sendMessage(chatId, responseText);
+
+        sample.stop(Timer.builder("bot.command")
+                .tag("command", COMMANDS.contains(command) ? command.replace("/", "") : "price")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    // "buy BTC 0.1 @ 60000" or "buy BTC 0.1 @60000" -> 60000, plain "buy BTC 0.1" -> null
+    private BigDecimal parseTriggerPrice(String[] parts) {
+        if (parts.length < 4 || !parts[3].startsWith("@")) return null;
+        String price = parts[3].length() > 1 ? parts[3].substring(1) : (parts.length > 4 ? parts[4] : "");
+        return new BigDecimal(price);
+    }
+
+    // Best users, then the asking user's own value and the exchange totals
+    private String formatLeaderboard(long chatId) {
+        StringBuilder sb = new StringBuilder("🏆 **LEADERBOARD**\n\n");
+        LeaderboardService.Board board = leaderboardService.board(leaderboardSize);
+        for (LeaderboardService.Standing s : board.top()) {
+            sb.append(s.rank()).append(". ").append(s.name()).append(" - $").append(s.value().toPlainString())
+                    .append(" (").append(s.pnlPercent().signum() >= 0 ? "+" : "").append(s.pnlPercent().toPlainString()).append("%)\n");
+        }
+
+        LeaderboardService.Standing mine = leaderboardService.standing(chatId);
+        if (mine != null) {
+            sb.append("\n👤 You: $").append(mine.value().toPlainString())
+                    .append(" (P&L: ").append(mine.pnl().signum() >= 0 ? "+" : "").append(mine.pnl().toPlainString()).append(")\n");
+        }
+
+        LeaderboardService.Stats stats = board.stats();
+        sb.append("\n📊 ").append(stats.users()).append(" traders, total value $").append(stats.totalValue().toPlainString())
+                .append(", average P&L $").append(stats.averagePnl().toPlainString());
+        return sb.toString();
+    }
+
+    // Sparkline of the closes, the range's open / high / low / close, then the newest candles
+    private String formatChart(String symbol, CandleService.Interval interval) {
+        CandleSeries.Candles candles = candleService.candles(symbol, interval, CHART_CANDLES);
+        int n = candles.size();
+        if (n == 0) return "No candles for " + symbol.toUpperCase() + " yet, try again in a minute.";
+
+        long high = Long.MIN_VALUE, low = Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            high = Math.max(high, candles.high()[i]);
+            low = Math.min(low, candles.low()[i]);
+        }
+        long lowestClose = Long.MAX_VALUE, highestClose = Long.MIN_VALUE;
+        for (long close : candles.close()) {
+            lowestClose = Math.min(lowestClose, close);
+            highestClose = Math.max(highestClose, close);
+        }
+
+        StringBuilder sb = new StringBuilder("📈 *").append(symbol.toUpperCase()).append(' ').append(interval.code())
+                .append("* (last ").append(n).append(" candles)\n\n");
+        for (long close : candles.close()) {
+            long range = highestClose - lowestClose;
+            int level = range == 0 ? SPARKS.length / 2 : (int) ((close - lowestClose) * (SPARKS.length - 1) / range);
+            sb.append(SPARKS[level]);
+        }
+
+        long open = candles.open()[0];
+        long close = candles.close()[n - 1];
+        sb.append("\n\nOpen $");
+        FixedPoint.appendPlain(sb, open, FixedPoint.PRICE_SCALE).append("  Close $");
+        FixedPoint.appendPlain(sb, close, FixedPoint.PRICE_SCALE).append("\nHigh $");
+        FixedPoint.appendPlain(sb, high, FixedPoint.PRICE_SCALE).append("  Low $");
+        FixedPoint.appendPlain(sb, low, FixedPoint.PRICE_SCALE);
+        if (open > 0) {
+            // Change in hundredths of a percent
+            sb.append("\nChange: ").append(close >= open ? "+" : "");
+            FixedPoint.append(sb, (close - open) * 10_000 / open, 2, 2).append('%');
+        }
+
+        sb.append("\n\nTime (UTC)    Open / High / Low / Close\n");
+        for (int i = Math.max(0, n - CHART_ROWS); i < n; i++) {
+            sb.append(CANDLE_TIME.format(Instant.ofEpochMilli(candles.openTime()[i]))).append("  ");
+            FixedPoint.appendPlain(sb, candles.open()[i], FixedPoint.PRICE_SCALE).append(" / ");
+            FixedPoint.appendPlain(sb, candles.high()[i], FixedPoint.PRICE_SCALE).append(" / ");
+            FixedPoint.appendPlain(sb, candles.low()[i], FixedPoint.PRICE_SCALE).append(" / ");
+            FixedPoint.appendPlain(sb, candles.close()[i], FixedPoint.PRICE_SCALE).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String formatConversion(BigDecimal amount, String from, String to) {
+        RateGraph.Conversion rate = crossRates.rate(from, to);
+        BigDecimal converted = CrossRateEngine.display(amount.multiply(BigDecimal.valueOf(rate.rate())));
+        return "💱 " + amount.stripTrailingZeros().toPlainString() + " " + rate.from() + " = "
+                + converted.toPlainString() + " " + rate.to() + "\n"
+                + "Route: " + String.join(" → ", rate.assets())
+                + (rate.fresh() ? "" : "\n⚠️ Binance is unreachable, this uses the last known prices.");
+    }
+
+    private String describeRecurring(RecurringOrder order) {
+        return "#" + order.getId() + " $" + order.getAmount().toPlainString() + " of " + order.getSymbol()
+                + " " + order.getFrequency().name().toLowerCase();
+    }
+
+    private static RecurringOrder.Frequency parseFrequency(String text) {
+        return switch (text.toLowerCase()) {
+            case "hourly" -> RecurringOrder.Frequency.HOURLY;
+            case "daily" -> RecurringOrder.Frequency.DAILY;
+            case "weekly" -> RecurringOrder.Frequency.WEEKLY;
+            default -> throw new IllegalArgumentException("Unknown frequency '" + text + "', use hourly, daily or weekly");
+        };
+    }
+
+    private String formatOrder(OpenOrder order) {
+        return "📌 Order placed\n" + describeOrder(order);
+    }
+
+    private String describeOrder(OpenOrder order) {
+        return "#" + order.getId() + " " + order.getType() + " " + order.getSide() + " "
+                + order.getQuantity().stripTrailingZeros().toPlainString() + " " + order.getSymbol()
+                + " @ $" + order.getTriggerPrice().toPlainString();
     }
 
     // This method help send message to Telegram
@@ -142,11 +582,7 @@ public class CryptoBot extends TelegramLongPollingBot {
         SendMessage message = new SendMessage();
         message.setChatId(String.valueOf(charId)); // Where to send it
         message.setText(responseText);            // What to send
-        try {
-            execute(message); // sends request to Telegram servers
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+        outboundSender.send(message, charId);     // queued, sent in the background
     }
 
 
@@ -0,0 +1,353 @@
+package com.learning.cryptobot.bot;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import com.learning.cryptobot.service.TokenBucket;
+import com.learning.cryptobot.service.UserNotifier;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OutboundMessageSender
+ * All replies to Telegram go through here. send() only puts the message in a queue
+ * and returns, a background thread does the real sending with executeAsync.
+ *
+ * Telegram limits: about 30 messages/second in total and about 1 message/second per chat.
+ * We respect both with token buckets, and if Telegram still answers 429 (Too Many Requests)
+ * we wait the "retry_after" seconds it tells us before trying that message again.
+ *
+ * Each chat has its own first-in-first-out line of messages, and only the first one of a chat
+ * is ever on its way to Telegram. A message that has to wait (chat limit, 429, retry) holds
+ * back the later ones of the same chat, so "processing..." never arrives after "confirmed".
+ * Other chats are not held back.
+ *
+ * Batching: when a chat's turn comes, the plain texts that queued up behind its first message
+ * meanwhile are sent together with it as ONE message (blank line between them, up to Telegram's
+ * 4096 characters). The wait is the one the limits already impose, nothing is held back on purpose,
+ * and a busy chat needs far fewer of its 1/second sends.
+ */
+@Component
+public class OutboundMessageSender implements UserNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundMessageSender.class);
+
+    private static final class Outgoing {
+        final SendMessage message;
+        final long chatId;
+        final long enqueuedAt;
+        int attempts;
+        // Queued messages it carries: 1 + the ones merged into its text
+        int count = 1;
+
+        Outgoing(SendMessage message, long chatId) {
+            this.message = message;
+            this.chatId = chatId;
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+
+    // One chat's messages in the order they were sent. The lane is in the delay queue (or its first
+    // message is being sent) while "busy"; "readyAt" parks it until its chat / Telegram allows it.
+    // State changes happen while holding the lane's lock.
+    private final class ChatLane implements Delayed {
+        final TokenBucket bucket = new TokenBucket(perChatBurst, perChatRate);
+        final ArrayDeque<Outgoing> messages = new ArrayDeque<>();
+        boolean busy;
+        // Set when the cleanup dropped this lane: send() must make a new one
+        boolean removed;
+        volatile long readyAt;
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAt, ((ChatLane) other).readyAt);
+        }
+    }
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Telegram's limit for the text of one message
+    static final int MAX_TEXT_LENGTH = 4096;
+    private static final String MERGE_SEPARATOR = "\n\n";
+
+    // Chats with a message to send, earliest allowed first
+    private final DelayQueue<ChatLane> queue = new DelayQueue<>();
+    private final Map<Long, ChatLane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxQueueSize;
+
+    private final TokenBucket globalBucket;
+    private final double perChatBurst;
+    private final double perChatRate;
+
+    // Stats
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+
+    private volatile AbsSender telegram;
+    private volatile Thread worker;
+
+    public OutboundMessageSender(@Value("${bot.sender.queue-size:10000}") int maxQueueSize,
+                                 @Value("${bot.sender.global-per-second:30}") double globalPerSecond,
+                                 @Value("${bot.sender.chat-per-second:1}") double perChatRate,
+                                 @Value("${bot.sender.chat-burst:3}") double perChatBurst) {
+        this.maxQueueSize = maxQueueSize;
+        this.globalBucket = new TokenBucket(globalPerSecond, globalPerSecond);
+        this.perChatRate = perChatRate;
+        this.perChatBurst = perChatBurst;
+    }
+
+    // Called once by the bot, so we know who actually talks to Telegram
+    public synchronized void start(AbsSender telegram) {
+        if (worker != null) return;
+        this.telegram = telegram;
+        Thread t = new Thread(this::run, "bot-sender");
+        t.setDaemon(true);
+        worker = t;
+        t.start();
+    }
+
+    // Queues a message. Never blocks: if the queue is full the message is dropped and counted.
+    public boolean send(SendMessage message, long chatId) {
+        if (queued.incrementAndGet() > maxQueueSize) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        Outgoing out = new Outgoing(message, chatId);
+        while (true) {
+            ChatLane lane = lanes.computeIfAbsent(chatId, id -> new ChatLane());
+            synchronized (lane) {
+                if (lane.removed) continue; // dropped by the cleanup just now, take a new one
+                lane.messages.addLast(out);
+                if (!lane.busy) schedule(lane, 0);
+            }
+            return true;
+        }
+    }
+
+    // Messages nobody asked for (order filled, alert ...), same queue and limits as replies
+    @Override
+    public void notify(long chatId, String text) {
+        SendMessage message = new SendMessage();
+        message.setChatId(String.valueOf(chatId));
+        message.setText(text);
+        send(message, chatId);
+    }
+
+    public int getQueueDepth() { return queued.get(); }
+    public long getSent() { return sent.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getRetried() { return retried.get(); }
+    // Messages that went out as part of an earlier message of their chat (also counted in getSent)
+    public long getMerged() { return merged.get(); }
+
+    // Average time a message waited in the queue before it was handed to Telegram
+    public double getAverageQueueMillis() {
+        long count = sent.get();
+        return count == 0 ? 0 : totalQueueNanos.get() / 1_000_000d / count;
+    }
+
+    public double getMaxQueueMillis() {
+        return maxQueueNanos.get() / 1_000_000d;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread t = worker;
+        if (t != null) t.interrupt();
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void run() {
+        long lastCleanup = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                ChatLane lane = queue.take();
+                Outgoing out;
+                synchronized (lane) {
+                    out = lane.messages.peekFirst();
+                }
+
+                // This chat already got its share: park it and serve other chats meanwhile
+                long chatWait = lane.bucket.nanosUntilAvailable(1);
+                if (chatWait > 0) {
+                    synchronized (lane) {
+                        schedule(lane, chatWait);
+                    }
+                    continue;
+                }
+
+                // The global limit applies to everyone, so just wait for it
+                long globalWait;
+                while ((globalWait = globalBucket.nanosUntilAvailable(1)) > 0) {
+                    TimeUnit.NANOSECONDS.sleep(globalWait);
+                }
+                globalBucket.tryAcquire();
+                lane.bucket.tryAcquire();
+
+                synchronized (lane) {
+                    mergeWaiting(lane, out);
+                }
+                dispatch(lane, out);
+
+                // Forget chats that have been quiet (nothing queued, and a full bucket = no recent messages)
+                if (System.nanoTime() - lastCleanup > TimeUnit.MINUTES.toNanos(1)) {
+                    lanes.values().removeIf(this::removeIfIdle);
+                    lastCleanup = System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Outbound sender failed", e);
+            }
+        }
+    }
+
+    private void dispatch(ChatLane lane, Outgoing out) {
+        out.attempts++;
+        if (out.attempts == 1) recordWait(out);
+
+        try {
+            telegram.executeAsync(out.message).whenComplete((result, error) -> {
+                if (error == null) {
+                    sent.addAndGet(out.count);
+                    queued.addAndGet(-out.count);
+                    next(lane);
+                } else {
+                    onFailure(lane, out, error instanceof CompletionException ? error.getCause() : error);
+                }
+            });
+        } catch (TelegramApiException e) {
+            // Thrown when the message itself is invalid (e.g. empty text), retrying won't help
+            failed.addAndGet(out.count);
+            queued.addAndGet(-out.count);
+            log.warn("Invalid message for chat {}: {}", out.chatId, e.getMessage());
+            next(lane);
+        }
+    }
+
+    private void onFailure(ChatLane lane, Outgoing out, Throwable error) {
+        // 429 Too Many Requests: Telegram tells us how many seconds to wait
+        if (error instanceof TelegramApiRequestException apiError
+                && Integer.valueOf(429).equals(apiError.getErrorCode())
+                && apiError.getParameters() != null
+                && apiError.getParameters().getRetryAfter() != null) {
+            retried.incrementAndGet();
+            out.attempts--; // being throttled is not the message's fault
+            retry(lane, TimeUnit.SECONDS.toNanos(apiError.getParameters().getRetryAfter()));
+            return;
+        }
+
+        // Other errors (network blip...): a few more tries with a small backoff
+        if (out.attempts < MAX_ATTEMPTS) {
+            retried.incrementAndGet();
+            retry(lane, TimeUnit.SECONDS.toNanos(out.attempts));
+            return;
+        }
+
+        failed.addAndGet(out.count);
+        queued.addAndGet(-out.count);
+        log.warn("Could not send message to chat {}: {}", out.chatId, error.getMessage());
+        next(lane);
+    }
+
+    // Appends the texts waiting right behind "out" to it, in order, while they fit and can be merged.
+    // Not after a failed try: Telegram may already show the first text (429s don't count as tries).
+    // Must be called with the lane's lock held.
+    private void mergeWaiting(ChatLane lane, Outgoing out) {
+        if (out.attempts > 0) return;
+        Iterator<Outgoing> waiting = lane.messages.iterator();
+        waiting.next(); // "out" itself
+        while (waiting.hasNext()) {
+            Outgoing later = waiting.next();
+            if (!canMerge(out.message, later.message)) return;
+            out.message.setText(out.message.getText() + MERGE_SEPARATOR + later.message.getText());
+            out.count++;
+            recordWait(later);
+            merged.incrementAndGet();
+            waiting.remove();
+        }
+    }
+
+    // Only plain texts with the same formatting: a keyboard, a reply or entities belong to one message
+    private static boolean canMerge(SendMessage first, SendMessage next) {
+        return first.getReplyMarkup() == null && next.getReplyMarkup() == null
+                && first.getReplyToMessageId() == null && next.getReplyToMessageId() == null
+                && first.getReplyParameters() == null && next.getReplyParameters() == null
+                && first.getEntities() == null && next.getEntities() == null
+                && Objects.equals(first.getParseMode(), next.getParseMode())
+                && Objects.equals(first.getMessageThreadId(), next.getMessageThreadId())
+                && first.getText().length() + MERGE_SEPARATOR.length() + next.getText().length() <= MAX_TEXT_LENGTH;
+    }
+
+    // Time from send() until the message was handed to Telegram
+    private void recordWait(Outgoing out) {
+        long waited = System.nanoTime() - out.enqueuedAt;
+        totalQueueNanos.addAndGet(waited);
+        maxQueueNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    // The first message is done (sent or given up): the chat's next one may go
+    private void next(ChatLane lane) {
+        synchronized (lane) {
+            lane.messages.pollFirst();
+            if (lane.messages.isEmpty()) {
+                lane.busy = false;
+            } else {
+                schedule(lane, 0);
+            }
+        }
+    }
+
+    // Same first message again later; the chat's other messages keep waiting behind it
+    private void retry(ChatLane lane, long delayNanos) {
+        synchronized (lane) {
+            schedule(lane, delayNanos);
+        }
+    }
+
+    // Must be called with the lane's lock held
+    private void schedule(ChatLane lane, long delayNanos) {
+        lane.busy = true;
+        lane.readyAt = System.nanoTime() + delayNanos;
+        queue.add(lane);
+    }
+
+    private boolean removeIfIdle(ChatLane lane) {
+        synchronized (lane) {
+            if (lane.busy || !lane.bucket.isFull()) return false;
+            lane.removed = true;
+            return true;
+        }
+    }
+}
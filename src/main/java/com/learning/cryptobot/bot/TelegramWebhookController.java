@@ -0,0 +1,73 @@
+package com.learning.cryptobot.bot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * TelegramWebhookController
+ * In webhook mode (bot.mode=webhook) Telegram POSTs every update here, instead of the bot
+ * asking for them with getUpdates. No polling round trip, and any number of nodes can sit
+ * behind one load balancer: a node that gets another node's chat forwards it (cluster mode).
+ *
+ * The update is parsed straight from the request stream, handed to the dispatcher and
+ * answered with 200 right away, before the command runs. Telegram only waits for that answer.
+ */
+@RestController
+@ConditionalOnProperty(name = "bot.mode", havingValue = "webhook")
+public class TelegramWebhookController {
+
+    // Telegram sends the secret_token given to setWebhook in this header
+    public static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final CryptoBot cryptoBot;
+    private final byte[] secret;
+    // Built once: reading with it skips the per-request type lookup
+    private final ObjectReader updateReader;
+
+    public TelegramWebhookController(CryptoBot cryptoBot, ObjectMapper objectMapper,
+                                     @Value("${bot.webhook.secret:}") String secret) {
+        this.cryptoBot = cryptoBot;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.updateReader = objectMapper.readerFor(Update.class);
+    }
+
+    @PostMapping("${bot.webhook.path:/telegram/webhook}")
+    public void receive(@RequestHeader(value = SECRET_HEADER, required = false) String token,
+                        HttpServletRequest request) throws IOException {
+        checkSecret(token);
+
+        Update update;
+        try (InputStream body = request.getInputStream()) {
+            update = updateReader.readValue(body);
+        } catch (IOException e) {
+            // Not an update: a 4xx tells Telegram not to send it again
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a Telegram update");
+        }
+
+        // Queues the work (or forwards it to the owning node) and returns:
+        // only blocks when the dispatcher is full, which slows Telegram down instead of dropping updates
+        cryptoBot.onUpdateReceived(update);
+    }
+
+    private void checkSecret(String token) {
+        if (secret.length == 0) return;
+        // Constant time compare, like the cluster secret
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), secret)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.learning.cryptobot.bot;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UpdateDispatcher
+ * Runs bot work on a pool of worker threads instead of the Telegram polling thread,
+ * so one slow Binance call doesn't freeze every other chat.
+ *
+ * Rules:
+ * - Messages of the SAME chat run one after another, in the order they arrived
+ *   (so "buy" then "sell" can never swap).
+ * - Different chats run in parallel.
+ * - If too much work is waiting, submit() blocks the caller (backpressure)
+ *   instead of piling up memory forever.
+ */
+@Component
+public class UpdateDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+    // Waiting work of one chat. Only touched inside chats.compute(), which locks that chat's entry.
+    private static final class ChatQueue {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    }
+
+    // A worker runs at most this many tasks of one chat before giving other chats a turn
+    private static final int MAX_TASKS_PER_TURN = 16;
+
+    private final Map<Long, ChatQueue> chats = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final Semaphore capacity;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public UpdateDispatcher(@Value("${bot.dispatcher.threads:16}") int threads,
+                            @Value("${bot.dispatcher.max-pending:10000}") int maxPending) {
+        this.maxPending = maxPending;
+        this.capacity = new Semaphore(maxPending);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bot-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Queues work for a chat. Blocks while the dispatcher is full.
+    public void submit(long chatId, Runnable task) {
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        pending.incrementAndGet();
+
+        // If this chat had no queue yet, nobody is draining it: we must start a drain
+        boolean[] startDrain = new boolean[1];
+        chats.compute(chatId, (id, queue) -> {
+            if (queue == null) {
+                queue = new ChatQueue();
+                startDrain[0] = true;
+            }
+            queue.tasks.add(task);
+            return queue;
+        });
+        if (startDrain[0]) workers.execute(() -> drain(chatId));
+    }
+
+    // Number of updates accepted but not finished yet
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    // Number of chats that currently have work waiting or running
+    public int getActiveChats() {
+        return chats.size();
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    // Runs the chat's tasks in order. The chat's queue stays in the map while we work,
+    // which tells submit() that a drain is already running.
+    private void drain(long chatId) {
+        for (int i = 0; i < MAX_TASKS_PER_TURN; i++) {
+            Runnable task = next(chatId);
+            if (task == null) return; // queue was empty and has been removed
+
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // Errors too (StackOverflowError ...): leaving drain() here would strand the
+                // chat's queue in the map, and no later update of that chat would ever run
+                log.error("Update of chat {} failed", chatId, e);
+            } finally {
+                pending.decrementAndGet();
+                capacity.release();
+            }
+        }
+        // Still busy: go to the back of the line so other chats get a worker too
+        workers.execute(() -> drain(chatId));
+    }
+
+    // Takes the next task, or removes the (empty) queue and returns null
+    private Runnable next(long chatId) {
+        Runnable[] next = new Runnable[1];
+        chats.computeIfPresent(chatId, (id, queue) -> {
+            next[0] = queue.tasks.poll();
+            return next[0] == null ? null : queue;
+        });
+        return next[0];
+    }
+}
@@ -0,0 +1,99 @@
+package com.learning.cryptobot.cluster;
+
+import com.learning.cryptobot.bot.CryptoBot;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.service.LeaderboardService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ClusterController
+ * Endpoints the nodes call on each other (see PeerClient). Not for browsers:
+ * every call must carry the shared cluster secret.
+ */
+@RestController
+@RequestMapping("/internal/cluster")
+public class ClusterController {
+
+    // Enough to cover every update a peer could re-send after a timeout
+    private static final int RECENT_UPDATES = 10_000;
+
+    private final ClusterTopology topology;
+    private final CryptoBot cryptoBot;
+    private final PeerTickRelay tickRelay;
+    private final LeaderboardService leaderboardService;
+
+    // Ids of the last forwarded updates, oldest dropped first
+    private final Set<Integer> recentUpdates = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+            return size() > RECENT_UPDATES;
+        }
+    });
+
+    public ClusterController(ClusterTopology topology, CryptoBot cryptoBot, PeerTickRelay tickRelay,
+                             LeaderboardService leaderboardService) {
+        this.topology = topology;
+        this.cryptoBot = cryptoBot;
+        this.tickRelay = tickRelay;
+        this.leaderboardService = leaderboardService;
+    }
+
+    // Telegram updates of chats this node owns, received by the polling node
+    @PostMapping("/updates")
+    public void updates(@RequestHeader(value = PeerClient.SECRET_HEADER, required = false) String secret,
+                        @RequestBody List<Update> updates) {
+        checkSecret(secret);
+        for (Update update : updates) {
+            // A batch is sent again when its answer timed out: don't run the same command twice
+            if (firstDelivery(update.getUpdateId())) cryptoBot.dispatchLocal(update);
+        }
+    }
+
+    @PostMapping("/ticks")
+    public void ticks(@RequestHeader(value = PeerClient.SECRET_HEADER, required = false) String secret,
+                      @RequestBody List<BinanceTickerDto> tickers) {
+        checkSecret(secret);
+        tickRelay.receive(tickers);
+    }
+
+    // This node's part of the leaderboard
+    @GetMapping("/leaderboard")
+    public LeaderboardService.Board leaderboard(@RequestHeader(value = PeerClient.SECRET_HEADER, required = false) String secret,
+                                                @RequestParam int n) {
+        checkSecret(secret);
+        return new LeaderboardService.Board(leaderboardService.top(n), leaderboardService.stats());
+    }
+
+    private boolean firstDelivery(Integer updateId) {
+        if (updateId == null) return true;
+        synchronized (recentUpdates) {
+            return recentUpdates.add(updateId);
+        }
+    }
+
+    private void checkSecret(String secret) {
+        if (!topology.isEnabled()) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        // Constant time compare, so the secret can't be guessed byte by byte from response times
+        if (secret == null || !MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                topology.getSecret().getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.learning.cryptobot.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClusterTopology
+ * Who is in the cluster and which node owns which user.
+ *
+ * - Every node gets the same list of node URLs (cluster.nodes) and its own index in it (cluster.node-id).
+ * - A user belongs to exactly one node, picked from a hash of the chatId. Only that node
+ *   keeps the user's ledger, orders and alerts, so their trades can never run on two nodes at once.
+ * - With cluster.enabled=false there is one node and it owns everybody (the normal single JVM app).
+ */
+@Component
+public class ClusterTopology {
+
+    private final boolean enabled;
+    private final int nodeId;
+    private final List<String> nodes;
+    private final String secret;
+
+    public ClusterTopology(@Value("${cluster.enabled:false}") boolean enabled,
+                           @Value("${cluster.node-id:0}") int nodeId,
+                           @Value("${cluster.nodes:}") String nodes,
+                           @Value("${cluster.secret:}") String secret) {
+        this.nodes = Arrays.stream(nodes.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .map(url -> url.endsWith("/") ? url.substring(0, url.length() - 1) : url).toList();
+        this.enabled = enabled && this.nodes.size() > 1;
+        this.nodeId = nodeId;
+        this.secret = secret;
+        if (this.enabled && (nodeId < 0 || nodeId >= this.nodes.size())) {
+            throw new IllegalArgumentException("cluster.node-id " + nodeId + " is not in cluster.nodes " + this.nodes);
+        }
+        if (this.enabled && secret.isBlank()) {
+            throw new IllegalArgumentException("cluster.secret is required in cluster mode");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getNodeId() {
+        return enabled ? nodeId : 0;
+    }
+
+    public int getNodeCount() {
+        return enabled ? nodes.size() : 1;
+    }
+
+    // Node that keeps this user's ledger
+    public int ownerOf(long chatId) {
+        return enabled ? partition(chatId, nodes.size()) : 0;
+    }
+
+    public boolean isLocal(long chatId) {
+        return ownerOf(chatId) == getNodeId();
+    }
+
+    // Base URL of a node, e.g. "http://localhost:8081"
+    public String urlOf(int node) {
+        return nodes.get(node);
+    }
+
+    // Every other node: id -> base URL
+    public Map<Integer, String> peers() {
+        Map<Integer, String> peers = new LinkedHashMap<>();
+        if (!enabled) return peers;
+        for (int i = 0; i < nodes.size(); i++) {
+            if (i != nodeId) peers.put(i, nodes.get(i));
+        }
+        return peers;
+    }
+
+    // Shared by all nodes, sent with every node-to-node call
+    public String getSecret() {
+        return secret;
+    }
+
+    // Same bit spreading as the ledger's lock stripes, so consecutive ids don't pile up on one node
+    static int partition(long chatId, int count) {
+        long h = chatId * 0x9E3779B97F4A7C15L;
+        return (int) ((h >>> 32) % count);
+    }
+}
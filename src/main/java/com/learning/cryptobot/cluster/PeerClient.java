@@ -0,0 +1,159 @@
+package com.learning.cryptobot.cluster;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * PeerClient
+ * Node-to-node HTTP calls (the other side is ClusterController).
+ *
+ * Telegram updates for users owned by another node go into that node's outbox.
+ * One thread per peer sends its outbox in batches, in arrival order, so a chat's
+ * messages can't overtake each other on the way and the polling thread never waits for a peer.
+ * If the peer is down, the batch is sent again (waiting longer each time) until it gets through;
+ * newer updates wait in the outbox behind it. Only updates that don't fit in a full outbox are lost.
+ */
+@Component
+public class PeerClient {
+
+    private static final Logger log = LoggerFactory.getLogger(PeerClient.class);
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    // Updates sent to a peer in one request at most
+    private static final int MAX_BATCH = 100;
+    // Longest wait between two tries of a peer that is down
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    private final ClusterTopology topology;
+    private final RestTemplate restTemplate;
+    private final int outboxSize;
+    private final long retryMillis;
+    private final Map<Integer, BlockingQueue<Update>> outboxes = new ConcurrentHashMap<>();
+    private final List<Thread> senders = new ArrayList<>();
+
+    private final Counter forwarded;
+    private final Counter retried;
+    private final Counter lost;
+
+    public PeerClient(ClusterTopology topology,
+                      @Value("${cluster.http.timeout-ms:2000}") long timeoutMs,
+                      @Value("${cluster.forward.queue-size:10000}") int outboxSize,
+                      @Value("${cluster.forward.retry-ms:500}") long retryMillis,
+                      MeterRegistry meterRegistry) {
+        this.topology = topology;
+        this.outboxSize = outboxSize;
+        this.retryMillis = retryMillis;
+
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(timeoutMs)).build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        this.restTemplate = new RestTemplate(factory);
+
+        this.forwarded = meterRegistry.counter("cluster.updates.forwarded", "result", "sent");
+        this.retried = meterRegistry.counter("cluster.updates.forwarded", "result", "retried");
+        this.lost = meterRegistry.counter("cluster.updates.forwarded", "result", "lost");
+    }
+
+    @PostConstruct
+    public void start() {
+        topology.peers().forEach((node, url) -> {
+            BlockingQueue<Update> outbox = new LinkedBlockingQueue<>(outboxSize);
+            outboxes.put(node, outbox);
+            Thread sender = new Thread(() -> sendLoop(node, outbox), "cluster-forward-" + node);
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.forEach(Thread::interrupt);
+    }
+
+    // Hands a Telegram update to the node that owns the chat (never blocks)
+    public void forwardUpdate(int node, Update update) {
+        BlockingQueue<Update> outbox = outboxes.get(node);
+        if (outbox == null || !outbox.offer(update)) {
+            lost.increment();
+            log.warn("Cluster: could not queue update for node {}", node);
+        }
+    }
+
+    // Prices this node just fetched, so the peer doesn't have to ask Binance again
+    public void sendTicks(int node, Collection<BinanceTickerDto> tickers) {
+        post(node, "/internal/cluster/ticks", tickers);
+    }
+
+    public <T> T get(int node, String path, Class<T> responseType) {
+        return restTemplate.exchange(topology.urlOf(node) + path, HttpMethod.GET,
+                new HttpEntity<>(headers()), responseType).getBody();
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void sendLoop(int node, BlockingQueue<Update> outbox) {
+        List<Update> batch = new ArrayList<>(MAX_BATCH);
+        long wait = retryMillis;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // A batch that failed goes again as it is, before anything newer (keeps each chat in order)
+                if (batch.isEmpty()) {
+                    batch.add(outbox.take());
+                    outbox.drainTo(batch, MAX_BATCH - 1);
+                }
+                post(node, "/internal/cluster/updates", batch);
+                forwarded.increment(batch.size());
+                batch.clear();
+                wait = retryMillis;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // The owner is down or slow: keep the batch and try again later, waiting longer each time.
+                // If it did arrive (timeout on the answer), ClusterController skips the copies.
+                retried.increment(batch.size());
+                log.warn("Cluster: node {} unreachable, retrying {} updates in {} ms: {}", node, batch.size(), wait, e.getMessage());
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                wait = Math.min(wait * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private void post(int node, String path, Object body) {
+        restTemplate.postForLocation(topology.urlOf(node) + path, new HttpEntity<>(body, headers()));
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(SECRET_HEADER, topology.getSecret());
+        return headers;
+    }
+}
@@ -0,0 +1,91 @@
+package com.learning.cryptobot.cluster;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.service.MarketTickBus;
+import com.learning.cryptobot.service.PriceTickListener;
+import com.learning.cryptobot.service.TickerCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PeerTickRelay
+ * Replicates prices between nodes, so N nodes don't ask Binance N times for the same
+ * symbol (all nodes on one machine share ONE Binance weight limit per IP).
+ *
+ * Every ticker this node fetches is buffered (latest per symbol) and sent to all peers
+ * a few times per second. A peer puts it in its TickerCache and on its MarketTickBus,
+ * so its orders / alerts / live pages react as if it had fetched the price itself.
+ */
+@Component
+public class PeerTickRelay implements PriceTickListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PeerTickRelay.class);
+
+    // Set while we publish prices received from a peer, so we don't send them back
+    private static final ThreadLocal<Boolean> RECEIVING = ThreadLocal.withInitial(() -> false);
+
+    private final ClusterTopology topology;
+    private final PeerClient peerClient;
+    private final TickerCache tickerCache;
+    private final MarketTickBus tickBus;
+
+    // "BTCUSDT" -> newest ticker not sent yet
+    private final Map<String, BinanceTickerDto> pending = new ConcurrentHashMap<>();
+
+    public PeerTickRelay(ClusterTopology topology, PeerClient peerClient, TickerCache tickerCache, MarketTickBus tickBus) {
+        this.topology = topology;
+        this.peerClient = peerClient;
+        this.tickerCache = tickerCache;
+        this.tickBus = tickBus;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (topology.isEnabled()) tickBus.register(this);
+    }
+
+    @Override
+    public void onTick(BinanceTickerDto ticker) {
+        if (!RECEIVING.get()) pending.put(ticker.getSymbol(), ticker);
+    }
+
+    // Prices sent by a peer
+    public void receive(List<BinanceTickerDto> tickers) {
+        RECEIVING.set(true);
+        try {
+            for (BinanceTickerDto ticker : tickers) {
+                tickerCache.put(ticker.getSymbol(), ticker);
+                tickBus.publish(ticker);
+            }
+        } finally {
+            RECEIVING.set(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.tick-relay-ms:200}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<BinanceTickerDto> batch = new ArrayList<>(pending.size());
+        for (String symbol : List.copyOf(pending.keySet())) {
+            BinanceTickerDto ticker = pending.remove(symbol);
+            if (ticker != null) batch.add(ticker);
+        }
+        topology.peers().keySet().forEach(node -> {
+            try {
+                peerClient.sendTicks(node, batch);
+            } catch (Exception e) {
+                // The peer will fetch these itself, nothing else to do
+                log.warn("Cluster: could not relay prices to node {}: {}", node, e.getMessage());
+            }
+        });
+    }
+}
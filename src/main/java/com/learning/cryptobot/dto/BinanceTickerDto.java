@@ -13,4 +13,21 @@ public class BinanceTickerDto {
     private String priceChangePercent;
     private BigDecimal weightedAvgPrice;
     private BigDecimal volume;
+
+    // true = Binance couldn't be reached, this is the last price we knew (not from Binance's JSON)
+    private boolean stale;
+
+    // Same ticker flagged as stale. A copy, because cached tickers are shared between threads.
+    public BinanceTickerDto asStale() {
+        BinanceTickerDto copy = new BinanceTickerDto();
+        copy.setSymbol(symbol);
+        copy.setLastPrice(lastPrice);
+        copy.setHighPrice(highPrice);
+        copy.setLowPrice(lowPrice);
+        copy.setPriceChangePercent(priceChangePercent);
+        copy.setWeightedAvgPrice(weightedAvgPrice);
+        copy.setVolume(volume);
+        copy.setStale(true);
+        return copy;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.learning.cryptobot.dto;
+
+/**
+ * A market on Binance, e.g. symbol "ETHBTC" = baseAsset "ETH" priced in quoteAsset "BTC".
+ */
+public record TradingPair(String symbol, String baseAsset, String quoteAsset) {
+}
@@ -7,7 +7,8 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "Asset") // The name of the table in H2 Database
+// One row per (user, coin): the unique index is both the lookup path and the guard against duplicates
+@Table(name = "asset", uniqueConstraints = @UniqueConstraint(name = "uk_asset_chat_symbol", columnNames = {"chat_id", "symbol"}))
 @NoArgsConstructor
 @Data
 public class Asset {
@@ -18,13 +19,15 @@ public class Asset {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(nullable = false)
     private Long chatId;
 
-    private String symbol; // e.g., "BTC", "ETH"
+    @Column(nullable = false)
+    private String symbol; // e.g., "BTCUSDT", "ETHUSDT"
 
     // precision = 18 (total digits), scale = 8 (digits after decimal)
     // Example: 123456.99456789 fits.
-    @Column(precision = 18, scale = 8)
+    @Column(precision = 18, scale = 8, nullable = false)
     private BigDecimal quantity;
 
     // Custom constructor to make creating new assets easy in your Service layer
@@ -0,0 +1,59 @@
+package com.learning.cryptobot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A resting order waiting for the price to reach triggerPrice.
+ * The row is deleted once it fills or is cancelled (the fill itself is in the trade journal).
+ */
+@Entity
+@Table(name = "open_order", indexes = @Index(name = "idx_open_order_chat", columnList = "chatId"))
+@NoArgsConstructor
+@Data
+public class OpenOrder {
+
+    public enum Side { BUY, SELL }
+
+    // LIMIT = buy cheaper / sell higher, STOP = stop-loss sell, TAKE_PROFIT = sell when price is high enough
+    public enum Type { LIMIT, STOP, TAKE_PROFIT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long chatId;
+
+    private String userName;
+
+    private String symbol; // e.g. "BTCUSDT"
+
+    @Enumerated(EnumType.STRING)
+    private Side side;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    @Column(precision = 18, scale = 8)
+    private BigDecimal quantity;
+
+    @Column(precision = 24, scale = 8)
+    private BigDecimal triggerPrice;
+
+    private Long createdAt;
+
+    public OpenOrder(Long chatId, String userName, String symbol, Side side, Type type,
+                     BigDecimal quantity, BigDecimal triggerPrice) {
+        this.chatId = chatId;
+        this.userName = userName;
+        this.symbol = symbol;
+        this.side = side;
+        this.type = type;
+        this.quantity = quantity;
+        this.triggerPrice = triggerPrice;
+        this.createdAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,44 @@
+package com.learning.cryptobot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * "Tell me when BTC goes above 70000". Fires once, then the row is deleted.
+ */
+@Entity
+@Table(name = "price_alert", indexes = @Index(name = "idx_price_alert_chat", columnList = "chatId"))
+@NoArgsConstructor
+@Data
+public class PriceAlert {
+
+    public enum Condition { ABOVE, BELOW }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long chatId;
+
+    private String symbol; // e.g. "BTCUSDT"
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "alert_condition") // "condition" is a reserved word in some databases
+    private Condition condition;
+
+    @Column(precision = 24, scale = 8)
+    private BigDecimal threshold;
+
+    private Long createdAt;
+
+    public PriceAlert(Long chatId, String symbol, Condition condition, BigDecimal threshold) {
+        this.chatId = chatId;
+        this.symbol = symbol;
+        this.condition = condition;
+        this.threshold = threshold;
+        this.createdAt = System.currentTimeMillis();
+    }
+}
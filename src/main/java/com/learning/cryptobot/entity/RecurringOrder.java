@@ -0,0 +1,72 @@
+package com.learning.cryptobot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * "Every day buy $10 of BTC" (dollar cost averaging).
+ * The row never changes while it lives: run n happens at startAt + n * frequency,
+ * so nothing has to be written after each run (the buys themselves are in the trade journal).
+ */
+@Entity
+@Table(name = "recurring_order", indexes = @Index(name = "idx_recurring_order_chat", columnList = "chatId"))
+@NoArgsConstructor
+@Data
+public class RecurringOrder {
+
+    public enum Frequency {
+        HOURLY(3_600_000L), DAILY(86_400_000L), WEEKLY(604_800_000L);
+
+        private final long millis;
+
+        Frequency(long millis) {
+            this.millis = millis;
+        }
+
+        public long millis() {
+            return millis;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long chatId;
+
+    private String userName;
+
+    private String symbol; // e.g. "BTCUSDT"
+
+    // Dollars spent per run
+    @Column(precision = 18, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    private Frequency frequency;
+
+    // Time of the first run (epoch ms)
+    private Long startAt;
+
+    private Long createdAt;
+
+    public RecurringOrder(Long chatId, String userName, String symbol, BigDecimal amount, Frequency frequency, long startAt) {
+        this.chatId = chatId;
+        this.userName = userName;
+        this.symbol = symbol;
+        this.amount = amount;
+        this.frequency = frequency;
+        this.startAt = startAt;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    // First run time after "now" (the runs missed while the bot was down are skipped, not caught up)
+    public long nextRunAfter(long now) {
+        if (now < startAt) return startAt;
+        long period = frequency.millis();
+        return startAt + ((now - startAt) / period + 1) * period;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -11,7 +12,7 @@ import java.math.BigDecimal;
 
 @Entity
 @Data
-@Table(name = "Assets") // **Note**: Sets the table name in DB to "Assets".
+@Table(name = "users") // "user" is a reserved word in H2. Was called "Assets" before migration V3.
 @NoArgsConstructor
 public class User {
 
@@ -25,4 +26,14 @@ public class User {
     @Column(precision = 18, scale = 2)
     private BigDecimal balance;
 
+    // Last trade journal entry already included in this row (used to replay after a crash)
+    @Column(nullable = false)
+    private Long ledgerSeq = 0L;
+
+    // Optimistic locking: bumped on every write, so a writer holding an old copy of the
+    // balance fails instead of silently overwriting a newer one
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.learning.cryptobot.metrics;
+
+import com.learning.cryptobot.bot.OutboundMessageSender;
+import com.learning.cryptobot.bot.UpdateDispatcher;
+import com.learning.cryptobot.service.AlertEngine;
+import com.learning.cryptobot.service.LeaderboardService;
+import com.learning.cryptobot.service.LedgerService;
+import com.learning.cryptobot.service.LivePriceTable;
+import com.learning.cryptobot.service.LiveUpdateHub;
+import com.learning.cryptobot.service.OrderEngine;
+import com.learning.cryptobot.service.RecurringOrderEngine;
+import com.learning.cryptobot.service.TickerCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MetricsConfig
+ * Queue depths, cache and engine sizes as Micrometer gauges / counters.
+ * They are read when /actuator/prometheus is scraped, nothing is computed on the hot path.
+ * (Timers live next to the code they measure: CryptoBot, BinancePriceService, TradingService, LedgerService.)
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Lets StatementCounter see every SQL statement Hibernate runs
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    @Bean
+    public MeterBinder botQueueMetrics(UpdateDispatcher dispatcher, OutboundMessageSender sender) {
+        return registry -> {
+            Gauge.builder("bot.dispatcher.queue", dispatcher, UpdateDispatcher::getQueueDepth)
+                    .description("Bot messages accepted but not handled yet").register(registry);
+            Gauge.builder("bot.dispatcher.active.chats", dispatcher, UpdateDispatcher::getActiveChats).register(registry);
+            Gauge.builder("bot.sender.queue", sender, OutboundMessageSender::getQueueDepth)
+                    .description("Replies waiting to be sent to Telegram").register(registry);
+            Gauge.builder("bot.sender.queue.wait.max", sender, OutboundMessageSender::getMaxQueueMillis)
+                    .baseUnit("milliseconds").register(registry);
+            FunctionCounter.builder("bot.sender.messages", sender, OutboundMessageSender::getSent).tag("result", "sent").register(registry);
+            FunctionCounter.builder("bot.sender.messages", sender, OutboundMessageSender::getDropped).tag("result", "dropped").register(registry);
+            FunctionCounter.builder("bot.sender.messages", sender, OutboundMessageSender::getFailed).tag("result", "failed").register(registry);
+            FunctionCounter.builder("bot.sender.messages", sender, OutboundMessageSender::getRetried).tag("result", "retried").register(registry);
+            FunctionCounter.builder("bot.sender.merged", sender, OutboundMessageSender::getMerged)
+                    .description("Replies sent as part of an earlier message of the same chat").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder priceMetrics(TickerCache cache, LivePriceTable livePrices, LiveUpdateHub liveUpdateHub) {
+        return registry -> {
+            FunctionCounter.builder("ticker.cache.requests", cache, TickerCache::getHits).tag("result", "hit").register(registry);
+            FunctionCounter.builder("ticker.cache.requests", cache, TickerCache::getMisses).tag("result", "miss").register(registry);
+            FunctionCounter.builder("ticker.cache.requests", cache, TickerCache::getCoalesced).tag("result", "coalesced").register(registry);
+            FunctionCounter.builder("ticker.cache.evictions", cache, TickerCache::getEvictions).register(registry);
+            Gauge.builder("ticker.cache.size", cache, TickerCache::size).register(registry);
+            Gauge.builder("prices.live.size", livePrices, LivePriceTable::size).register(registry);
+            Gauge.builder("sse.subscribers", liveUpdateHub, LiveUpdateHub::getSubscriberCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder tradingMetrics(LedgerService ledger, OrderEngine orders, AlertEngine alerts,
+                                     RecurringOrderEngine recurring, LeaderboardService leaderboard) {
+        return registry -> {
+            Gauge.builder("ledger.dirty.accounts", ledger, LedgerService::getDirtyCount)
+                    .description("Accounts changed in memory but not saved to the DB yet").register(registry);
+            Gauge.builder("ledger.accounts", ledger, LedgerService::getCachedAccounts).register(registry);
+            Gauge.builder("orders.open", orders, OrderEngine::getOpenOrderCount).register(registry);
+            Gauge.builder("alerts.active", alerts, AlertEngine::getActiveAlertCount).register(registry);
+            Gauge.builder("recurring.orders", recurring, RecurringOrderEngine::getScheduleCount).register(registry);
+            Gauge.builder("leaderboard.accounts", leaderboard, LeaderboardService::getRankedAccounts).register(registry);
+        };
+    }
+}
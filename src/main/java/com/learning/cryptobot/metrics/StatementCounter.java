@@ -0,0 +1,44 @@
+package com.learning.cryptobot.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * StatementCounter
+ * Hibernate shows us every SQL statement before it runs, we just count them
+ * (plain JdbcTemplate code reports its statements through record()):
+ * - db.statements: total for the whole app,
+ * - a per-thread count, so code can ask "how many queries did THIS trade / flush cost?"
+ */
+@Component
+public class StatementCounter implements StatementInspector {
+
+    private final Counter statements;
+    private final ThreadLocal<long[]> perThread = ThreadLocal.withInitial(() -> new long[1]);
+
+    public StatementCounter(MeterRegistry meterRegistry) {
+        this.statements = Counter.builder("db.statements")
+                .description("SQL statements sent to the database")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        statements.increment();
+        perThread.get()[0]++;
+        return sql; // unchanged
+    }
+
+    // For SQL that doesn't go through Hibernate (e.g. JDBC batches in LedgerStore)
+    public void record(long count) {
+        statements.increment(count);
+        perThread.get()[0] += count;
+    }
+
+    // Statements run by the current thread so far. Take the difference of two calls.
+    public long currentThread() {
+        return perThread.get()[0];
+    }
+}
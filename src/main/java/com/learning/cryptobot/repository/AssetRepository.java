@@ -3,6 +3,7 @@ package com.learning.cryptobot.repository;
 import com.learning.cryptobot.entity.Asset;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,5 +11,6 @@ public interface AssetRepository extends JpaRepository<Asset, Long> {
     // Returns Optional<> because the user might NOT have this asset yet.
     Optional<Asset> findByChatIdAndSymbol(Long chatId, String symbol);
     List<Asset> findByChatId(Long chatId);
+    List<Asset> findByChatIdIn(Collection<Long> chatIds);
 
 }
\ No newline at end of file
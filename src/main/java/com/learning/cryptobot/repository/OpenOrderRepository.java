@@ -0,0 +1,10 @@
+package com.learning.cryptobot.repository;
+
+import com.learning.cryptobot.entity.OpenOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface OpenOrderRepository extends JpaRepository<OpenOrder, Long> {
+    List<OpenOrder> findByChatId(Long chatId);
+}
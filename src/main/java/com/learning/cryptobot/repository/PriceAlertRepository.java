@@ -0,0 +1,10 @@
+package com.learning.cryptobot.repository;
+
+import com.learning.cryptobot.entity.PriceAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PriceAlertRepository extends JpaRepository<PriceAlert, Long> {
+    List<PriceAlert> findByChatId(Long chatId);
+}
@@ -0,0 +1,10 @@
+package com.learning.cryptobot.repository;
+
+import com.learning.cryptobot.entity.RecurringOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface RecurringOrderRepository extends JpaRepository<RecurringOrder, Long> {
+    List<RecurringOrder> findByChatId(Long chatId);
+}
@@ -2,7 +2,12 @@ package com.learning.cryptobot.repository;
 
 import com.learning.cryptobot.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-    // No extra code needed! Standard CRUD (Create, Read, Update, Delete) is built-in.
+    // Standard CRUD (Create, Read, Update, Delete) is built-in.
+
+    // Highest journal sequence saved so far, so new trades continue after it
+    @Query("select coalesce(max(u.ledgerSeq), 0) from User u")
+    long findMaxLedgerSeq();
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.learning.cryptobot.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AccountSnapshotFile
+ * Periodic copy of every ledger account (balance + coins) on disk.
+ * On startup we load this file and replay only the journal entries written after it,
+ * so recovery never has to read every user out of H2.
+ * Amounts are FixedPoint longs.
+ */
+@Component
+public class AccountSnapshotFile {
+
+    private static final int MAGIC = 0x4C454432; // "LED2"
+
+    // One account + the last journal seq the DB is known to contain for it
+    // + the orders it filled whose open_order rows aren't deleted yet
+    public record Stored(LedgerSnapshot account, long persistedSeq, List<Long> filledOrders) {}
+
+    // Everything in the file. seq = every journal entry up to here is included.
+    public record Contents(long seq, List<Stored> accounts) {}
+
+    private final Path file;
+
+    public AccountSnapshotFile(@Value("${ledger.journal.dir:./data/ledger}") String directory) {
+        this.file = Path.of(directory).resolve("accounts.snapshot");
+    }
+
+    // Written to a temp file first and then renamed, so a crash never leaves half a snapshot
+    public void write(long seq, List<Stored> accounts) {
+        Path temp = file.resolveSibling("accounts.snapshot.tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeLong(seq);
+                out.writeInt(accounts.size());
+                for (Stored stored : accounts) {
+                    LedgerSnapshot a = stored.account();
+                    out.writeLong(a.chatId());
+                    out.writeUTF(a.name() == null ? "" : a.name());
+                    out.writeLong(a.balance());
+                    out.writeLong(a.lastSeq());
+                    out.writeLong(stored.persistedSeq());
+                    out.writeInt(a.holdings().size());
+                    for (Map.Entry<String, Long> h : a.holdings().entrySet()) {
+                        out.writeUTF(h.getKey());
+                        out.writeLong(h.getValue());
+                    }
+                    out.writeInt(stored.filledOrders().size());
+                    for (long orderId : stored.filledOrders()) out.writeLong(orderId);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write ledger snapshot", e);
+        }
+    }
+
+    // Returns null if no snapshot was taken yet
+    public Contents read() {
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a ledger snapshot");
+            long seq = in.readLong();
+            int count = in.readInt();
+            List<Stored> accounts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long chatId = in.readLong();
+                String name = in.readUTF();
+                long balance = in.readLong();
+                long lastSeq = in.readLong();
+                long persistedSeq = in.readLong();
+                int holdingCount = in.readInt();
+                Map<String, Long> holdings = new HashMap<>(holdingCount * 2);
+                for (int h = 0; h < holdingCount; h++) {
+                    String symbol = in.readUTF();
+                    holdings.put(symbol, in.readLong());
+                }
+                int orderCount = in.readInt();
+                List<Long> filledOrders = new ArrayList<>(orderCount);
+                for (int o = 0; o < orderCount; o++) filledOrders.add(in.readLong());
+                accounts.add(new Stored(new LedgerSnapshot(chatId, name, balance, holdings, lastSeq), persistedSeq, filledOrders));
+            }
+            return new Contents(seq, accounts);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ledger snapshot " + file, e);
+        }
+    }
+}
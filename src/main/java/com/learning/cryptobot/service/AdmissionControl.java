@@ -0,0 +1,105 @@
+package com.learning.cryptobot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * AdmissionControl
+ * Decides whether a bot message or web request is handled at all, before it costs anything.
+ *
+ * - Per user: at most admission.chat.limit messages per chat and admission.web.limit requests
+ *   per web session in a sliding window (SlidingWindowLimiter, lock-free, idle keys evicted).
+ * - Global upstream budget: once admission.upstream-share of Binance's request weight for this
+ *   minute is used, user commands that may call Binance wait for the next minute.
+ *   The rest of the budget stays for orders, alerts and recurring buys, so one noisy user
+ *   can't starve them (or get us banned).
+ *
+ * Every check answers 0 (go ahead) or the milliseconds to wait, for a "retry after" reply.
+ */
+@Component
+public class AdmissionControl {
+
+    private final BinanceClient binanceClient;
+    private final SlidingWindowLimiter<Long> chats;
+    private final SlidingWindowLimiter<String> sessions;
+    // One "slow down" reply per chat and window, so rejected floods don't become reply floods
+    private final SlidingWindowLimiter<Long> notices;
+    private final double upstreamShare;
+
+    private final Counter rejectedChat;
+    private final Counter rejectedSession;
+    private final Counter rejectedUpstream;
+
+    public AdmissionControl(BinanceClient binanceClient,
+                            @Value("${admission.chat.limit:20}") int chatLimit,
+                            @Value("${admission.chat.window-ms:10000}") long chatWindowMillis,
+                            @Value("${admission.web.limit:30}") int webLimit,
+                            @Value("${admission.web.window-ms:10000}") long webWindowMillis,
+                            @Value("${admission.upstream-share:0.8}") double upstreamShare,
+                            MeterRegistry meterRegistry) {
+        this.binanceClient = binanceClient;
+        this.chats = new SlidingWindowLimiter<>(chatLimit, chatWindowMillis);
+        this.sessions = new SlidingWindowLimiter<>(webLimit, webWindowMillis);
+        this.notices = new SlidingWindowLimiter<>(1, chatWindowMillis);
+        this.upstreamShare = upstreamShare;
+
+        this.rejectedChat = meterRegistry.counter("admission.rejected", "scope", "chat");
+        this.rejectedSession = meterRegistry.counter("admission.rejected", "scope", "session");
+        this.rejectedUpstream = meterRegistry.counter("admission.rejected", "scope", "upstream");
+        Gauge.builder("admission.keys", this, a -> a.chats.size() + a.sessions.size())
+                .description("Chats and web sessions with a recent request").register(meterRegistry);
+    }
+
+    // upstream = the command may need Binance (price, trade, chart ...)
+    public long admitChat(long chatId, boolean upstream) {
+        long wait = upstream ? upstreamWait() : 0;
+        if (wait > 0) {
+            rejectedUpstream.increment();
+            return wait;
+        }
+        wait = chats.tryAcquire(chatId);
+        if (wait > 0) rejectedChat.increment();
+        return wait;
+    }
+
+    public long admitSession(String sessionId, boolean upstream) {
+        long wait = upstream ? upstreamWait() : 0;
+        if (wait > 0) {
+            rejectedUpstream.increment();
+            return wait;
+        }
+        wait = sessions.tryAcquire(sessionId);
+        if (wait > 0) rejectedSession.increment();
+        return wait;
+    }
+
+    // True for the first rejection of a chat in a window: only that one gets a reply
+    public boolean shouldNotify(long chatId) {
+        return notices.tryAcquire(chatId) == 0;
+    }
+
+    // Rounded up, for replies and the Retry-After header
+    public static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    @Scheduled(fixedDelayString = "${admission.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        chats.evictIdle(now);
+        sessions.evictIdle(now);
+        notices.evictIdle(now);
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    // Binance counts weight per calendar minute: over our share = wait for the next one
+    private long upstreamWait() {
+        if (binanceClient.peekUsedWeight() < binanceClient.getWeightBudget() * upstreamShare) return 0;
+        return 60_000 - System.currentTimeMillis() % 60_000;
+    }
+}
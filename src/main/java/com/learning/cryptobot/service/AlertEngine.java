@@ -0,0 +1,169 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.entity.PriceAlert;
+import com.learning.cryptobot.repository.PriceAlertRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * AlertEngine
+ * Price alerts ("alert BTC > 70000") so users stop polling the bot for prices.
+ *
+ * Thresholds are kept per symbol in a ThresholdIndex. Each tick (from the stream, or from
+ * MarketWatchScheduler's one fetch per symbol per interval) is checked in a single pass:
+ * every crossed alert is removed, and each user gets ONE message listing all their hits.
+ * Fired alerts are deleted from the DB on a separate thread, so a slow DB never holds up
+ * the thread that delivers prices to everyone else.
+ */
+@Service
+public class AlertEngine implements PriceTickListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertEngine.class);
+
+    // Keeps one user from filling the index with thousands of alerts
+    private static final int MAX_ALERTS_PER_USER = 50;
+
+    private final PriceAlertRepository priceAlertRepository;
+    private final SymbolRegistry symbolRegistry;
+    private final MarketTickBus tickBus;
+    private final UserNotifier notifier;
+    private final ClusterTopology cluster;
+
+    private final Map<String, ThresholdIndex<PriceAlert>> bySymbol = new ConcurrentHashMap<>();
+    private final Map<Long, PriceAlert> activeAlerts = new ConcurrentHashMap<>();
+
+    private final ExecutorService cleanupExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "alert-cleanup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AlertEngine(PriceAlertRepository priceAlertRepository, SymbolRegistry symbolRegistry,
+                       MarketTickBus tickBus, UserNotifier notifier, ClusterTopology cluster) {
+        this.priceAlertRepository = priceAlertRepository;
+        this.symbolRegistry = symbolRegistry;
+        this.tickBus = tickBus;
+        this.notifier = notifier;
+        this.cluster = cluster;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Cluster mode: only our own users' alerts, so nobody gets the same alert twice
+        priceAlertRepository.findAll().stream().filter(a -> cluster.isLocal(a.getChatId())).forEach(this::index);
+        tickBus.register(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleanupExecutor.shutdown();
+    }
+
+    // --- USER ACTIONS ---
+
+    public PriceAlert create(long chatId, String symbol, PriceAlert.Condition condition, BigDecimal threshold) {
+        if (threshold == null || threshold.signum() <= 0) throw new IllegalArgumentException("Price must be greater than 0");
+        if (priceAlertRepository.findByChatId(chatId).size() >= MAX_ALERTS_PER_USER) {
+            throw new IllegalArgumentException("You can have at most " + MAX_ALERTS_PER_USER + " alerts");
+        }
+
+        PriceAlert alert = new PriceAlert(chatId, symbolRegistry.resolve(symbol).symbol(), condition, threshold);
+        alert = priceAlertRepository.save(alert);
+        index(alert);
+        return alert;
+    }
+
+    public boolean delete(long chatId, long alertId) {
+        PriceAlert alert = activeAlerts.get(alertId);
+        if (alert == null || alert.getChatId() != chatId) return false;
+        if (!activeAlerts.remove(alertId, alert)) return false; // just fired
+
+        bySymbol.get(alert.getSymbol()).remove(FixedPoint.price(alert.getThreshold()), direction(alert), alert);
+        priceAlertRepository.deleteById(alertId);
+        return true;
+    }
+
+    public List<PriceAlert> list(long chatId) {
+        return priceAlertRepository.findByChatId(chatId);
+    }
+
+    public int getActiveAlertCount() {
+        return activeAlerts.size();
+    }
+
+    // --- PRICE TICKS ---
+
+    @Override
+    public void onTick(BinanceTickerDto ticker) {
+        ThresholdIndex<PriceAlert> index = bySymbol.get(ticker.getSymbol());
+        if (index == null) return;
+
+        List<PriceAlert> fired = new ArrayList<>();
+        for (PriceAlert alert : index.drainCrossed(FixedPoint.price(ticker.getLastPrice()))) {
+            if (activeAlerts.remove(alert.getId(), alert)) fired.add(alert);
+        }
+        if (fired.isEmpty()) return;
+
+        // One message per user, however many of their alerts this tick hit
+        Map<Long, List<PriceAlert>> byChat = fired.stream()
+                .collect(Collectors.groupingBy(PriceAlert::getChatId, LinkedHashMap::new, Collectors.toList()));
+        byChat.forEach((chatId, alerts) -> {
+            StringBuilder sb = new StringBuilder("🔔 **PRICE ALERT**\n");
+            for (PriceAlert alert : alerts) {
+                sb.append(alert.getSymbol()).append(" is ").append(alert.getCondition() == PriceAlert.Condition.ABOVE ? "above " : "below ")
+                        .append(alert.getThreshold().toPlainString()).append(" (now ")
+                        .append(ticker.getLastPrice().toPlainString()).append(")\n");
+            }
+            notifier.notify(chatId, sb.toString());
+        });
+
+        List<Long> ids = fired.stream().map(PriceAlert::getId).toList();
+        cleanupExecutor.execute(() -> deleteFired(ids));
+    }
+
+    @Override
+    public Set<String> watchedSymbols() {
+        return bySymbol.entrySet().stream()
+                .filter(e -> e.getValue().size() > 0)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void deleteFired(List<Long> ids) {
+        try {
+            priceAlertRepository.deleteAllByIdInBatch(ids);
+        } catch (RuntimeException e) {
+            // They're out of the index already; they would only come back (and fire again) after a restart
+            log.warn("Alerts: could not delete fired alerts {}: {}", ids, e.getMessage());
+        }
+    }
+
+    private void index(PriceAlert alert) {
+        activeAlerts.put(alert.getId(), alert);
+        bySymbol.computeIfAbsent(alert.getSymbol(), s -> new ThresholdIndex<>())
+                .add(FixedPoint.price(alert.getThreshold()), direction(alert), alert);
+    }
+
+    private static ThresholdIndex.Direction direction(PriceAlert alert) {
+        return alert.getCondition() == PriceAlert.Condition.ABOVE
+                ? ThresholdIndex.Direction.ABOVE : ThresholdIndex.Direction.BELOW;
+    }
+}
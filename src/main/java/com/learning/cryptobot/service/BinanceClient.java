@@ -0,0 +1,222 @@
+package com.learning.cryptobot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * BinanceClient
+ * The only place that talks HTTP to Binance (prices, candles, the symbol list).
+ * Protects the app from a slow or broken Binance:
+ *
+ * - One pooled, keep-alive HTTP/2 connection (JDK HttpClient) with strict connect / read timeouts,
+ *   so a hanging Binance costs a bot thread seconds, not forever.
+ * - A CircuitBreaker: after a few failures in a row we stop calling for a while and fail fast.
+ * - A BinanceWeightLimiter that follows Binance's request-weight headers, so we never get banned.
+ * - One retry for network / 5xx errors, limited by a retry budget (retries can't multiply the load
+ *   on a struggling server).
+ *
+ * When a call is refused or fails it throws BinanceUnavailableException, and
+ * BinancePriceService falls back to the last known price.
+ */
+@Component
+public class BinanceClient {
+
+    // Weights of /api/v3/ticker/24hr (Binance docs): by number of symbols in the request
+    private static final int WEIGHT_SINGLE = 2;
+    // /api/v3/exchangeInfo without parameters (every symbol)
+    private static final int WEIGHT_EXCHANGE_INFO = 20;
+
+    private final String tickerUrl;
+    private final String batchUrl;
+    private final String klinesUrl;
+    private final String exchangeInfoUrl;
+
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker breaker;
+    private final BinanceWeightLimiter weightLimiter;
+    // Each retry costs one token: at most "retry-burst" retries at once, "retry-per-second" over time
+    private final TokenBucket retryBudget;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter refusedByBreaker;
+    private final Counter refusedByWeight;
+
+    public BinanceClient(@Value("${binance.api-url:https://api.binance.com}") String apiUrl,
+                         @Value("${binance.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+                         @Value("${binance.http.read-timeout-ms:3000}") long readTimeoutMs,
+                         @Value("${binance.breaker.failure-threshold:5}") int failureThreshold,
+                         @Value("${binance.breaker.open-ms:10000}") long openMs,
+                         @Value("${binance.weight.budget-per-minute:5000}") int weightBudget,
+                         @Value("${binance.retry.burst:10}") double retryBurst,
+                         @Value("${binance.retry.per-second:1}") double retryPerSecond,
+                         MeterRegistry meterRegistry) {
+        this.tickerUrl = apiUrl + "/api/v3/ticker/24hr?symbol={symbol}";
+        this.batchUrl = apiUrl + "/api/v3/ticker/24hr?symbols={symbols}";
+        this.klinesUrl = apiUrl + "/api/v3/klines?symbol={symbol}&interval={interval}&limit={limit}";
+        this.exchangeInfoUrl = apiUrl + "/api/v3/exchangeInfo";
+
+        // HttpClient keeps connections open and reuses them (HTTP/2 multiplexes all requests on one)
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restTemplate = new RestTemplate(factory);
+
+        this.breaker = new CircuitBreaker(failureThreshold, openMs);
+        this.weightLimiter = new BinanceWeightLimiter(weightBudget);
+        this.retryBudget = new TokenBucket(retryBurst, retryPerSecond);
+
+        this.meterRegistry = meterRegistry;
+        this.refusedByBreaker = meterRegistry.counter("binance.refused", "reason", "breaker_open");
+        this.refusedByWeight = meterRegistry.counter("binance.refused", "reason", "weight_limit");
+        Gauge.builder("binance.breaker.state", breaker, b -> b.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half open").register(meterRegistry);
+        Gauge.builder("binance.weight.used", weightLimiter, BinanceWeightLimiter::getUsedWeight)
+                .description("Request weight used in the current minute").register(meterRegistry);
+    }
+
+    public BinanceTickerDto ticker(String symbol) {
+        return call("single", WEIGHT_SINGLE, BinanceTickerDto.class, tickerUrl, symbol);
+    }
+
+    // Up to 100 symbols in one request
+    public List<BinanceTickerDto> tickers(List<String> symbols) {
+        // ["BTCUSDT","ETHUSDT"] - RestTemplate URL-encodes it for us
+        String json = symbols.stream().map(s -> "\"" + s + "\"").collect(Collectors.joining(",", "[", "]"));
+        BinanceTickerDto[] response = call("batch", batchWeight(symbols.size()), BinanceTickerDto[].class, batchUrl, json);
+        return response == null ? List.of() : List.of(response);
+    }
+
+    // The last "limit" candles (oldest first) as Binance sends them:
+    // [openTime, "open", "high", "low", "close", "volume", closeTime, ...]
+    public String[][] klines(String symbol, String interval, int limit) {
+        String[][] rows = call("klines", klinesWeight(limit), String[][].class, klinesUrl, symbol, interval, limit);
+        return rows == null ? new String[0][] : rows;
+    }
+
+    // Every pair Binance lists, with its status and base / quote asset (SymbolRegistry)
+    public JsonNode exchangeInfo() {
+        return call("exchange_info", WEIGHT_EXCHANGE_INFO, JsonNode.class, exchangeInfoUrl);
+    }
+
+    public CircuitBreaker.State getBreakerState() {
+        return breaker.getState();
+    }
+
+    // Request weight used in the current minute, read without locking (AdmissionControl asks on every message)
+    public int peekUsedWeight() {
+        return weightLimiter.peekUsedWeight();
+    }
+
+    public int getWeightBudget() {
+        return weightLimiter.getBudgetPerMinute();
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private <T> T call(String type, int weight, Class<T> responseType, String url, Object... uriVariables) {
+        for (int attempt = 1; ; attempt++) {
+            // Breaker first: a call it refuses never reaches Binance, so it mustn't use up request weight
+            if (!breaker.allowRequest()) {
+                refusedByBreaker.increment();
+                throw new BinanceUnavailableException("Binance is not responding, paused calls for a moment");
+            }
+            if (!weightLimiter.tryAcquire(weight)) {
+                // If we were the breaker's one trial call, let the next caller make it instead
+                breaker.cancelTrial();
+                refusedByWeight.increment();
+                throw new BinanceUnavailableException("Binance request weight limit reached, try again shortly");
+            }
+
+            long start = System.nanoTime();
+            String outcome = "success";
+            try {
+                ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, null, responseType, uriVariables);
+                readUsedWeight(response.getHeaders());
+                breaker.onSuccess();
+                return response.getBody();
+            } catch (HttpClientErrorException e) {
+                readUsedWeight(e.getResponseHeaders());
+                // Binance answered, so it's up - even if it didn't like the request
+                breaker.onSuccess();
+                int status = e.getStatusCode().value();
+                if (status == 429 || status == 418) {
+                    outcome = "rate_limited";
+                    weightLimiter.onRateLimited(retryAfterMillis(e.getResponseHeaders()));
+                    throw new BinanceUnavailableException("Binance rate limit reached", e);
+                }
+                outcome = "client_error";
+                throw e;
+            } catch (HttpServerErrorException | ResourceAccessException e) {
+                outcome = e instanceof ResourceAccessException ? "io_error" : "server_error";
+                breaker.onFailure();
+                // A GET is safe to repeat: one more try, if the budget allows it
+                if (attempt == 1 && retryBudget.tryAcquire()) continue;
+                throw new BinanceUnavailableException("Binance request failed: " + e.getMessage(), e);
+            } catch (RuntimeException e) {
+                outcome = "error";
+                breaker.onFailure();
+                throw e;
+            } finally {
+                meterRegistry.timer("binance.request", "type", type, "outcome", outcome,
+                                "attempt", attempt == 1 ? "first" : "retry")
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static int batchWeight(int symbols) {
+        if (symbols <= 20) return 2;
+        if (symbols <= 100) return 40;
+        return 80;
+    }
+
+    private static int klinesWeight(int limit) {
+        if (limit < 100) return 1;
+        if (limit < 500) return 2;
+        if (limit <= 1000) return 5;
+        return 10;
+    }
+
+    private void readUsedWeight(HttpHeaders headers) {
+        if (headers == null) return;
+        String used = headers.getFirst("X-MBX-USED-WEIGHT-1M");
+        if (used == null) return;
+        try {
+            weightLimiter.onUsedWeight(Integer.parseInt(used.trim()));
+        } catch (NumberFormatException ignored) {
+            // Unexpected header value: keep our own count
+        }
+    }
+
+    // Retry-After is in seconds. Without it, wait a full minute (the weight window).
+    private static long retryAfterMillis(HttpHeaders headers) {
+        String retryAfter = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        try {
+            return retryAfter == null ? 60_000 : Long.parseLong(retryAfter.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return 60_000;
+        }
+    }
+}
@@ -1,47 +1,132 @@
 package com.learning.cryptobot.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.dto.TradingPair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class BinancePriceService {
 
-    // API Endpoint for 24hr statistics
-    private final String BINANCE_URL = "https://api.binance.com/api/v3/ticker/24hr?symbol=";
+    // Binance accepts up to 100 symbols per batch request
+    private static final int MAX_BATCH = 100;
+
+    // HTTP to Binance with timeouts, circuit breaker and rate limiting
+    private final BinanceClient binanceClient;
+
+    // Short-lived memory of recent tickers, shared by the bot, the web pages and trades
+    private final TickerCache tickerCache;
+
+    // Prices pushed by the stream (only filled when binance.stream.enabled=true)
+    private final LivePriceTable livePriceTable;
+
+    // Turns "btc" / "BTC/USDT" into "BTCUSDT" without asking Binance
+    private final SymbolRegistry symbolRegistry;
+
+    // Every new price we download is announced here (orders, alerts ... listen to it)
+    private final MarketTickBus tickBus;
 
-    // RestTemplate is Spring's tool for making HTTP Requests (GET, POST, etc.)
-    RestTemplate restTemplate = new RestTemplate();
+    // How often we answered with an old price because Binance was unavailable
+    private final Counter staleServed;
+    private final Counter staleMissing;
+
+    public BinancePriceService(TickerCache tickerCache, LivePriceTable livePriceTable, SymbolRegistry symbolRegistry,
+                               MarketTickBus tickBus, BinanceClient binanceClient, MeterRegistry meterRegistry) {
+        this.tickerCache = tickerCache;
+        this.livePriceTable = livePriceTable;
+        this.symbolRegistry = symbolRegistry;
+        this.tickBus = tickBus;
+        this.binanceClient = binanceClient;
+        this.staleServed = meterRegistry.counter("binance.fallback", "result", "stale_served");
+        this.staleMissing = meterRegistry.counter("binance.fallback", "result", "no_price_known");
+    }
 
     public BinanceTickerDto getData(String symbol) {
-        String cleanSymbol = symbol.trim().toUpperCase();
+        // Unknown symbols fail right here (IllegalArgumentException), no HTTP call wasted
+        String canonical = symbolRegistry.resolve(symbol).symbol();
+
+        // Streaming mode: the price is already in memory, no network at all
+        BinanceTickerDto live = livePriceTable.get(canonical);
+        if (live != null) return live;
 
+        // Served from memory if someone asked for the same symbol a moment ago
         try {
-            // Try fetching exact match (e.g. "BTCUSDT")
-            return fetchData(cleanSymbol);
+            return tickerCache.get(canonical, this::fetchData);
+        } catch (BinanceUnavailableException e) {
+            // Binance is down / we're rate limited: the last known price, clearly marked as stale
+            BinanceTickerDto last = lastKnown(canonical);
+            if (last == null) throw e;
+            return last;
+        }
+    }
+
+    // Prices for many symbols at once (wallet valuation, background polling).
+    // Whatever is fresh in memory is reused, everything else comes from ONE request per 100 symbols.
+    // Result is keyed by the real symbol ("BTCUSDT"), unknown symbols are skipped.
+    public Map<String, BinanceTickerDto> getDataBatch(Collection<String> symbols) {
+        Map<String, BinanceTickerDto> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String symbol : symbols) {
+            TradingPair pair = symbolRegistry.find(symbol);
+            if (pair == null || result.containsKey(pair.symbol())) continue;
+
+            BinanceTickerDto known = livePriceTable.get(pair.symbol());
+            if (known == null) known = tickerCache.getIfFresh(pair.symbol());
+            if (known != null) {
+                result.put(pair.symbol(), known);
+            } else if (!missing.contains(pair.symbol())) {
+                missing.add(pair.symbol());
+            }
         }
-        catch (HttpClientErrorException e) {
-            // If the user typed just "BTC", the API throws 400 Bad Request.
-            // We catch it, append "USDT", and try one more time.
-            if (!cleanSymbol.endsWith("USDT")) {
-                try {
-                    return fetchData(cleanSymbol + "USDT");
-                } catch (HttpClientErrorException ex) {
-                    // If it STILL fails, it means the symbol is actually garbage (e.g., "XYZ123")
-                    throw e;
+
+        for (int from = 0; from < missing.size(); from += MAX_BATCH) {
+            List<String> chunk = missing.subList(from, Math.min(from + MAX_BATCH, missing.size()));
+            try {
+                for (BinanceTickerDto ticker : binanceClient.tickers(chunk)) {
+                    // Feed the cache so the next single lookup is free too
+                    tickerCache.put(ticker.getSymbol(), ticker);
+                    tickBus.publish(ticker);
+                    result.put(ticker.getSymbol(), ticker);
+                }
+            } catch (BinanceUnavailableException e) {
+                // Whatever we knew before, flagged as stale; symbols we never saw are left out
+                for (String symbol : chunk) {
+                    BinanceTickerDto last = lastKnown(symbol);
+                    if (last != null) result.put(symbol, last);
                 }
-            } else {
-                throw e;
             }
         }
+        return result;
+    }
+
+    public TickerCache getTickerCache() {
+        return tickerCache;
     }
 
     private BinanceTickerDto fetchData(String symbol){
-        String url = BINANCE_URL + symbol;
-        // getForObject automatically maps the JSON result to your Java Class
-        BinanceTickerDto response = restTemplate.getForObject(url, BinanceTickerDto.class);
+        BinanceTickerDto response = binanceClient.ticker(symbol);
+        tickBus.publish(response);
         return response;
     }
-}
\ No newline at end of file
+
+    // Newest price we have from the stream or the cache, as a stale copy (never published to the tick bus)
+    private BinanceTickerDto lastKnown(String symbol) {
+        BinanceTickerDto last = livePriceTable.getLatest(symbol);
+        if (last == null) last = tickerCache.getStale(symbol);
+        if (last == null) {
+            staleMissing.increment();
+            return null;
+        }
+        staleServed.increment();
+        return last.asStale();
+    }
+}
@@ -0,0 +1,123 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Live feed from the Binance combined ticker stream (WebSocket).
+ * Uses the HttpClient that ships with Java, so no extra dependency is needed.
+ */
+public class BinanceStreamFeed implements MarketDataFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(BinanceStreamFeed.class);
+
+    private final String streamUrl;
+    private final StreamTickerParser parser = new StreamTickerParser();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    // Single background thread that waits before reconnecting
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "binance-stream-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile WebSocket webSocket;
+    private volatile boolean running;
+
+    // symbols like ["btcusdt","ethusdt"] -> wss://.../stream?streams=btcusdt@ticker/ethusdt@ticker
+    public BinanceStreamFeed(String baseUrl, List<String> symbols) {
+        if (symbols.isEmpty()) {
+            // No list given: every symbol on the exchange, one array per second
+            this.streamUrl = baseUrl + "/ws/!ticker@arr";
+        } else {
+            this.streamUrl = baseUrl + "/stream?streams=" + symbols.stream()
+                    .map(s -> s.trim().toLowerCase() + "@ticker")
+                    .collect(Collectors.joining("/"));
+        }
+    }
+
+    @Override
+    public void start(Consumer<BinanceTickerDto> listener) {
+        running = true;
+        connect(listener, 1000);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        WebSocket ws = webSocket;
+        if (ws != null) ws.sendClose(WebSocket.NORMAL_CLOSURE, "bye");
+        reconnector.shutdownNow();
+    }
+
+    private void connect(Consumer<BinanceTickerDto> listener, long retryDelayMillis) {
+        if (!running) return;
+        httpClient.newWebSocketBuilder()
+                .buildAsync(URI.create(streamUrl), new Listener(listener))
+                .whenComplete((ws, error) -> {
+                    if (error != null) {
+                        // Binance unreachable: try again later, waiting longer each time (max 1 min)
+                        log.warn("Binance stream connect failed: {}", error.getMessage());
+                        reconnectLater(listener, Math.min(retryDelayMillis * 2, 60_000));
+                    } else {
+                        webSocket = ws;
+                    }
+                });
+    }
+
+    private void reconnectLater(Consumer<BinanceTickerDto> listener, long delayMillis) {
+        if (!running) return;
+        reconnector.schedule(() -> connect(listener, delayMillis), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Receives the frames. Big messages can arrive in several parts, so we glue them together.
+    private class Listener implements WebSocket.Listener {
+        private final Consumer<BinanceTickerDto> tickerListener;
+        private final StringBuilder buffer = new StringBuilder();
+
+        Listener(Consumer<BinanceTickerDto> tickerListener) {
+            this.tickerListener = tickerListener;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                try {
+                    parser.parse(buffer.toString(), tickerListener);
+                } catch (Exception e) {
+                    log.warn("Bad stream message: {}", e.getMessage());
+                }
+                buffer.setLength(0);
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            // Binance closes every connection after 24h, so just reconnect
+            reconnectLater(tickerListener, 1000);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            log.warn("Binance stream error: {}", error.getMessage());
+            reconnectLater(tickerListener, 1000);
+        }
+    }
+}
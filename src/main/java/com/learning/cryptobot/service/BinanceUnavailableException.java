@@ -0,0 +1,17 @@
+package com.learning.cryptobot.service;
+
+/**
+ * Thrown when we can't (or won't) get a price from Binance right now:
+ * it is failing, our circuit breaker is open, or we're at the rate limit.
+ * Callers may fall back to the last known (stale) price.
+ */
+public class BinanceUnavailableException extends RuntimeException {
+
+    public BinanceUnavailableException(String message) {
+        super(message);
+    }
+
+    public BinanceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
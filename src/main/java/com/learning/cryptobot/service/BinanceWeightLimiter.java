@@ -0,0 +1,79 @@
+package com.learning.cryptobot.service;
+
+/**
+ * BinanceWeightLimiter
+ * Binance gives every IP a budget of "request weight" per minute (6000 today) and bans
+ * clients that go over it. Each endpoint costs a different weight, and every answer tells
+ * us how much we've used so far (header X-MBX-USED-WEIGHT-1M).
+ *
+ * We refuse calls locally before reaching the budget, trust the header over our own count,
+ * and after a 429/418 we stop completely until the Retry-After time has passed.
+ */
+public class BinanceWeightLimiter {
+
+    private final int budgetPerMinute;
+
+    private long currentMinute;
+    private int usedWeight;
+    private long blockedUntil;
+
+    // Copies of the above for readers that must not wait for the lock (admission checks on every message)
+    private volatile long publishedMinute;
+    private volatile int publishedWeight;
+
+    public BinanceWeightLimiter(int budgetPerMinute) {
+        this.budgetPerMinute = budgetPerMinute;
+    }
+
+    // Reserves "weight" for a call, or returns false if that would go over the budget
+    public synchronized boolean tryAcquire(int weight) {
+        long now = System.currentTimeMillis();
+        if (now < blockedUntil) return false;
+        rollWindow(now);
+        if (usedWeight + weight > budgetPerMinute) return false;
+        usedWeight += weight;
+        publishedWeight = usedWeight;
+        return true;
+    }
+
+    // Binance's own count for this minute (includes calls other apps on our IP made)
+    public synchronized void onUsedWeight(int serverUsedWeight) {
+        rollWindow(System.currentTimeMillis());
+        usedWeight = Math.max(usedWeight, serverUsedWeight);
+        publishedWeight = usedWeight;
+    }
+
+    // 429 (slow down) or 418 (banned): nothing goes out until the given time has passed
+    public synchronized void onRateLimited(long retryAfterMillis) {
+        blockedUntil = Math.max(blockedUntil, System.currentTimeMillis() + retryAfterMillis);
+    }
+
+    public synchronized int getUsedWeight() {
+        rollWindow(System.currentTimeMillis());
+        return usedWeight;
+    }
+
+    // Weight used this minute without taking the lock (may be a moment behind)
+    public int peekUsedWeight() {
+        return publishedMinute == System.currentTimeMillis() / 60_000 ? publishedWeight : 0;
+    }
+
+    public int getBudgetPerMinute() {
+        return budgetPerMinute;
+    }
+
+    public synchronized boolean isBlocked() {
+        return System.currentTimeMillis() < blockedUntil;
+    }
+
+    // Binance counts per calendar minute
+    private void rollWindow(long now) {
+        long minute = now / 60_000;
+        if (minute != currentMinute) {
+            currentMinute = minute;
+            usedWeight = 0;
+            publishedWeight = 0;
+            publishedMinute = minute;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.learning.cryptobot.service;
+
+import java.util.List;
+
+/**
+ * CandleSeries
+ * The last "capacity" OHLC candles of one symbol at one interval, in a ring buffer of plain
+ * long arrays (FixedPoint prices, no objects per candle). When it is full the oldest candle
+ * is overwritten, so memory never grows.
+ *
+ * Ticks update the newest candle or start the next one. Thread safe: every method locks the
+ * series, and each lock is held for a few array writes only.
+ */
+public class CandleSeries {
+
+    // Copy of some candles, oldest first. All arrays have the same length.
+    public record Candles(long[] openTime, long[] open, long[] high, long[] low, long[] close) {
+        public int size() {
+            return openTime.length;
+        }
+    }
+
+    private final long intervalMillis;
+    private final int capacity;
+
+    private final long[] openTimes;
+    private final long[] opens;
+    private final long[] highs;
+    private final long[] lows;
+    private final long[] closes;
+    // Slot of the newest candle, and how many slots are used
+    private int newest = -1;
+    private int size;
+
+    // Set once the history was loaded from Binance (see CandleService)
+    volatile boolean backfilled;
+
+    public CandleSeries(long intervalMillis, int capacity) {
+        this.intervalMillis = intervalMillis;
+        this.capacity = capacity;
+        this.openTimes = new long[capacity];
+        this.opens = new long[capacity];
+        this.highs = new long[capacity];
+        this.lows = new long[capacity];
+        this.closes = new long[capacity];
+    }
+
+    // A price seen at timeMillis. Older than the newest candle = ignored (it arrived too late).
+    public synchronized void update(long timeMillis, long price) {
+        long bucket = timeMillis - Math.floorMod(timeMillis, intervalMillis);
+        if (size > 0) {
+            long last = openTimes[newest];
+            if (bucket < last) return;
+            if (bucket == last) {
+                if (price > highs[newest]) highs[newest] = price;
+                if (price < lows[newest]) lows[newest] = price;
+                closes[newest] = price;
+                return;
+            }
+            // No price at all for a while: flat candles at the last close, like Binance shows them
+            long previousClose = closes[newest];
+            long gaps = Math.min((bucket - last) / intervalMillis - 1, capacity);
+            for (long t = bucket - gaps * intervalMillis; t < bucket; t += intervalMillis) {
+                append(t, previousClose, previousClose, previousClose, previousClose);
+            }
+        }
+        append(bucket, price, price, price, price);
+    }
+
+    // Adds history from Binance (rows of {openTime, open, high, low, close}, oldest first) in front of
+    // the candles built from ticks. A candle both have keeps Binance's open and our latest close.
+    public synchronized void backfill(List<long[]> history) {
+        Candles own = last(size);
+        newest = -1;
+        size = 0;
+
+        int i = 0;
+        for (long[] row : history) {
+            long openTime = row[0];
+            // Our own candles that come before this row (history shorter than what ticks built)
+            while (i < own.size() && own.openTime()[i] < openTime) appendOwn(own, i++);
+            if (i < own.size() && own.openTime()[i] == openTime) {
+                append(openTime, row[1], Math.max(row[2], own.high()[i]), Math.min(row[3], own.low()[i]), own.close()[i]);
+                i++;
+            } else if (size == 0 || openTime > openTimes[newest]) {
+                append(openTime, row[1], row[2], row[3], row[4]);
+            }
+        }
+        while (i < own.size()) appendOwn(own, i++);
+    }
+
+    // The newest n candles (fewer if we don't have that many), oldest first
+    public synchronized Candles last(int n) {
+        int count = Math.max(0, Math.min(n, size));
+        Candles copy = new Candles(new long[count], new long[count], new long[count], new long[count], new long[count]);
+        int slot = Math.floorMod(newest - count + 1, capacity);
+        for (int i = 0; i < count; i++) {
+            copy.openTime()[i] = openTimes[slot];
+            copy.open()[i] = opens[slot];
+            copy.high()[i] = highs[slot];
+            copy.low()[i] = lows[slot];
+            copy.close()[i] = closes[slot];
+            slot = slot + 1 == capacity ? 0 : slot + 1;
+        }
+        return copy;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void append(long openTime, long open, long high, long low, long close) {
+        newest = newest + 1 == capacity ? 0 : newest + 1;
+        openTimes[newest] = openTime;
+        opens[newest] = open;
+        highs[newest] = high;
+        lows[newest] = low;
+        closes[newest] = close;
+        if (size < capacity) size++;
+    }
+
+    private void appendOwn(Candles own, int i) {
+        if (size > 0 && own.openTime()[i] <= openTimes[newest]) return;
+        append(own.openTime()[i], own.open()[i], own.high()[i], own.low()[i], own.close()[i]);
+    }
+}
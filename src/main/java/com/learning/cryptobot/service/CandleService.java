@@ -0,0 +1,200 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CandleService
+ * 1m / 5m / 1h OHLC candles per symbol, for the "chart" command and /candles.
+ *
+ * The first chart of a symbol loads its history from Binance's klines (once per interval).
+ * From then on the candles are built from the prices we receive anyway (MarketTickBus), and the
+ * symbol is kept on the watch list so those keep coming. Charts are served from memory:
+ * asking again never calls Binance.
+ *
+ * A symbol nobody charted for idle-ms is dropped (and no longer polled), and at most
+ * max-symbols are tracked: charting one more drops the one viewed longest ago.
+ */
+@Service
+public class CandleService implements PriceTickListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleService.class);
+
+    public enum Interval {
+        M1("1m", 60_000L), M5("5m", 300_000L), H1("1h", 3_600_000L);
+
+        private final String code;
+        private final long millis;
+
+        Interval(String code, long millis) {
+            this.code = code;
+            this.millis = millis;
+        }
+
+        // Binance's name for it, also what users type: "1m", "5m", "1h"
+        public String code() {
+            return code;
+        }
+
+        public long millis() {
+            return millis;
+        }
+
+        public static Interval parse(String text) {
+            for (Interval interval : values()) {
+                if (interval.code.equalsIgnoreCase(text)) return interval;
+            }
+            throw new IllegalArgumentException("Unknown interval '" + text + "', use 1m, 5m or 1h");
+        }
+    }
+
+    private final BinanceClient binanceClient;
+    private final SymbolRegistry symbolRegistry;
+    private final MarketTickBus tickBus;
+    private final int capacity;
+    private final long idleMillis;
+    private final int maxSymbols;
+
+    // Symbol -> its candles. Only symbols somebody charted within idle-ms.
+    private final Map<String, Charted> series = new ConcurrentHashMap<>();
+
+    // One series per Interval (by ordinal), and when somebody last asked for it
+    private static final class Charted {
+        final CandleSeries[] byInterval;
+        volatile long viewedAt;
+
+        Charted(CandleSeries[] byInterval, long viewedAt) {
+            this.byInterval = byInterval;
+            this.viewedAt = viewedAt;
+        }
+    }
+
+    public CandleService(BinanceClient binanceClient, SymbolRegistry symbolRegistry, MarketTickBus tickBus,
+                         @Value("${candles.capacity:300}") int capacity,
+                         @Value("${candles.idle-ms:1800000}") long idleMillis,
+                         @Value("${candles.max-symbols:200}") int maxSymbols) {
+        this.binanceClient = binanceClient;
+        this.symbolRegistry = symbolRegistry;
+        this.tickBus = tickBus;
+        this.capacity = capacity;
+        this.idleMillis = idleMillis;
+        this.maxSymbols = maxSymbols;
+    }
+
+    @PostConstruct
+    public void init() {
+        tickBus.register(this);
+    }
+
+    // The newest "count" candles of a symbol ("btc", "BTCUSDT" ...), oldest first
+    public CandleSeries.Candles candles(String symbol, Interval interval, int count) {
+        String canonical = symbolRegistry.resolve(symbol).symbol();
+        long now = System.currentTimeMillis();
+        Charted charted = series.get(canonical);
+        if (charted == null) charted = track(canonical, now);
+        charted.viewedAt = now;
+        CandleSeries candles = charted.byInterval[interval.ordinal()];
+        if (!candles.backfilled) backfill(canonical, interval, charted, candles);
+        return candles.last(Math.min(count, capacity));
+    }
+
+    public int getSymbolCount() {
+        return series.size();
+    }
+
+    // Symbols nobody charted for idle-ms stop being polled and free their candles
+    @Scheduled(fixedDelayString = "${candles.evict-interval-ms:60000}")
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    void evictIdle(long now) {
+        series.entrySet().removeIf(e -> now - e.getValue().viewedAt > idleMillis);
+    }
+
+    // --- EVENTS ---
+
+    @Override
+    public void onTick(BinanceTickerDto ticker) {
+        if (ticker.isStale()) return;
+        Charted charted = series.get(ticker.getSymbol());
+        if (charted == null) return; // nobody charts it
+        long now = System.currentTimeMillis();
+        long price = FixedPoint.price(ticker.getLastPrice());
+        for (CandleSeries candles : charted.byInterval) candles.update(now, price);
+    }
+
+    // Symbols charted within idle-ms get polled (MarketWatchScheduler), so their candles keep moving
+    @Override
+    public Set<String> watchedSymbols() {
+        return series.keySet();
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    // First chart of a symbol. Synchronized so two new symbols can't both squeeze past the cap;
+    // charts of symbols already tracked never get here.
+    private synchronized Charted track(String symbol, long now) {
+        Charted charted = series.get(symbol);
+        if (charted != null) return charted;
+        if (series.size() >= maxSymbols) evictLeastRecentlyViewed();
+        charted = new Charted(newSeries(), now);
+        series.put(symbol, charted);
+        return charted;
+    }
+
+    private void evictLeastRecentlyViewed() {
+        String oldest = null;
+        long oldestView = Long.MAX_VALUE;
+        for (Map.Entry<String, Charted> e : series.entrySet()) {
+            if (e.getValue().viewedAt < oldestView) {
+                oldestView = e.getValue().viewedAt;
+                oldest = e.getKey();
+            }
+        }
+        if (oldest != null) series.remove(oldest);
+    }
+
+    private CandleSeries[] newSeries() {
+        CandleSeries[] byInterval = new CandleSeries[Interval.values().length];
+        for (Interval interval : Interval.values()) byInterval[interval.ordinal()] = new CandleSeries(interval.millis(), capacity);
+        return byInterval;
+    }
+
+    // One klines call per symbol and interval. Locking the series' own lock would stall ticks
+    // during the HTTP call, so concurrent first requests wait on the symbol's entry instead.
+    private void backfill(String symbol, Interval interval, Charted charted, CandleSeries candles) {
+        synchronized (charted) {
+            if (candles.backfilled) return;
+            try {
+                String[][] rows = binanceClient.klines(symbol, interval.code(), capacity);
+                List<long[]> history = new ArrayList<>(rows.length);
+                for (String[] row : rows) {
+                    history.add(new long[]{Long.parseLong(row[0]), price(row[1]), price(row[2]), price(row[3]), price(row[4])});
+                }
+                candles.backfill(history);
+                candles.backfilled = true;
+            } catch (BinanceUnavailableException | HttpClientErrorException e) {
+                // Show what the ticks built so far; the next chart request tries again
+                log.warn("Candles: no history for {} {}: {}", symbol, interval.code(), e.getMessage());
+            }
+        }
+    }
+
+    private static long price(String text) {
+        return FixedPoint.price(new BigDecimal(text));
+    }
+}
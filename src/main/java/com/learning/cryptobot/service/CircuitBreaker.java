@@ -0,0 +1,69 @@
+package com.learning.cryptobot.service;
+
+/**
+ * CircuitBreaker
+ * Stops calling a service that keeps failing, instead of making every user wait for a timeout.
+ *
+ * CLOSED    -> normal, calls go through. After "failureThreshold" failures in a row -> OPEN.
+ * OPEN      -> calls are refused right away, for "openMillis".
+ * HALF_OPEN -> one trial call is let through: success -> CLOSED, failure -> OPEN again.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialRunning;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    // Ask before every call. false = don't even try.
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialRunning = false;
+        }
+        if (state == State.HALF_OPEN) {
+            // Only ONE caller tests the water, everyone else keeps getting "no"
+            if (trialRunning) return false;
+            trialRunning = true;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+        trialRunning = false;
+    }
+
+    // The call allowRequest() let through didn't happen after all (e.g. no request weight left).
+    // While half-open, that frees the trial for the next caller instead of blocking everyone.
+    public synchronized void cancelTrial() {
+        if (state == State.HALF_OPEN) trialRunning = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trialRunning = false;
+        }
+    }
+
+    public synchronized State getState() {
+        // Report HALF_OPEN once the wait is over, even if nobody called allowRequest() yet
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) return State.HALF_OPEN;
+        return state;
+    }
+}
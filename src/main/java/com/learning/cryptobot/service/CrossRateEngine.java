@@ -0,0 +1,128 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CrossRateEngine
+ * Prices between ANY two assets ("ETH in BTC", a wallet in EUR), worked out locally from
+ * the pair prices we already have, instead of asking Binance for every combination.
+ *
+ * Every price we receive (MarketTickBus) updates one edge of a RateGraph. A conversion walks
+ * the shortest path of priced pairs, e.g. ETH -> USDT -> BTC. Only when a leg is missing or too
+ * old do we fetch it, all missing legs in one request, and from then on the pairs of recently
+ * used conversions are kept fresh by MarketWatchScheduler's regular batch poll.
+ * Trades use the graph's price too when it is no older than the ticker cache would allow,
+ * so they don't need a request either.
+ */
+@Service
+public class CrossRateEngine implements PriceTickListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CrossRateEngine.class);
+
+    // Shown rates and amounts: plenty for prices, no 20-digit doubles
+    private static final MathContext DISPLAY = new MathContext(10);
+
+    private final SymbolRegistry symbolRegistry;
+    private final BinancePriceService binancePriceService;
+    private final MarketTickBus tickBus;
+    private final long maxAgeMillis;
+    private final long watchMillis;
+
+    // Built from SymbolRegistry at startup, before we listen to ticks: building it may download
+    // the pair list, which must never happen on the tick thread
+    private volatile RateGraph graph;
+
+    // Pairs that recent conversions went through -> last time they were used
+    private final Map<String, Long> recentLegs = new ConcurrentHashMap<>();
+
+    public CrossRateEngine(SymbolRegistry symbolRegistry, BinancePriceService binancePriceService, MarketTickBus tickBus,
+                           @Value("${crossrates.max-age-ms:5000}") long maxAgeMillis,
+                           @Value("${crossrates.watch-ms:600000}") long watchMillis) {
+        this.symbolRegistry = symbolRegistry;
+        this.binancePriceService = binancePriceService;
+        this.tickBus = tickBus;
+        this.maxAgeMillis = maxAgeMillis;
+        this.watchMillis = watchMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        graph = new RateGraph(symbolRegistry.allPairs());
+        tickBus.register(this);
+    }
+
+    // --- CONVERSIONS ---
+
+    // How much 1 "from" is worth in "to" (assets like "ETH", "BTC", "EUR"; "USD" means USDT)
+    public RateGraph.Conversion rate(String from, String to) {
+        String source = asset(from), target = asset(to);
+        long now = System.currentTimeMillis();
+        RateGraph.Conversion conversion = graph.convert(source, target, now, maxAgeMillis);
+
+        if (conversion == null || !conversion.fresh()) {
+            // Missing / old legs only, in ONE request. Their ticks update the graph on the way in.
+            List<String> legs = graph.legsToRefresh(source, target, now, maxAgeMillis);
+            if (!legs.isEmpty()) {
+                try {
+                    binancePriceService.getDataBatch(legs);
+                } catch (Exception e) {
+                    log.warn("Cross rates: could not refresh {}: {}", legs, e.getMessage());
+                }
+            }
+            conversion = graph.convert(source, target, System.currentTimeMillis(), maxAgeMillis);
+        }
+        if (conversion == null) throw new IllegalStateException("No price known for " + source + " in " + target + " right now");
+
+        long used = System.currentTimeMillis();
+        for (String symbol : conversion.symbols()) recentLegs.put(symbol, used);
+        return conversion;
+    }
+
+    // Price of a pair from a tick at most maxAgeMillis old (FixedPoint), -1 if there is none.
+    // The caller picks the age: trades need a newer price than a wallet total in EUR.
+    public long freshPrice(String symbol, long maxAgeMillis) {
+        return graph.freshPrice(symbol, System.currentTimeMillis(), maxAgeMillis);
+    }
+
+    // "usd" -> "USDT", "eth" -> "ETH". Unknown assets fail here, before any lookup.
+    public String asset(String input) {
+        if (input == null || input.isBlank()) throw new IllegalArgumentException("Currency is missing");
+        String asset = input.trim().toUpperCase();
+        if (asset.equals("USD")) asset = SymbolRegistry.DEFAULT_QUOTE; // balances are kept in USDT
+        if (!graph.hasAsset(asset)) throw new IllegalArgumentException("Unknown currency: " + input.trim());
+        return asset;
+    }
+
+    // A converted amount as a number people can read: 10 significant digits, no trailing zeros
+    public static BigDecimal display(BigDecimal value) {
+        return value.round(DISPLAY).stripTrailingZeros();
+    }
+
+    // --- EVENTS ---
+
+    @Override
+    public void onTick(BinanceTickerDto ticker) {
+        if (ticker.isStale()) return;
+        graph.update(ticker.getSymbol(), FixedPoint.price(ticker.getLastPrice()), System.currentTimeMillis());
+    }
+
+    // Legs of conversions used in the last crossrates.watch-ms stay fresh through the regular poll
+    @Override
+    public Set<String> watchedSymbols() {
+        long oldest = System.currentTimeMillis() - watchMillis;
+        recentLegs.values().removeIf(lastUsed -> lastUsed < oldest);
+        return Set.copyOf(recentLegs.keySet());
+    }
+}
@@ -0,0 +1,146 @@
+package com.learning.cryptobot.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * FixedPoint
+ * Money, quantities and prices as plain longs, with the decimals implied by a fixed scale:
+ * - money:    cents, scale 2 (like the User.balance column)       $12.34   -> 1234
+ * - quantity: scale 8 (like the Asset.quantity column)           0.5 BTC  -> 50_000_000
+ * - price:    scale 8 (Binance never quotes more decimals)       $0.0001  -> 10_000
+ *
+ * The trading path (ledger, journal, order books) works on these longs, so a trade does no
+ * BigDecimal math and creates no number objects. BigDecimal only appears where data comes in
+ * or goes out (Binance JSON, the database, HTML).
+ *
+ * All arithmetic is overflow checked: a result that doesn't fit throws ArithmeticException
+ * instead of silently wrapping around to a wrong balance.
+ */
+public final class FixedPoint {
+
+    public static final int MONEY_SCALE = 2;
+    public static final int QUANTITY_SCALE = 8;
+    public static final int PRICE_SCALE = 8;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    // price (scale 8) * quantity (scale 8) has scale 16, money has scale 2
+    private static final long COST_DIVISOR = POWERS_OF_TEN[PRICE_SCALE + QUANTITY_SCALE - MONEY_SCALE];
+    // Splitting factors into high * 10^7 + low keeps every partial product inside a long
+    private static final long SPLIT = POWERS_OF_TEN[7];
+
+    private FixedPoint() {
+    }
+
+    // --- CONVERSION (the edges) ---
+
+    // Rounds half up, like the entities' setScale
+    public static long money(BigDecimal amount) {
+        return of(amount, MONEY_SCALE);
+    }
+
+    public static long quantity(BigDecimal amount) {
+        return of(amount, QUANTITY_SCALE);
+    }
+
+    public static long price(BigDecimal amount) {
+        return of(amount, PRICE_SCALE);
+    }
+
+    public static BigDecimal toMoney(long cents) {
+        return BigDecimal.valueOf(cents, MONEY_SCALE);
+    }
+
+    public static BigDecimal toQuantity(long quantity) {
+        return BigDecimal.valueOf(quantity, QUANTITY_SCALE);
+    }
+
+    public static BigDecimal toPrice(long price) {
+        return BigDecimal.valueOf(price, PRICE_SCALE);
+    }
+
+    static long of(BigDecimal amount, int scale) {
+        // longValueExact throws if it doesn't fit, instead of keeping the low bits
+        return amount.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // --- ARITHMETIC ---
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // What "quantity" coins cost at "price", in cents rounded half up (TradingService's toMoney).
+    // Exact for any result that fits in a long, no 64 bit overflow in between.
+    public static long cost(long price, long quantity) {
+        if (price < 0 || quantity < 0) throw new IllegalArgumentException("Price and quantity can't be negative");
+        // p * q = ph*qh * 10^14 + (ph*ql + pl*qh) * 10^7 + pl*ql
+        long ph = price / SPLIT, pl = price % SPLIT;
+        long qh = quantity / SPLIT, ql = quantity % SPLIT;
+        long middle = Math.addExact(Math.multiplyExact(ph, ql), Math.multiplyExact(pl, qh));
+        // middle * 10^7 = (middle / 10^7) * 10^14 + (middle % 10^7) * 10^7
+        long whole = Math.addExact(Math.multiplyExact(ph, qh), middle / SPLIT);
+        long rest = (middle % SPLIT) * SPLIT + pl * ql; // < 2 * 10^14
+        whole = Math.addExact(whole, rest / COST_DIVISOR);
+        return rest % COST_DIVISOR * 2 >= COST_DIVISOR ? Math.addExact(whole, 1) : whole;
+    }
+
+    // The most coins (quantity, 8 decimals) that "cents" buy at "price", with cost(price, quantity) <= cents
+    public static long quantityFor(long cents, long price) {
+        if (price <= 0 || cents <= 0) return 0;
+        long quantity = BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(COST_DIVISOR))
+                .divide(BigDecimal.valueOf(price), 0, RoundingMode.DOWN).longValueExact();
+        // Rounding the cost half up to a cent can make it a little too much
+        while (quantity > 0 && cost(price, quantity) > cents) quantity--;
+        return quantity;
+    }
+
+    // Changes the number of implied decimals, rounding half up (away from zero) when some are dropped
+    public static long rescale(long value, int fromScale, int toScale) {
+        if (toScale >= fromScale) return Math.multiplyExact(value, POWERS_OF_TEN[toScale - fromScale]);
+        long divisor = POWERS_OF_TEN[fromScale - toScale];
+        long result = value / divisor;
+        long remainder = Math.abs(value % divisor);
+        if (remainder * 2 >= divisor) result += Long.signum(value);
+        return result;
+    }
+
+    // --- FORMATTING ---
+
+    // Appends value with exactly "decimals" digits after the point (rounded half up): 1234 (scale 2) -> "12.34"
+    public static StringBuilder append(StringBuilder sb, long value, int scale, int decimals) {
+        long shown = rescale(value, scale, decimals);
+        if (shown < 0) sb.append('-');
+        long abs = Math.abs(shown);
+        if (decimals == 0) return sb.append(abs);
+        long unit = POWERS_OF_TEN[decimals];
+        sb.append(abs / unit).append('.');
+        String fraction = Long.toString(abs % unit);
+        for (int i = fraction.length(); i < decimals; i++) sb.append('0');
+        return sb.append(fraction);
+    }
+
+    // Appends value without trailing zeros (like stripTrailingZeros().toPlainString()): 50_000_000 (scale 8) -> "0.5"
+    public static StringBuilder appendPlain(StringBuilder sb, long value, int scale) {
+        int decimals = scale;
+        while (decimals > 0 && value % POWERS_OF_TEN[scale - decimals + 1] == 0) decimals--;
+        return append(sb, value, scale, decimals);
+    }
+
+    public static String format(long value, int scale, int decimals) {
+        return append(new StringBuilder(24), value, scale, decimals).toString();
+    }
+
+    public static String formatPlain(long value, int scale) {
+        return appendPlain(new StringBuilder(24), value, scale).toString();
+    }
+}
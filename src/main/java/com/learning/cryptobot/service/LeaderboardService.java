@@ -0,0 +1,322 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.cluster.PeerClient;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LeaderboardService
+ * Ranks all users by portfolio value (USD balance + coins at the latest price)
+ * without walking every user on each request.
+ *
+ * - Users sit in lists that a price change can't reorder: one list sorted by cash balance,
+ *   and one list per coin sorted by quantity held. A trade moves the user inside the lists
+ *   it touches (O(log n)), a price tick only stores the new price (O(1)).
+ * - top(n) uses the "threshold algorithm": read every list from the top at the same pace,
+ *   work out the full value of each user we meet, and stop once the n-th best value found
+ *   is at least what an unseen user could still reach (sum of the values at the current
+ *   depth of every list). That usually stops after a few rows, even with a million users.
+ * - Exchange totals come from per-coin aggregates (total cash, total quantity of every coin),
+ *   so they cost O(coins), not O(users).
+ * - In cluster mode every node ranks only the users it owns; board() asks the other nodes for
+ *   their top n and merges them (users are never on two nodes, so that is exact).
+ */
+@Service
+public class LeaderboardService implements PriceTickListener, LedgerListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    // One line of the leaderboard. pnl is measured against the starting balance (there are no deposits).
+    public record Standing(int rank, long chatId, String name, BigDecimal value, BigDecimal pnl, BigDecimal pnlPercent) {}
+
+    // Everything every user holds of one coin
+    public record CoinTotal(String symbol, BigDecimal quantity, BigDecimal price, BigDecimal value) {}
+
+    public record Stats(int users, BigDecimal totalValue, BigDecimal totalPnl, BigDecimal averagePnl, List<CoinTotal> coins) {}
+
+    // What the pages show: best n users + exchange totals
+    public record Board(List<Standing> top, Stats stats) {}
+
+    // What we know about one account (a copy, the ledger keeps the real one)
+    private record Position(String name, BigDecimal balance, Map<String, BigDecimal> holdings, long lastSeq) {}
+
+    // One row of a sorted list: the sort key and who it belongs to
+    private record Row(BigDecimal amount, long chatId) {}
+
+    // A user met during top(), with the exact (unrounded) value
+    private record Candidate(long chatId, Position position, BigDecimal value) {}
+
+    private static final Comparator<Row> LARGEST_FIRST =
+            Comparator.comparing(Row::amount).reversed().thenComparingLong(Row::chatId);
+
+    private final LedgerService ledgerService;
+    private final LedgerStore ledgerStore;
+    private final MarketTickBus tickBus;
+    private final ClusterTopology topology;
+    private final PeerClient peerClient;
+    private final int loadPageSize;
+
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Row> byBalance = new ConcurrentSkipListSet<>(LARGEST_FIRST);
+    // "BTCUSDT" -> holders, biggest quantity first
+    private final Map<String, ConcurrentSkipListSet<Row>> byHolding = new ConcurrentHashMap<>();
+
+    // Aggregates for the exchange-wide numbers
+    private final AtomicReference<BigDecimal> totalCash = new AtomicReference<>(BigDecimal.ZERO);
+    private final Map<String, BigDecimal> coinQuantities = new ConcurrentHashMap<>();
+
+    // Latest price of every symbol we heard about (a few thousand at most)
+    private final Map<String, BigDecimal> prices = new ConcurrentHashMap<>();
+
+    public LeaderboardService(LedgerService ledgerService, LedgerStore ledgerStore, MarketTickBus tickBus,
+                              ClusterTopology topology, PeerClient peerClient,
+                              @Value("${leaderboard.load-page-size:1000}") int loadPageSize) {
+        this.ledgerService = ledgerService;
+        this.ledgerStore = ledgerStore;
+        this.tickBus = tickBus;
+        this.topology = topology;
+        this.peerClient = peerClient;
+        this.loadPageSize = loadPageSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Listen first, then load: an account that trades meanwhile keeps its newer state (higher seq)
+        ledgerService.register(this);
+        tickBus.register(this);
+        ledgerStore.forEachAccount(loadPageSize, account -> {
+            if (topology.isLocal(account.chatId())) update(account);
+        });
+    }
+
+    // --- EVENTS ---
+
+    @Override
+    public void onTrade(LedgerEntry entry, LedgerSnapshot account) {
+        update(account);
+        // The fill price is a real market price: good enough until the next tick
+        prices.computeIfAbsent(entry.symbol(), symbol -> FixedPoint.toPrice(entry.price()));
+    }
+
+    @Override
+    public void onTick(BinanceTickerDto ticker) {
+        prices.put(ticker.getSymbol(), ticker.getLastPrice());
+    }
+
+    // Coins somebody holds need a price, even if nobody is looking at them right now
+    @Override
+    public Set<String> watchedSymbols() {
+        return Set.copyOf(coinQuantities.keySet());
+    }
+
+    // --- QUERIES ---
+
+    // Best n users and totals of the whole exchange (all nodes)
+    public Board board(int n) {
+        List<Board> boards = new ArrayList<>();
+        boards.add(new Board(top(n), stats()));
+        topology.peers().keySet().forEach(node -> {
+            try {
+                boards.add(peerClient.get(node, "/internal/cluster/leaderboard?n=" + n, Board.class));
+            } catch (Exception e) {
+                // Show what we have rather than nothing
+                log.warn("Leaderboard: node {} unreachable: {}", node, e.getMessage());
+            }
+        });
+        return boards.size() == 1 ? boards.get(0) : merge(boards, n);
+    }
+
+    // Best n portfolios of this node, highest value first
+    public List<Standing> top(int n) {
+        if (n <= 0) return List.of();
+        // One set of prices for the whole query, so values are comparable
+        Map<String, BigDecimal> priceNow = new HashMap<>(prices);
+
+        List<Iterator<Row>> lists = new ArrayList<>();
+        List<BigDecimal> multipliers = new ArrayList<>();
+        lists.add(byBalance.iterator());
+        multipliers.add(BigDecimal.ONE);
+        for (Map.Entry<String, ConcurrentSkipListSet<Row>> coin : byHolding.entrySet()) {
+            BigDecimal price = priceNow.get(coin.getKey());
+            if (price == null || price.signum() <= 0) continue; // worth nothing to us right now
+            lists.add(coin.getValue().iterator());
+            multipliers.add(price);
+        }
+
+        // Smallest of the best n on top, so it's the one we compare against / throw out
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparing(Candidate::value));
+        Set<Long> seen = new HashSet<>();
+        while (true) {
+            BigDecimal threshold = BigDecimal.ZERO;
+            boolean moreRows = false;
+            for (int i = 0; i < lists.size(); i++) {
+                Iterator<Row> list = lists.get(i);
+                // A finished list adds 0: everybody left has none of that coin
+                if (!list.hasNext()) continue;
+                moreRows = true;
+
+                Row row = list.next();
+                threshold = threshold.add(row.amount().multiply(multipliers.get(i)));
+                if (!seen.add(row.chatId())) continue;
+
+                Position position = positions.get(row.chatId());
+                if (position == null) continue;
+                best.add(new Candidate(row.chatId(), position, valueOf(position, priceNow)));
+                if (best.size() > n) best.poll();
+            }
+            if (!moreRows) break;
+            // Nobody we haven't seen yet can beat the n-th best
+            if (best.size() == n && best.peek().value().compareTo(threshold) >= 0) break;
+        }
+
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparing(Candidate::value).reversed().thenComparingLong(Candidate::chatId));
+        List<Standing> result = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            Candidate c = sorted.get(i);
+            result.add(standing(i + 1, c.chatId(), c.position(), c.value()));
+        }
+        return result;
+    }
+
+    // Value and P&L of one user (rank 0 = not computed, that would mean counting everybody above them)
+    public Standing standing(long chatId) {
+        Position position = positions.get(chatId);
+        return position == null ? null : standing(0, chatId, position, valueOf(position, prices));
+    }
+
+    public Stats stats() {
+        int users = positions.size();
+        BigDecimal total = totalCash.get();
+        List<CoinTotal> coins = new ArrayList<>();
+        // TreeMap = alphabetical order, like the wallet
+        for (Map.Entry<String, BigDecimal> coin : new TreeMap<>(coinQuantities).entrySet()) {
+            BigDecimal price = prices.get(coin.getKey());
+            BigDecimal value = price == null ? null : money(price.multiply(coin.getValue()));
+            if (value != null) total = total.add(value);
+            coins.add(new CoinTotal(coin.getKey(), coin.getValue(), price, value));
+        }
+        BigDecimal totalPnl = total.subtract(LedgerService.STARTING_BALANCE.multiply(BigDecimal.valueOf(users)));
+        BigDecimal averagePnl = users == 0 ? BigDecimal.ZERO : totalPnl.divide(BigDecimal.valueOf(users), 2, RoundingMode.HALF_UP);
+        return new Stats(users, money(total), money(totalPnl), averagePnl, coins);
+    }
+
+    public int getRankedAccounts() {
+        return positions.size();
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    // Boards of different nodes: best n of all tops, totals added up
+    static Board merge(List<Board> boards, int n) {
+        List<Standing> all = new ArrayList<>();
+        int users = 0;
+        BigDecimal totalValue = BigDecimal.ZERO;
+        BigDecimal totalPnl = BigDecimal.ZERO;
+        Map<String, CoinTotal> coins = new TreeMap<>();
+        for (Board board : boards) {
+            all.addAll(board.top());
+            users += board.stats().users();
+            totalValue = totalValue.add(board.stats().totalValue());
+            totalPnl = totalPnl.add(board.stats().totalPnl());
+            for (CoinTotal coin : board.stats().coins()) coins.merge(coin.symbol(), coin, LeaderboardService::addCoins);
+        }
+
+        all.sort(Comparator.comparing(Standing::value).reversed().thenComparingLong(Standing::chatId));
+        List<Standing> top = new ArrayList<>();
+        for (int i = 0; i < Math.min(n, all.size()); i++) {
+            Standing s = all.get(i);
+            top.add(new Standing(i + 1, s.chatId(), s.name(), s.value(), s.pnl(), s.pnlPercent()));
+        }
+        BigDecimal averagePnl = users == 0 ? BigDecimal.ZERO : totalPnl.divide(BigDecimal.valueOf(users), 2, RoundingMode.HALF_UP);
+        return new Board(top, new Stats(users, totalValue, totalPnl, averagePnl, new ArrayList<>(coins.values())));
+    }
+
+    private static CoinTotal addCoins(CoinTotal a, CoinTotal b) {
+        BigDecimal price = a.price() != null ? a.price() : b.price();
+        BigDecimal quantity = a.quantity().add(b.quantity());
+        BigDecimal value = price == null ? null : money(price.multiply(quantity));
+        return new CoinTotal(a.symbol(), quantity, price, value);
+    }
+
+    // Swaps the user's old rows for new ones. compute() locks this user's entry,
+    // so the lists and aggregates always match the position stored in the map.
+    void update(LedgerSnapshot account) {
+        positions.compute(account.chatId(), (chatId, old) -> {
+            // Startup load can be older than a trade we already heard about
+            if (old != null && old.lastSeq() > account.lastSeq()) return old;
+
+            // Ranking math stays in BigDecimal: values are price * quantity sums across many users
+            Map<String, BigDecimal> holdings = new HashMap<>(account.holdings().size() * 2);
+            account.holdings().forEach((symbol, quantity) -> holdings.put(symbol, FixedPoint.toQuantity(quantity)));
+            Position now = new Position(account.name(), FixedPoint.toMoney(account.balance()), Map.copyOf(holdings), account.lastSeq());
+            if (old != null) unindex(chatId, old);
+            index(chatId, now);
+            return now;
+        });
+    }
+
+    private void index(long chatId, Position position) {
+        byBalance.add(new Row(position.balance(), chatId));
+        totalCash.accumulateAndGet(position.balance(), BigDecimal::add);
+        position.holdings().forEach((symbol, quantity) -> {
+            byHolding.computeIfAbsent(symbol, s -> new ConcurrentSkipListSet<>(LARGEST_FIRST)).add(new Row(quantity, chatId));
+            coinQuantities.merge(symbol, quantity, BigDecimal::add);
+        });
+    }
+
+    private void unindex(long chatId, Position position) {
+        byBalance.remove(new Row(position.balance(), chatId));
+        totalCash.accumulateAndGet(position.balance().negate(), BigDecimal::add);
+        position.holdings().forEach((symbol, quantity) -> {
+            ConcurrentSkipListSet<Row> holders = byHolding.get(symbol);
+            if (holders != null) holders.remove(new Row(quantity, chatId));
+            // Returning null removes the coin once nobody holds it any more
+            coinQuantities.computeIfPresent(symbol, (s, total) -> {
+                BigDecimal left = total.subtract(quantity);
+                return left.signum() == 0 ? null : left;
+            });
+        });
+    }
+
+    // Coins without a known price count as 0 until the first tick arrives
+    private static BigDecimal valueOf(Position position, Map<String, BigDecimal> priceNow) {
+        BigDecimal value = position.balance();
+        for (Map.Entry<String, BigDecimal> coin : position.holdings().entrySet()) {
+            BigDecimal price = priceNow.get(coin.getKey());
+            if (price != null) value = value.add(price.multiply(coin.getValue()));
+        }
+        return value;
+    }
+
+    private static Standing standing(int rank, long chatId, Position position, BigDecimal value) {
+        BigDecimal pnl = value.subtract(LedgerService.STARTING_BALANCE);
+        BigDecimal pnlPercent = pnl.multiply(BigDecimal.valueOf(100)).divide(LedgerService.STARTING_BALANCE, 2, RoundingMode.HALF_UP);
+        return new Standing(rank, chatId, position.name(), money(value), money(pnl), pnlPercent);
+    }
+
+    private static BigDecimal money(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,56 @@
+package com.learning.cryptobot.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory copy of one user's money and coins.
+ * Not thread safe on its own: LedgerService only touches it while holding the user's stripe lock.
+ */
+class LedgerAccount {
+
+    final long chatId;
+    String name;
+    // In cents (FixedPoint.MONEY_SCALE)
+    long balance;
+    // "BTCUSDT" -> {quantity in 1e-8 units}. A one-element array so a trade updates it in place
+    // instead of boxing a new Long. A coin is removed when its quantity reaches zero.
+    final Map<String, long[]> holdings = new HashMap<>();
+    // Sequence number of the last journal entry applied to this account
+    long lastSeq;
+    // Last journal entry known to be saved in the DB for this account (-1: no row yet)
+    long persistedSeq;
+    // Resting orders (OrderEngine) this account filled whose open_order row is still in the DB.
+    // The flush that saves the fill deletes them in the same transaction.
+    final List<Long> filledOrders = new ArrayList<>();
+    // Last time a read or trade used it (System.currentTimeMillis), for evicting idle accounts
+    long lastUsed;
+
+    LedgerAccount(long chatId, String name, long balance, long lastSeq) {
+        this.chatId = chatId;
+        this.name = name;
+        this.balance = balance;
+        this.lastSeq = lastSeq;
+    }
+
+    // Account as it was saved (DB row or snapshot file)
+    static LedgerAccount of(LedgerSnapshot stored) {
+        LedgerAccount account = new LedgerAccount(stored.chatId(), stored.name(), stored.balance(), stored.lastSeq());
+        stored.holdings().forEach((symbol, quantity) -> account.holdings.put(symbol, new long[]{quantity}));
+        return account;
+    }
+
+    long holding(String symbol) {
+        long[] quantity = holdings.get(symbol);
+        return quantity == null ? 0 : quantity[0];
+    }
+
+    // Copy that can be handed to other threads (wallet page, DB writer...)
+    LedgerSnapshot snapshot() {
+        Map<String, Long> copy = new HashMap<>(holdings.size() * 2);
+        holdings.forEach((symbol, quantity) -> copy.put(symbol, quantity[0]));
+        return new LedgerSnapshot(chatId, name, balance, Map.copyOf(copy), lastSeq);
+    }
+}
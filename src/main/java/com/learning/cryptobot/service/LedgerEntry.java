@@ -0,0 +1,11 @@
+package com.learning.cryptobot.service;
+
+/**
+ * One change applied to the ledger, as written to the journal.
+ * Amounts are FixedPoint longs: quantityDelta and price with 8 decimals, cashDelta in cents.
+ * cashDelta is negative for a buy (money leaves the balance), quantityDelta is negative for a sell.
+ * orderId is the resting order (OrderEngine) this trade filled, 0 for a market trade.
+ */
+public record LedgerEntry(long seq, long timestamp, long chatId, String name, String side,
+                          String symbol, long quantityDelta, long price, long cashDelta, long orderId) {
+}
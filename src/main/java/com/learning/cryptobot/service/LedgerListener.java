@@ -0,0 +1,11 @@
+package com.learning.cryptobot.service;
+
+/**
+ * Hears about every trade the ledger applies (live wallet pages, leaderboard ...).
+ */
+public interface LedgerListener {
+
+    // Called while the user's stripe lock is held, so events of one user arrive in order.
+    // Must be quick and must not call back into LedgerService.
+    void onTrade(LedgerEntry entry, LedgerSnapshot account);
+}
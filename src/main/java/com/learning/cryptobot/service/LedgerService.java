@@ -0,0 +1,416 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.metrics.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * LedgerService
+ * Keeps every active user's balance and coins in memory and applies trades there.
+ *
+ * - Users are split over a fixed number of locks ("stripes") by chatId. A trade only locks
+ *   its own stripe, so two users rarely wait for each other, and the same user trading from
+ *   Telegram and the web at once can't overwrite each other's balance.
+ * - Each trade is written to the TradeJournal first, then the account is marked "dirty".
+ * - A scheduled job saves dirty accounts to the DB in one transaction (write-behind).
+ *   A trade that filled a resting order carries the order id, and the flush that saves the
+ *   trade also deletes the order, so the two reach the DB together.
+ * - Another job writes every account to an AccountSnapshotFile now and then.
+ * - Accounts nobody used for a while and that are fully saved are dropped from memory,
+ *   the next access loads them from the DB again.
+ * - On startup we load the snapshot and replay the journal entries written after it
+ *   (the whole journal if there is no snapshot yet). Each entry is only applied if its
+ *   account (snapshot copy, or DB row) doesn't have it yet.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    // Default "Simulated Money" for new users
+    public static final BigDecimal STARTING_BALANCE = new BigDecimal("1000.00");
+    private static final long STARTING_CENTS = FixedPoint.money(STARTING_BALANCE);
+
+    // Result of a trade attempt. accepted=false means not enough money / coins.
+    // balance in cents, holding in 1e-8 units (FixedPoint).
+    public record Update(boolean accepted, long balance, long holding, long seq) {}
+
+    private final LedgerStore ledgerStore;
+    private final TradeJournal journal;
+    private final AccountSnapshotFile snapshotFile;
+    private final ClusterTopology cluster;
+    private final long idleMillis;
+
+    private final ReentrantLock[] stripes;
+    private final Map<Long, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<LedgerListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Only one flush at a time (scheduler + shutdown could overlap)
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Metrics: trade time under the lock, and what each DB flush costs
+    private final Timer tradeAccepted;
+    private final Timer tradeRejected;
+    private final Timer flushTimer;
+    private final DistributionSummary flushAccounts;
+    private final DistributionSummary flushStatements;
+    private final StatementCounter statementCounter;
+
+    public LedgerService(LedgerStore ledgerStore, TradeJournal journal, AccountSnapshotFile snapshotFile,
+                         ClusterTopology cluster, MeterRegistry meterRegistry, StatementCounter statementCounter,
+                         @Value("${ledger.stripes:64}") int stripeCount,
+                         @Value("${ledger.cache.idle-ms:600000}") long idleMillis) {
+        this.ledgerStore = ledgerStore;
+        this.journal = journal;
+        this.snapshotFile = snapshotFile;
+        this.cluster = cluster;
+        this.idleMillis = idleMillis;
+        this.statementCounter = statementCounter;
+        this.tradeAccepted = meterRegistry.timer("ledger.trade", "outcome", "accepted");
+        this.tradeRejected = meterRegistry.timer("ledger.trade", "outcome", "rejected");
+        this.flushTimer = meterRegistry.timer("ledger.flush");
+        this.flushAccounts = DistributionSummary.builder("ledger.flush.accounts")
+                .description("Accounts saved by one write-behind flush").register(meterRegistry);
+        this.flushStatements = DistributionSummary.builder("ledger.flush.statements")
+                .description("SQL statements run by one write-behind flush").register(meterRegistry);
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) stripes[i] = new ReentrantLock();
+    }
+
+    // --- READS ---
+
+    // Current picture of the account, or null if this user doesn't exist
+    public LedgerSnapshot find(long chatId) {
+        ReentrantLock lock = lockFor(chatId);
+        lock.lock();
+        try {
+            LedgerAccount account = account(chatId);
+            return account == null ? null : account.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Same as find(), but creates the user with the starting balance on first contact
+    public LedgerSnapshot getOrCreate(long chatId, String name) {
+        ReentrantLock lock = lockFor(chatId);
+        lock.lock();
+        try {
+            return accountOrCreate(chatId, name).snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- WRITES ---
+
+    // Applies a trade atomically: both checks and both changes happen under the user's lock.
+    // quantityDelta > 0 = coins in (buy), cashDelta < 0 = money out (buy). Amounts as FixedPoint longs.
+    public Update trade(long chatId, String name, String side, String symbol,
+                        long quantityDelta, long price, long cashDelta) {
+        return trade(chatId, name, side, symbol, quantityDelta, price, cashDelta, 0);
+    }
+
+    // Same, for the fill of a resting order: orderId is journaled with the trade (see class comment)
+    public Update trade(long chatId, String name, String side, String symbol,
+                        long quantityDelta, long price, long cashDelta, long orderId) {
+        // Includes waiting for the lock, so contention shows up here too
+        long start = System.nanoTime();
+        ReentrantLock lock = lockFor(chatId);
+        lock.lock();
+        try {
+            LedgerAccount account = accountOrCreate(chatId, name);
+
+            long newBalance = FixedPoint.add(account.balance, cashDelta);
+            long newHolding = FixedPoint.add(account.holding(symbol), quantityDelta);
+            if (newBalance < 0 || newHolding < 0) {
+                tradeRejected.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return new Update(false, account.balance, account.holding(symbol), account.lastSeq);
+            }
+
+            LedgerEntry entry = new LedgerEntry(sequence.incrementAndGet(), System.currentTimeMillis(),
+                    chatId, account.name, side, symbol, quantityDelta, price, cashDelta, orderId);
+
+            // Journal first: if the write fails, the trade fails and the account is left untouched
+            journal.append(entry);
+            apply(account, entry);
+            dirty.add(chatId);
+
+            if (!listeners.isEmpty()) {
+                LedgerSnapshot after = account.snapshot();
+                for (LedgerListener listener : listeners) listener.onTrade(entry, after);
+            }
+
+            tradeAccepted.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Update(true, account.balance, account.holding(symbol), entry.seq());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void register(LedgerListener listener) {
+        listeners.add(listener);
+    }
+
+    // --- WRITE-BEHIND ---
+
+    @Scheduled(fixedDelayString = "${ledger.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            save(List.copyOf(dirty));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Saves only these users' unsaved changes, in one transaction, right now (TradingService.spendBatch).
+    // Everybody else's wait for the scheduled flush.
+    public void flush(Collection<Long> chatIds) {
+        flushLock.lock();
+        try {
+            save(chatIds.stream().distinct().filter(dirty::contains).toList());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Writes every account to disk so the next startup only replays the journal tail
+    @Scheduled(fixedDelayString = "${ledger.snapshot-interval-ms:60000}", initialDelayString = "${ledger.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        // Read the seq BEFORE copying: every entry up to here has finished applying by the time
+        // we get each account's lock, so all of them are inside the copies.
+        long seq = sequence.get();
+        List<AccountSnapshotFile.Stored> stored = new ArrayList<>(accounts.size());
+        for (Long chatId : accounts.keySet()) {
+            // null = evicted meanwhile: it is fully saved in the DB, recovery loads it from there
+            AccountSnapshotFile.Stored copy = withLock(chatId,
+                    account -> account == null ? null
+                            : new AccountSnapshotFile.Stored(account.snapshot(), account.persistedSeq, List.copyOf(account.filledOrders)));
+            if (copy != null) stored.add(copy);
+        }
+        snapshotFile.write(seq, stored);
+    }
+
+    // Frees accounts nobody read or traded for ledger.cache.idle-ms. Only ones whose every trade
+    // is in the DB (not dirty, nothing waiting to be confirmed), so dropping them loses nothing.
+    @Scheduled(fixedDelayString = "${ledger.cache.evict-interval-ms:60000}")
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    void evictIdle(long now) {
+        for (Long chatId : accounts.keySet()) {
+            ReentrantLock lock = lockFor(chatId);
+            lock.lock();
+            try {
+                LedgerAccount account = accounts.get(chatId);
+                if (account != null && now - account.lastUsed > idleMillis
+                        && account.persistedSeq == account.lastSeq && !dirty.contains(chatId)) {
+                    accounts.remove(chatId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Newest first, straight from the journal (no DB involved)
+    public List<LedgerEntry> history(long chatId, int limit) {
+        return journal.history(chatId, limit);
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    public int getCachedAccounts() {
+        return accounts.size();
+    }
+
+    // --- RECOVERY ---
+
+    @PostConstruct
+    public void recover() {
+        // Every journal entry up to afterSeq is inside the snapshot (no snapshot: nothing is)
+        long afterSeq = 0;
+        AccountSnapshotFile.Contents contents = snapshotFile.read();
+        if (contents != null) {
+            afterSeq = contents.seq();
+            for (AccountSnapshotFile.Stored stored : contents.accounts()) {
+                LedgerSnapshot s = stored.account();
+                LedgerAccount account = LedgerAccount.of(s);
+                account.persistedSeq = stored.persistedSeq();
+                account.filledOrders.addAll(stored.filledOrders());
+                accounts.put(s.chatId(), account);
+                // The DB might not have the latest state of this one yet
+                if (account.lastSeq > account.persistedSeq) dirty.add(s.chatId());
+            }
+        }
+
+        // Whether an entry still has to be applied is decided per account, by the seq its
+        // snapshot copy or DB row already has. One cutoff for everybody (e.g. the highest seq
+        // in the DB) would skip the unsaved trades of accounts that were flushed less recently,
+        // and in cluster mode the DB also holds the other nodes' (unrelated) seqs.
+        // The snapshot seq is fine as a cutoff: it is this node's own, and so is the journal.
+        List<LedgerEntry> entries = journal.readAfter(afterSeq);
+        long maxSeq = afterSeq;
+        int replayed = 0;
+        int foreign = 0;
+        for (LedgerEntry entry : entries) {
+            maxSeq = Math.max(maxSeq, entry.seq());
+            // The user moved to another node (cluster.nodes changed): its state there wins,
+            // writing our old copy back would overwrite it
+            if (!cluster.isLocal(entry.chatId())) {
+                foreign++;
+                continue;
+            }
+            LedgerAccount account = accountOrCreate(entry.chatId(), entry.name());
+            // Already inside the snapshot / DB row
+            if (entry.seq() <= account.lastSeq) continue;
+            apply(account, entry);
+            dirty.add(entry.chatId());
+            replayed++;
+        }
+        // New entries are numbered after everything in the journal and the DB
+        sequence.accumulateAndGet(Math.max(maxSeq, ledgerStore.maxLedgerSeq()), Math::max);
+        if (replayed > 0) log.info("Ledger: replayed {} journal entries", replayed);
+        if (foreign > 0) log.warn("Ledger: skipped {} journal entries of users owned by other nodes", foreign);
+
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        snapshot();
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void apply(LedgerAccount account, LedgerEntry entry) {
+        account.balance = FixedPoint.add(account.balance, entry.cashDelta());
+        long[] holding = account.holdings.get(entry.symbol());
+        if (holding == null) {
+            account.holdings.put(entry.symbol(), new long[]{entry.quantityDelta()});
+        } else {
+            holding[0] = FixedPoint.add(holding[0], entry.quantityDelta());
+            // Remove the coin entirely so wallet doesn't show "BTC: 0.00000"
+            if (holding[0] == 0) account.holdings.remove(entry.symbol());
+        }
+        account.lastSeq = entry.seq();
+        if (entry.orderId() != 0) account.filledOrders.add(entry.orderId());
+    }
+
+    // Must be called with the stripe lock held
+    private LedgerAccount account(long chatId) {
+        LedgerAccount account = accounts.get(chatId);
+        if (account != null) {
+            account.lastUsed = System.currentTimeMillis();
+            return account;
+        }
+
+        LedgerSnapshot stored = ledgerStore.load(chatId);
+        if (stored == null) return null;
+
+        account = LedgerAccount.of(stored);
+        account.persistedSeq = stored.lastSeq(); // it came from the DB
+        account.lastUsed = System.currentTimeMillis();
+        accounts.put(chatId, account);
+        // The row may have been written by another node (cluster) with a higher sequence:
+        // our next entries must still come after it, or the DB would refuse them as older.
+        // (Recovery compares seqs per account, so a jump here never hides journal entries.)
+        sequence.accumulateAndGet(stored.lastSeq(), Math::max);
+        return account;
+    }
+
+    // Must be called with the stripe lock held
+    private LedgerAccount accountOrCreate(long chatId, String name) {
+        LedgerAccount account = account(chatId);
+        if (account != null) return account;
+
+        account = new LedgerAccount(chatId, name, STARTING_CENTS, 0);
+        account.persistedSeq = -1; // no DB row yet: never evicted before the first flush
+        account.lastUsed = System.currentTimeMillis();
+        accounts.put(chatId, account);
+        dirty.add(chatId);
+        return account;
+    }
+
+    // Writes these accounts in one transaction. Only called with flushLock held.
+    private void save(List<Long> chatIds) {
+        if (chatIds.isEmpty()) return;
+
+        List<LedgerSnapshot> batch = new ArrayList<>(chatIds.size());
+        // Taken with the same lock as the snapshot: exactly the orders filled by the trades in it
+        List<Long> filledOrders = new ArrayList<>();
+        for (Long chatId : chatIds) {
+            dirty.remove(chatId);
+            batch.add(withLock(chatId, account -> {
+                filledOrders.addAll(account.filledOrders);
+                return account.snapshot();
+            }));
+        }
+
+        long start = System.nanoTime();
+        long statementsBefore = statementCounter.currentThread();
+        try {
+            ledgerStore.save(batch, filledOrders);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            flushAccounts.record(batch.size());
+            flushStatements.record(statementCounter.currentThread() - statementsBefore);
+            for (LedgerSnapshot saved : batch) {
+                withLock(saved.chatId(), account -> {
+                    account.persistedSeq = Math.max(account.persistedSeq, saved.lastSeq());
+                    // Fills that came in during the save stay for the next flush
+                    return account.filledOrders.removeAll(filledOrders);
+                });
+            }
+        } catch (RuntimeException e) {
+            // DB is down: the journal still has the trades, try these accounts again next time
+            batch.forEach(s -> dirty.add(s.chatId()));
+            log.warn("Ledger flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    // Runs "action" on a cached account (null if it isn't cached) while holding its stripe lock
+    private <T> T withLock(long chatId, Function<LedgerAccount, T> action) {
+        ReentrantLock lock = lockFor(chatId);
+        lock.lock();
+        try {
+            return action.apply(accounts.get(chatId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(long chatId) {
+        // Spread the bits so consecutive ids don't all land on neighbouring stripes
+        long h = chatId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) ((h >>> 32) % stripes.length)];
+    }
+}
@@ -0,0 +1,15 @@
+package com.learning.cryptobot.service;
+
+import java.util.Map;
+
+/**
+ * Read-only picture of an account at one moment (balance + coins).
+ * balance is in cents, holdings in units of 1e-8 (see FixedPoint).
+ */
+public record LedgerSnapshot(long chatId, String name, long balance,
+                             Map<String, Long> holdings, long lastSeq) {
+
+    public long holding(String symbol) {
+        return holdings.getOrDefault(symbol, 0L);
+    }
+}
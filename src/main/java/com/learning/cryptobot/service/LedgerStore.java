@@ -0,0 +1,176 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.entity.Asset;
+import com.learning.cryptobot.entity.User;
+import com.learning.cryptobot.metrics.StatementCounter;
+import com.learning.cryptobot.repository.AssetRepository;
+import com.learning.cryptobot.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * LedgerStore
+ * The only place where ledger data goes in / out of the database.
+ * Kept separate from LedgerService so @Transactional works (Spring can't wrap calls inside the same class).
+ *
+ * The hot paths use plain SQL (JdbcTemplate) instead of load-then-save through JPA:
+ * - load(): ONE query (user joined with coins).
+ * - save(): three JDBC batches for the whole flush, however many accounts:
+ *   upsert users, upsert coins (MERGE on the unique (chat_id, symbol) index), delete sold-out coins.
+ *   Plus a fourth one deleting the open orders those trades filled, so an order and its fill
+ *   are saved together (never filled twice after a restart, never lost without its fill).
+ * This is also where the ledger's FixedPoint longs become the DB's decimal columns and back.
+ */
+@Service
+public class LedgerStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerStore.class);
+
+    // Insert or update the user. Only overwrites an older state (ledger_seq), and bumps the @Version
+    // column so a JPA writer holding an old copy of the row fails instead of overwriting the balance.
+    private static final String UPSERT_USER = """
+            merge into users u
+            using (values (cast(? as bigint), cast(? as varchar(255)), cast(? as numeric(18, 2)), cast(? as bigint)))
+                  s(chat_id, name, balance, ledger_seq)
+            on u.chat_id = s.chat_id
+            when matched and u.ledger_seq <= s.ledger_seq then
+                update set name = s.name, balance = s.balance, ledger_seq = s.ledger_seq, version = u.version + 1
+            when not matched then
+                insert (chat_id, name, balance, ledger_seq, version) values (s.chat_id, s.name, s.balance, s.ledger_seq, 0)
+            """;
+
+    private static final String UPSERT_ASSET = """
+            merge into asset a
+            using (values (cast(? as bigint), cast(? as varchar(255)), cast(? as numeric(18, 8)))) s(chat_id, symbol, quantity)
+            on a.chat_id = s.chat_id and a.symbol = s.symbol
+            when matched then update set quantity = s.quantity
+            when not matched then insert (chat_id, symbol, quantity) values (s.chat_id, s.symbol, s.quantity)
+            """;
+
+    // Coins the account doesn't hold any more (the parameter is the array of coins it still holds)
+    private static final String DELETE_SOLD_OUT = "delete from asset where chat_id = ? and not (symbol = any(?))";
+
+    private static final String DELETE_FILLED_ORDER = "delete from open_order where id = ?";
+
+    private static final String LOAD_ACCOUNT = """
+            select u.name, u.balance, u.ledger_seq, a.symbol, a.quantity
+            from users u left join asset a on a.chat_id = u.chat_id
+            where u.chat_id = ?
+            """;
+
+    private final UserRepository userRepository;
+    private final AssetRepository assetRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StatementCounter statementCounter;
+
+    public LedgerStore(UserRepository userRepository, AssetRepository assetRepository,
+                       JdbcTemplate jdbcTemplate, StatementCounter statementCounter) {
+        this.userRepository = userRepository;
+        this.assetRepository = assetRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.statementCounter = statementCounter;
+    }
+
+    // Reads a user + coins from the DB in one query. Returns null if the user never traded.
+    public LedgerSnapshot load(long chatId) {
+        statementCounter.record(1);
+        return jdbcTemplate.query(LOAD_ACCOUNT, rs -> {
+            if (!rs.next()) return null;
+
+            String name = rs.getString("name");
+            long balance = FixedPoint.money(rs.getBigDecimal("balance"));
+            long seq = rs.getLong("ledger_seq");
+            Map<String, Long> holdings = new HashMap<>();
+            do {
+                // Left join: a user without coins gives one row with a null symbol
+                String symbol = rs.getString("symbol");
+                if (symbol != null) holdings.put(symbol, FixedPoint.quantity(rs.getBigDecimal("quantity")));
+            } while (rs.next());
+            return new LedgerSnapshot(chatId, name, balance, holdings, seq);
+        }, chatId);
+    }
+
+    // Walks every saved account, one page of users (+ their coins) at a time,
+    // so a million users never sit in memory as entities at once
+    public void forEachAccount(int pageSize, Consumer<LedgerSnapshot> consumer) {
+        Pageable page = PageRequest.of(0, pageSize, Sort.by("chatId"));
+        while (true) {
+            Page<User> users = userRepository.findAll(page);
+            if (users.isEmpty()) return;
+
+            Map<Long, Map<String, Long>> holdings = new HashMap<>();
+            List<Long> ids = users.getContent().stream().map(User::getChatId).toList();
+            for (Asset asset : assetRepository.findByChatIdIn(ids)) {
+                holdings.computeIfAbsent(asset.getChatId(), id -> new HashMap<>())
+                        .merge(asset.getSymbol(), FixedPoint.quantity(asset.getQuantity()), FixedPoint::add);
+            }
+            for (User user : users) {
+                consumer.accept(new LedgerSnapshot(user.getChatId(), user.getName(), FixedPoint.money(user.getBalance()),
+                        holdings.getOrDefault(user.getChatId(), Map.of()), user.getLedgerSeq()));
+            }
+            if (!users.hasNext()) return;
+            page = users.nextPageable();
+        }
+    }
+
+    public long maxLedgerSeq() {
+        return userRepository.findMaxLedgerSeq();
+    }
+
+    // Saves many accounts in ONE transaction (write-behind flush), with three JDBC batches,
+    // and removes the resting orders (ids) whose fills are part of these accounts
+    @Transactional
+    public void save(List<LedgerSnapshot> snapshots, List<Long> filledOrders) {
+        if (snapshots.isEmpty()) return;
+
+        List<Object[]> userRows = new ArrayList<>(snapshots.size());
+        for (LedgerSnapshot s : snapshots) {
+            userRows.add(new Object[]{s.chatId(), s.name(), FixedPoint.toMoney(s.balance()), s.lastSeq()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPSERT_USER, userRows);
+        statementCounter.record(userRows.size());
+
+        List<Object[]> assetRows = new ArrayList<>();
+        List<LedgerSnapshot> written = new ArrayList<>(snapshots.size());
+        for (int i = 0; i < snapshots.size(); i++) {
+            LedgerSnapshot s = snapshots.get(i);
+            // 0 rows = the DB already has a newer state of this account (another writer), leave its coins alone
+            if (updated[i] == 0) {
+                log.debug("Ledger: DB has a newer state for {}, skipped seq {}", s.chatId(), s.lastSeq());
+                continue;
+            }
+            written.add(s);
+            s.holdings().forEach((symbol, quantity) -> assetRows.add(new Object[]{s.chatId(), symbol, FixedPoint.toQuantity(quantity)}));
+        }
+        if (!assetRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ASSET, assetRows);
+            statementCounter.record(assetRows.size());
+        }
+
+        if (!written.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SOLD_OUT, written, written.size(), (ps, s) -> {
+                ps.setLong(1, s.chatId());
+                ps.setArray(2, ps.getConnection().createArrayOf("VARCHAR", s.holdings().keySet().toArray()));
+            });
+            statementCounter.record(written.size());
+        }
+
+        if (!filledOrders.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_FILLED_ORDER, filledOrders, filledOrders.size(), (ps, id) -> ps.setLong(1, id));
+            statementCounter.record(filledOrders.size());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LivePriceTable
+ * The latest ticker for every symbol the stream has told us about.
+ * Writers (the feed) just replace the entry, readers never take a lock,
+ * so a price lookup is a single hash map read.
+ */
+@Component
+public class LivePriceTable {
+
+    // Ticker + when it arrived, swapped as one object so readers never see half an update
+    private record Slot(BinanceTickerDto ticker, long receivedAt) {}
+
+    private final Map<String, Slot> table = new ConcurrentHashMap<>();
+
+    // Prices older than this are ignored (e.g. the stream silently died)
+    private final long maxAgeMillis;
+
+    public LivePriceTable(@Value("${binance.stream.max-age-ms:10000}") long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public void update(BinanceTickerDto ticker) {
+        table.put(ticker.getSymbol(), new Slot(ticker, System.currentTimeMillis()));
+    }
+
+    // Returns the streamed ticker, or null if we have nothing recent for this symbol
+    public BinanceTickerDto get(String symbol) {
+        Slot slot = table.get(symbol);
+        if (slot == null || System.currentTimeMillis() - slot.receivedAt() > maxAgeMillis) return null;
+        return slot.ticker();
+    }
+
+    // Last streamed ticker no matter how old (fallback when Binance is unreachable), or null
+    public BinanceTickerDto getLatest(String symbol) {
+        Slot slot = table.get(symbol);
+        return slot == null ? null : slot.ticker();
+    }
+
+    public int size() {
+        return table.size();
+    }
+}
@@ -0,0 +1,239 @@
+package com.learning.cryptobot.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * LiveUpdateHub
+ * Pushes prices and wallet values to open browser tabs (Server-Sent Events),
+ * so the dashboard updates itself instead of the user reloading /price and /wallet.
+ *
+ * All tabs watching a symbol share the same upstream price: the hub tells
+ * MarketWatchScheduler which symbols to poll (once per interval, for everybody)
+ * and fans each tick out to every subscriber.
+ */
+@Service
+public class LiveUpdateHub implements PriceTickListener, LedgerListener {
+
+    // Browser tabs stay connected for 30 minutes, then EventSource reconnects by itself
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final BinancePriceService binancePriceService;
+    private final LedgerService ledgerService;
+    private final MarketTickBus tickBus;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // "BTCUSDT" -> tabs showing its price
+    private final Map<String, Set<SseEmitter>> priceSubscribers = new ConcurrentHashMap<>();
+    // chatId -> tabs showing that user's wallet
+    private final Map<Long, Set<SseEmitter>> walletSubscribers = new ConcurrentHashMap<>();
+    // chatId -> coins in that wallet (only for users with an open wallet tab)
+    private final Map<Long, Set<String>> walletSymbols = new ConcurrentHashMap<>();
+    // Last price seen for every symbol, used to value wallets without asking Binance
+    private final Map<String, BigDecimal> lastPrices = new ConcurrentHashMap<>();
+    // Wallets already waiting for a push, so a batch of 10 ticks sends ONE wallet update
+    private final Set<Long> pendingWallets = ConcurrentHashMap.newKeySet();
+
+    // Sending is done here, never on the thread that received the price
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sse-fanout");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LiveUpdateHub(BinancePriceService binancePriceService, LedgerService ledgerService, MarketTickBus tickBus) {
+        this.binancePriceService = binancePriceService;
+        this.ledgerService = ledgerService;
+        this.tickBus = tickBus;
+    }
+
+    @PostConstruct
+    public void init() {
+        tickBus.register(this);
+        ledgerService.register(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdownNow();
+    }
+
+    // --- SUBSCRIBE ---
+
+    public SseEmitter subscribePrices(Collection<String> symbols) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+
+        // Send what we have right away (one batch request at most), then only changes
+        Map<String, BinanceTickerDto> current = binancePriceService.getDataBatch(symbols);
+        if (current.isEmpty()) throw new IllegalArgumentException("No valid symbols in " + symbols);
+        for (String symbol : current.keySet()) {
+            priceSubscribers.computeIfAbsent(symbol, s -> ConcurrentHashMap.newKeySet()).add(emitter);
+        }
+        Runnable cleanup = () -> current.keySet().forEach(symbol -> unsubscribe(priceSubscribers, symbol, emitter));
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+
+        current.values().forEach(ticker -> send(emitter, "price", priceJson(ticker)));
+        return emitter;
+    }
+
+    public SseEmitter subscribeWallet(long chatId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        walletSubscribers.computeIfAbsent(chatId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+
+        Runnable cleanup = () -> {
+            unsubscribe(walletSubscribers, chatId, emitter);
+            if (!walletSubscribers.containsKey(chatId)) walletSymbols.remove(chatId);
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+
+        LedgerSnapshot account = ledgerService.find(chatId);
+        if (account != null) {
+            walletSymbols.put(chatId, Set.copyOf(account.holdings().keySet()));
+            binancePriceService.getDataBatch(account.holdings().keySet())
+                    .forEach((symbol, ticker) -> lastPrices.put(symbol, ticker.getLastPrice()));
+            send(emitter, "wallet", walletJson(account));
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Set<SseEmitter> set : priceSubscribers.values()) count += set.size();
+        for (Set<SseEmitter> set : walletSubscribers.values()) count += set.size();
+        return count;
+    }
+
+    // --- EVENTS ---
+
+    @Override
+    public void onTick(BinanceTickerDto ticker) {
+        String symbol = ticker.getSymbol();
+        BigDecimal previous = lastPrices.put(symbol, ticker.getLastPrice());
+        // Same price as last time (e.g. a cached answer): nothing new to show
+        if (previous != null && previous.compareTo(ticker.getLastPrice()) == 0) return;
+
+        Set<SseEmitter> tabs = priceSubscribers.get(symbol);
+        if (tabs != null && !tabs.isEmpty()) {
+            // JSON is built once and sent to every tab
+            String json = priceJson(ticker);
+            fanOut.execute(() -> tabs.forEach(emitter -> send(emitter, "price", json)));
+        }
+
+        // Wallets holding this coin changed value
+        for (Map.Entry<Long, Set<String>> wallet : walletSymbols.entrySet()) {
+            if (wallet.getValue().contains(symbol)) schedulePush(wallet.getKey());
+        }
+    }
+
+    @Override
+    public void onTrade(LedgerEntry entry, LedgerSnapshot account) {
+        if (!walletSubscribers.containsKey(account.chatId())) return;
+        walletSymbols.put(account.chatId(), Set.copyOf(account.holdings().keySet()));
+        lastPrices.put(entry.symbol(), FixedPoint.toPrice(entry.price()));
+        schedulePush(account.chatId());
+    }
+
+    @Override
+    public Set<String> watchedSymbols() {
+        Set<String> symbols = new HashSet<>();
+        priceSubscribers.forEach((symbol, tabs) -> {
+            if (!tabs.isEmpty()) symbols.add(symbol);
+        });
+        walletSymbols.values().forEach(symbols::addAll);
+        return symbols;
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void schedulePush(long chatId) {
+        if (!pendingWallets.add(chatId)) return;
+        fanOut.execute(() -> {
+            pendingWallets.remove(chatId);
+            pushWallet(chatId);
+        });
+    }
+
+    private void pushWallet(long chatId) {
+        Set<SseEmitter> tabs = walletSubscribers.get(chatId);
+        if (tabs == null || tabs.isEmpty()) return;
+        LedgerSnapshot account = ledgerService.find(chatId);
+        if (account == null) return;
+
+        String json = walletJson(account);
+        tabs.forEach(emitter -> send(emitter, "wallet", json));
+    }
+
+    private String priceJson(BinanceTickerDto ticker) {
+        return toJson(ticker);
+    }
+
+    private String walletJson(LedgerSnapshot account) {
+        long total = account.balance();
+        List<Map<String, Object>> holdings = new ArrayList<>();
+        for (Map.Entry<String, Long> h : new TreeMap<>(account.holdings()).entrySet()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("symbol", h.getKey());
+            row.put("quantity", FixedPoint.formatPlain(h.getValue(), FixedPoint.QUANTITY_SCALE));
+            BigDecimal price = lastPrices.get(h.getKey());
+            if (price != null) {
+                long value = FixedPoint.cost(FixedPoint.price(price), h.getValue());
+                row.put("price", price.toPlainString());
+                row.put("value", FixedPoint.format(value, FixedPoint.MONEY_SCALE, 2));
+                total = FixedPoint.add(total, value);
+            }
+            holdings.add(row);
+        }
+
+        Map<String, Object> wallet = new LinkedHashMap<>();
+        wallet.put("balance", FixedPoint.format(account.balance(), FixedPoint.MONEY_SCALE, 2));
+        wallet.put("holdings", holdings);
+        wallet.put("total", FixedPoint.format(total, FixedPoint.MONEY_SCALE, 2));
+        return toJson(wallet);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void send(SseEmitter emitter, String event, String json) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(json));
+        } catch (Exception e) {
+            // Tab closed: Spring calls onError / onCompletion, which unsubscribes it
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static <K> void unsubscribe(Map<K, Set<SseEmitter>> map, K key, SseEmitter emitter) {
+        map.computeIfPresent(key, (k, set) -> {
+            set.remove(emitter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
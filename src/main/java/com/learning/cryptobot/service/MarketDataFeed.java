@@ -0,0 +1,19 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+
+import java.util.function.Consumer;
+
+/**
+ * MarketDataFeed
+ * Something that pushes tickers to us (instead of us pulling them one by one).
+ * The real one is the Binance WebSocket, a replay file can stand in for it in tests.
+ */
+public interface MarketDataFeed {
+
+    // Starts delivering tickers to the listener. Must not block the caller.
+    void start(Consumer<BinanceTickerDto> listener);
+
+    // Stops the feed and releases its connection / thread
+    void stop();
+}
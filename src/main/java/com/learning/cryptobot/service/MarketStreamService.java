@@ -0,0 +1,64 @@
+package com.learning.cryptobot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MarketStreamService
+ * Optional "streaming mode": when binance.stream.enabled=true, a feed keeps
+ * LivePriceTable hot so price lookups read memory instead of calling Binance.
+ */
+@Service
+public class MarketStreamService {
+
+    private final LivePriceTable livePriceTable;
+    private final MarketTickBus tickBus;
+    private final boolean enabled;
+    private final MarketDataFeed feed;
+
+    public MarketStreamService(LivePriceTable livePriceTable, MarketTickBus tickBus,
+                               @Value("${binance.stream.enabled:false}") boolean enabled,
+                               @Value("${binance.stream.source:websocket}") String source,
+                               @Value("${binance.stream.url:wss://stream.binance.com:9443}") String url,
+                               @Value("${binance.stream.symbols:}") String symbols,
+                               @Value("${binance.stream.replay-file:}") String replayFile,
+                               @Value("${binance.stream.replay-delay-ms:0}") long replayDelayMillis) {
+        this.livePriceTable = livePriceTable;
+        this.tickBus = tickBus;
+        this.enabled = enabled;
+
+        // Pick where the ticks come from: the real exchange or a recorded file
+        if ("replay".equalsIgnoreCase(source)) {
+            this.feed = new ReplayFileFeed(Path.of(replayFile), replayDelayMillis);
+        } else {
+            List<String> symbolList = Arrays.stream(symbols.split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .toList();
+            this.feed = new BinanceStreamFeed(url, symbolList);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) feed.start(ticker -> {
+            livePriceTable.update(ticker);
+            tickBus.publish(ticker);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (enabled) feed.stop();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,49 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * MarketTickBus
+ * Hands every fresh ticker to the engines that react to prices (orders, alerts ...).
+ * Listeners register themselves at startup, which keeps BinancePriceService free of
+ * dependencies on them (they all depend on BinancePriceService).
+ */
+@Component
+public class MarketTickBus {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketTickBus.class);
+
+    // Written a few times at startup, read on every tick: copy-on-write fits
+    private final List<PriceTickListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void register(PriceTickListener listener) {
+        listeners.add(listener);
+    }
+
+    public void publish(BinanceTickerDto ticker) {
+        if (ticker == null || ticker.getLastPrice() == null) return;
+        for (PriceTickListener listener : listeners) {
+            try {
+                listener.onTick(ticker);
+            } catch (Exception e) {
+                // One broken listener must not stop prices reaching the others
+                log.error("{} failed on a {} tick", listener.getClass().getSimpleName(), ticker.getSymbol(), e);
+            }
+        }
+    }
+
+    // Union of the symbols every listener wants to keep fresh
+    public Set<String> watchedSymbols() {
+        Set<String> symbols = new HashSet<>();
+        for (PriceTickListener listener : listeners) symbols.addAll(listener.watchedSymbols());
+        return symbols;
+    }
+}
@@ -0,0 +1,39 @@
+package com.learning.cryptobot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * MarketWatchScheduler
+ * Every few seconds, fetches the price of every symbol some engine is watching,
+ * all in one batch request. It goes through BinancePriceService (so the cache / stream
+ * is used first) and new prices reach the engines through MarketTickBus.
+ */
+@Component
+public class MarketWatchScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketWatchScheduler.class);
+
+    private final MarketTickBus tickBus;
+    private final BinancePriceService binancePriceService;
+
+    public MarketWatchScheduler(MarketTickBus tickBus, BinancePriceService binancePriceService) {
+        this.tickBus = tickBus;
+        this.binancePriceService = binancePriceService;
+    }
+
+    @Scheduled(fixedDelayString = "${market.watch.interval-ms:2000}")
+    public void poll() {
+        Set<String> watched = tickBus.watchedSymbols();
+        if (watched.isEmpty()) return;
+        try {
+            binancePriceService.getDataBatch(watched);
+        } catch (Exception e) {
+            log.warn("Price poll failed for {}: {}", watched, e.getMessage());
+        }
+    }
+}
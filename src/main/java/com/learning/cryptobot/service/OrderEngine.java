@@ -0,0 +1,175 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.entity.OpenOrder;
+import com.learning.cryptobot.repository.OpenOrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * OrderEngine
+ * Resting limit / stop-loss / take-profit orders.
+ *
+ * Open orders are kept per symbol in a ThresholdIndex (sorted by trigger price),
+ * so each price tick only touches the orders it actually crosses.
+ * Triggered orders are filled at the tick price through TradingService on a
+ * separate thread, so the thread that delivered the price isn't slowed down.
+ *
+ * A fill and the removal of its order are one step: the ledger journals the order id
+ * with the trade, and the flush that saves the trade deletes the open_order row in the
+ * same transaction. A crash in between replays both, so an order is never filled twice.
+ * Nothing is set aside when an order is placed: two BUY orders can trigger against the
+ * same money. Each fill is checked against the balance of that moment, and an order the
+ * ledger rejects (or that fails) is cancelled and the user told why. It is not retried.
+ */
+@Service
+public class OrderEngine implements PriceTickListener {
+
+    private final OpenOrderRepository openOrderRepository;
+    private final TradingService tradingService;
+    private final MarketTickBus tickBus;
+    private final UserNotifier notifier;
+    private final ClusterTopology cluster;
+
+    // "BTCUSDT" -> orders of that symbol sorted by price
+    private final Map<String, ThresholdIndex<OpenOrder>> books = new ConcurrentHashMap<>();
+    // Every open order by id. Whoever removes an order from here first (fill or cancel) owns it.
+    private final Map<Long, OpenOrder> openOrders = new ConcurrentHashMap<>();
+
+    private final ExecutorService fillExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "order-fills");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public OrderEngine(OpenOrderRepository openOrderRepository, TradingService tradingService,
+                       MarketTickBus tickBus, UserNotifier notifier, ClusterTopology cluster) {
+        this.openOrderRepository = openOrderRepository;
+        this.tradingService = tradingService;
+        this.tickBus = tickBus;
+        this.notifier = notifier;
+        this.cluster = cluster;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Orders survive restarts: load them back into the price index.
+        // In cluster mode only our own users' orders, so no order is filled twice.
+        openOrderRepository.findAll().stream().filter(o -> cluster.isLocal(o.getChatId())).forEach(this::index);
+        tickBus.register(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fillExecutor.shutdown();
+    }
+
+    // --- USER ACTIONS ---
+
+    public OpenOrder place(long chatId, String userName, OpenOrder.Side side, OpenOrder.Type type,
+                           String symbol, BigDecimal quantity, BigDecimal triggerPrice) {
+        if (triggerPrice == null || triggerPrice.signum() <= 0) throw new IllegalArgumentException("Price must be greater than 0");
+        if (side == OpenOrder.Side.BUY && type != OpenOrder.Type.LIMIT) {
+            throw new IllegalArgumentException("Only limit orders can buy");
+        }
+
+        // No funds / coins are reserved here, the fill checks them (see class comment)
+        OpenOrder order = new OpenOrder(chatId, userName, tradingService.symbolFormat(symbol), side, type,
+                tradingService.toQuantity(quantity), triggerPrice);
+        order = openOrderRepository.save(order);
+        index(order);
+        return order;
+    }
+
+    public boolean cancel(long chatId, long orderId) {
+        OpenOrder order = openOrders.get(orderId);
+        if (order == null || order.getChatId() != chatId) return false;
+        if (!openOrders.remove(orderId, order)) return false; // just got filled
+
+        books.get(order.getSymbol()).remove(FixedPoint.price(order.getTriggerPrice()), direction(order), order);
+        openOrderRepository.deleteById(orderId);
+        return true;
+    }
+
+    public List<OpenOrder> list(long chatId) {
+        // A filled order's row stays until the ledger's next flush: only show the ones still open
+        return openOrderRepository.findByChatId(chatId).stream().filter(o -> openOrders.containsKey(o.getId())).toList();
+    }
+
+    public int getOpenOrderCount() {
+        return openOrders.size();
+    }
+
+    // --- PRICE TICKS ---
+
+    @Override
+    public void onTick(BinanceTickerDto ticker) {
+        ThresholdIndex<OpenOrder> book = books.get(ticker.getSymbol());
+        if (book == null) return;
+
+        // Converted once, every order of the tick compares and fills with the same long
+        long price = FixedPoint.price(ticker.getLastPrice());
+        for (OpenOrder order : book.drainCrossed(price)) {
+            if (openOrders.remove(order.getId(), order)) {
+                fillExecutor.execute(() -> fill(order, price));
+            }
+        }
+    }
+
+    @Override
+    public Set<String> watchedSymbols() {
+        return books.entrySet().stream()
+                .filter(e -> e.getValue().size() > 0)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void fill(OpenOrder order, long price) {
+        String report;
+        try {
+            long quantity = FixedPoint.quantity(order.getQuantity());
+            report = order.getSide() == OpenOrder.Side.BUY
+                    ? tradingService.buyAt(order.getChatId(), order.getUserName(), order.getSymbol(), quantity, price, order.getId())
+                    : tradingService.sellAt(order.getChatId(), order.getUserName(), order.getSymbol(), quantity, price, order.getId());
+        } catch (Exception e) {
+            report = "Transaction Failed: " + e.getMessage();
+        }
+
+        String title = "📌 " + order.getType() + " order #" + order.getId();
+        if (report.startsWith("✅")) {
+            // Filled: the ledger deletes the row together with the trade
+            notifier.notify(order.getChatId(), title + " triggered\n" + report);
+            return;
+        }
+        // Rejected (e.g. another order already spent the money) or failed: nothing was traded
+        openOrderRepository.deleteById(order.getId());
+        notifier.notify(order.getChatId(), title + " triggered but could not be filled, it is cancelled\n" + report);
+    }
+
+    private void index(OpenOrder order) {
+        openOrders.put(order.getId(), order);
+        books.computeIfAbsent(order.getSymbol(), s -> new ThresholdIndex<>())
+                .add(FixedPoint.price(order.getTriggerPrice()), direction(order), order);
+    }
+
+    // Buy limit waits for the price to DROP to it, stop-loss too. Sell limit / take-profit wait for a RISE.
+    private static ThresholdIndex.Direction direction(OpenOrder order) {
+        if (order.getSide() == OpenOrder.Side.BUY || order.getType() == OpenOrder.Type.STOP) {
+            return ThresholdIndex.Direction.BELOW;
+        }
+        return ThresholdIndex.Direction.ABOVE;
+    }
+}
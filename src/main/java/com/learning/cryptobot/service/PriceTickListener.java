@@ -0,0 +1,20 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+
+import java.util.Set;
+
+/**
+ * Something that wants to hear about every new price we receive (from REST or the stream).
+ */
+public interface PriceTickListener {
+
+    // Called on the thread that received the price, so keep it quick
+    void onTick(BinanceTickerDto ticker);
+
+    // Symbols this listener needs prices for even if no user asks (e.g. open orders).
+    // MarketWatchScheduler polls them so ticks keep coming.
+    default Set<String> watchedSymbols() {
+        return Set.of();
+    }
+}
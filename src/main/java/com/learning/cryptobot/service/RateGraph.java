@@ -0,0 +1,227 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.TradingPair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RateGraph
+ * Every coin / currency is a node, every Binance pair an edge between its two assets
+ * (ETHBTC: 1 ETH = price BTC one way, 1 BTC = 1 / price ETH the other way).
+ * Any cross rate is then the product of the edges along a path: ETH -> USDT -> BTC.
+ *
+ * Paths use as few hops as possible, and only edges we have a price for, so a conversion never
+ * needs Binance once its legs are known. A path is found once and kept ("route"): a new price
+ * only marks the routes that go through that one pair as changed, and their rate is multiplied
+ * again the next time somebody asks. Thread safe, every method holds the lock for a short time.
+ */
+public class RateGraph {
+
+    // Longer chains than this are not worth the rounding (and no real pair needs them)
+    private static final int MAX_HOPS = 4;
+    // FixedPoint price -> real number
+    private static final double PRICE_UNIT = 1e8;
+
+    // 1 "from" = rate "to", going through these assets and pairs. fresh = no leg is too old.
+    public record Conversion(String from, String to, double rate, List<String> assets, List<String> symbols, boolean fresh) {}
+
+    // inverse[i] = pair i is walked quote -> base
+    private static final class Route {
+        final int[] pairs;
+        final boolean[] inverse;
+        final int[] assets;
+        double rate;
+        boolean dirty = true;
+
+        Route(int[] pairs, boolean[] inverse, int[] assets) {
+            this.pairs = pairs;
+            this.inverse = inverse;
+            this.assets = assets;
+        }
+    }
+
+    // Nodes
+    private final Map<String, Integer> assetIds = new HashMap<>();
+    private final List<String> assetNames = new ArrayList<>();
+    // Edges: one per pair, both directions
+    private final Map<String, Integer> pairIds = new HashMap<>();
+    private final String[] symbols;
+    private final int[] bases;
+    private final int[] quotes;
+    private final int[][] pairsOfAsset;
+    // Latest price of every pair (FixedPoint, and as a double for multiplying) and when it came
+    private final long[] prices;
+    private final double[] rates;
+    private final long[] updatedAt;
+
+    // (from, to) -> route, and pair -> routes that use it (to mark them changed on a tick)
+    private final Map<Long, Route> routes = new HashMap<>();
+    private final List<List<Route>> routesByPair;
+
+    public RateGraph(Collection<TradingPair> tradingPairs) {
+        int n = tradingPairs.size();
+        symbols = new String[n];
+        bases = new int[n];
+        quotes = new int[n];
+        prices = new long[n];
+        rates = new double[n];
+        updatedAt = new long[n];
+        routesByPair = new ArrayList<>(n);
+
+        List<List<Integer>> adjacency = new ArrayList<>();
+        int p = 0;
+        for (TradingPair pair : tradingPairs) {
+            symbols[p] = pair.symbol();
+            bases[p] = assetId(pair.baseAsset(), adjacency);
+            quotes[p] = assetId(pair.quoteAsset(), adjacency);
+            adjacency.get(bases[p]).add(p);
+            adjacency.get(quotes[p]).add(p);
+            pairIds.put(pair.symbol(), p);
+            routesByPair.add(new ArrayList<>(0));
+            p++;
+        }
+        pairsOfAsset = new int[adjacency.size()][];
+        for (int a = 0; a < adjacency.size(); a++) {
+            pairsOfAsset[a] = adjacency.get(a).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // A new price for one pair: touches that edge and the routes through it, nothing else
+    public synchronized void update(String symbol, long price, long timeMillis) {
+        Integer p = pairIds.get(symbol);
+        if (p == null || price <= 0) return;
+        boolean newEdge = updatedAt[p] == 0;
+        prices[p] = price;
+        rates[p] = price / PRICE_UNIT;
+        updatedAt[p] = timeMillis;
+
+        if (newEdge) {
+            // A pair priced for the first time can make shorter paths possible: find them again
+            routes.clear();
+            routesByPair.forEach(List::clear);
+        } else {
+            for (Route route : routesByPair.get(p)) route.dirty = true;
+        }
+    }
+
+    // The rate from -> to over priced edges, null if no such path. fresh = every leg is at most maxAgeMillis old.
+    public synchronized Conversion convert(String from, String to, long now, long maxAgeMillis) {
+        Integer a = assetIds.get(from), b = assetIds.get(to);
+        if (a == null || b == null) return null;
+        if (a.equals(b)) return new Conversion(from, to, 1, List.of(from), List.of(), true);
+
+        long key = (long) a << 32 | b;
+        Route route = routes.get(key);
+        if (route == null) {
+            route = search(a, b, true);
+            if (route == null) return null;
+            routes.put(key, route);
+            for (int p : route.pairs) routesByPair.get(p).add(route);
+        }
+        if (route.dirty) {
+            double rate = 1;
+            for (int i = 0; i < route.pairs.length; i++) {
+                rate = route.inverse[i] ? rate / rates[route.pairs[i]] : rate * rates[route.pairs[i]];
+            }
+            route.rate = rate;
+            route.dirty = false;
+        }
+
+        boolean fresh = true;
+        List<String> legs = new ArrayList<>(route.pairs.length);
+        for (int p : route.pairs) {
+            legs.add(symbols[p]);
+            if (now - updatedAt[p] > maxAgeMillis) fresh = false;
+        }
+        List<String> path = new ArrayList<>(route.assets.length);
+        for (int asset : route.assets) path.add(assetNames.get(asset));
+        return new Conversion(from, to, route.rate, path, legs, fresh);
+    }
+
+    // Pairs whose price is missing or older than maxAgeMillis on the best path from -> to
+    // (the shortest path over priced edges if there is one, else over every listed pair).
+    // Fetching these is all it takes to convert.
+    public synchronized List<String> legsToRefresh(String from, String to, long now, long maxAgeMillis) {
+        Integer a = assetIds.get(from), b = assetIds.get(to);
+        if (a == null || b == null || a.equals(b)) return List.of();
+        Route route = search(a, b, true);
+        if (route == null) route = search(a, b, false);
+        if (route == null) return List.of();
+
+        List<String> legs = new ArrayList<>();
+        for (int p : route.pairs) {
+            if (updatedAt[p] == 0 || now - updatedAt[p] > maxAgeMillis) legs.add(symbols[p]);
+        }
+        return legs;
+    }
+
+    // Last price of a pair if it's at most maxAgeMillis old, else -1
+    public synchronized long freshPrice(String symbol, long now, long maxAgeMillis) {
+        Integer p = pairIds.get(symbol);
+        if (p == null || updatedAt[p] == 0 || now - updatedAt[p] > maxAgeMillis) return -1;
+        return prices[p];
+    }
+
+    public boolean hasAsset(String asset) {
+        return assetIds.containsKey(asset);
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private int assetId(String asset, List<List<Integer>> adjacency) {
+        return assetIds.computeIfAbsent(asset, name -> {
+            assetNames.add(name);
+            adjacency.add(new ArrayList<>());
+            return assetNames.size() - 1;
+        });
+    }
+
+    // Breadth first search = fewest hops. pricedOnly: only walk pairs we have a price for.
+    private Route search(int from, int to, boolean pricedOnly) {
+        int[] viaPair = new int[assetNames.size()];
+        int[] previous = new int[assetNames.size()];
+        int[] depth = new int[assetNames.size()];
+        Arrays.fill(previous, -1);
+        previous[from] = from;
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            int asset = queue.poll();
+            if (asset == to) break;
+            if (depth[asset] == MAX_HOPS) continue;
+            for (int p : pairsOfAsset[asset]) {
+                if (pricedOnly && updatedAt[p] == 0) continue;
+                int next = bases[p] == asset ? quotes[p] : bases[p];
+                if (previous[next] != -1) continue;
+                previous[next] = asset;
+                viaPair[next] = p;
+                depth[next] = depth[asset] + 1;
+                queue.add(next);
+            }
+        }
+        if (previous[to] == -1) return null;
+
+        int hops = depth[to];
+        int[] pairs = new int[hops];
+        boolean[] inverse = new boolean[hops];
+        int[] assets = new int[hops + 1];
+        assets[hops] = to;
+        for (int i = hops - 1, asset = to; i >= 0; i--) {
+            int p = viaPair[asset];
+            int prev = previous[asset];
+            pairs[i] = p;
+            // Walking base -> quote multiplies by the price, quote -> base divides
+            inverse[i] = bases[p] != prev;
+            assets[i] = prev;
+            asset = prev;
+        }
+        return new Route(pairs, inverse, assets);
+    }
+}
@@ -0,0 +1,196 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.entity.RecurringOrder;
+import com.learning.cryptobot.repository.RecurringOrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * RecurringOrderEngine
+ * Recurring buys ("dca BTC 10 daily" = buy $10 of BTC every day).
+ *
+ * Every upcoming run sits in a TimingWheel, so a scheduler tick costs the same with 10 or 100k
+ * schedules: no scan over all of them, only the runs that are due come out.
+ * The runs due in the same tick are done together through TradingService.spendBatch:
+ * one price request for all their symbols, and one DB transaction for all the wallets they change.
+ * The buys run on a separate thread, so a slow Binance never delays the next tick.
+ * A buy that found no price (Binance down) is tried again after retry-ms, a few times at most.
+ */
+@Service
+public class RecurringOrderEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(RecurringOrderEngine.class);
+
+    // Keeps one user from filling the wheel with thousands of schedules
+    private static final int MAX_PER_USER = 20;
+
+    // How often a run without a price is tried again before we wait for its next regular time
+    private static final int MAX_RETRIES = 5;
+
+    // One upcoming run of an order (at = its planned time, so runs stay on the same clock time and don't drift).
+    // attempt = how many times this run already failed for lack of a price.
+    private record Run(RecurringOrder order, long at, int attempt) {
+        Run(RecurringOrder order, long at) {
+            this(order, at, 0);
+        }
+    }
+
+    private final RecurringOrderRepository recurringOrderRepository;
+    private final TradingService tradingService;
+    private final UserNotifier notifier;
+    private final ClusterTopology cluster;
+    private final TimingWheel<Run> wheel;
+    private final long retryMillis;
+
+    // Every active schedule by id. Cancelled ones are only removed from here:
+    // their run still comes out of the wheel later and is then skipped.
+    private final Map<Long, RecurringOrder> active = new ConcurrentHashMap<>();
+
+    private final ExecutorService runExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "recurring-orders");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RecurringOrderEngine(RecurringOrderRepository recurringOrderRepository, TradingService tradingService,
+                                UserNotifier notifier, ClusterTopology cluster,
+                                @Value("${dca.tick-ms:1000}") long tickMillis,
+                                @Value("${dca.wheel.slots:64}") int slots,
+                                @Value("${dca.wheel.levels:4}") int levels,
+                                @Value("${dca.retry-ms:60000}") long retryMillis) {
+        this.recurringOrderRepository = recurringOrderRepository;
+        this.tradingService = tradingService;
+        this.notifier = notifier;
+        this.cluster = cluster;
+        this.wheel = new TimingWheel<>(tickMillis, slots, levels, System.currentTimeMillis());
+        this.retryMillis = retryMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Schedules survive restarts. In cluster mode only our own users', so nobody buys twice.
+        long now = System.currentTimeMillis();
+        for (RecurringOrder order : recurringOrderRepository.findAll()) {
+            if (!cluster.isLocal(order.getChatId())) continue;
+            active.put(order.getId(), order);
+            schedule(new Run(order, order.nextRunAfter(now)));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runExecutor.shutdown();
+    }
+
+    // --- USER ACTIONS ---
+
+    // The first buy happens right away (on the next tick), then every "frequency"
+    public RecurringOrder create(long chatId, String userName, String symbol, BigDecimal amount, RecurringOrder.Frequency frequency) {
+        if (amount == null || amount.signum() <= 0) throw new IllegalArgumentException("Amount must be greater than 0");
+        if (recurringOrderRepository.findByChatId(chatId).size() >= MAX_PER_USER) {
+            throw new IllegalArgumentException("You can have at most " + MAX_PER_USER + " recurring orders");
+        }
+
+        RecurringOrder order = new RecurringOrder(chatId, userName, tradingService.symbolFormat(symbol),
+                amount.setScale(FixedPoint.MONEY_SCALE, RoundingMode.HALF_UP), frequency, System.currentTimeMillis());
+        order = recurringOrderRepository.save(order);
+        active.put(order.getId(), order);
+        schedule(new Run(order, order.getStartAt()));
+        return order;
+    }
+
+    public boolean cancel(long chatId, long orderId) {
+        RecurringOrder order = active.get(orderId);
+        if (order == null || order.getChatId() != chatId) return false;
+        if (!active.remove(orderId, order)) return false;
+
+        recurringOrderRepository.deleteById(orderId);
+        return true;
+    }
+
+    public List<RecurringOrder> list(long chatId) {
+        return recurringOrderRepository.findByChatId(chatId);
+    }
+
+    public int getScheduleCount() {
+        return active.size();
+    }
+
+    // --- SCHEDULER ---
+
+    // Moves the wheel to "now". Only looks at the slots passed since the last tick.
+    @Scheduled(fixedDelayString = "${dca.tick-ms:1000}")
+    public void tick() {
+        List<Run> due = new ArrayList<>();
+        for (Run run : wheel.advance(System.currentTimeMillis())) {
+            if (active.get(run.order().getId()) == run.order()) due.add(run); // skip cancelled ones
+        }
+        if (!due.isEmpty()) runExecutor.execute(() -> execute(due));
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    private void execute(List<Run> due) {
+        List<TradingService.Spend> spends = new ArrayList<>(due.size());
+        for (Run run : due) {
+            RecurringOrder order = run.order();
+            spends.add(new TradingService.Spend(order.getChatId(), order.getUserName(), order.getSymbol(),
+                    FixedPoint.money(order.getAmount())));
+        }
+
+        List<TradingService.SpendResult> results;
+        try {
+            results = tradingService.spendBatch(spends);
+        } catch (RuntimeException e) {
+            log.error("Recurring orders: batch of {} failed", due.size(), e);
+            results = null;
+        }
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < due.size(); i++) {
+            Run run = due.get(i);
+            RecurringOrder order = run.order();
+            TradingService.SpendResult result = results != null ? results.get(i)
+                    : new TradingService.SpendResult("Transaction Failed: something went wrong on our side.", true);
+
+            // Cancelled while it ran: no next run. A run that was very late doesn't make the next ones pile up.
+            boolean stillActive = active.get(order.getId()) == order;
+            long next = order.nextRunAfter(Math.max(run.at(), now));
+            boolean retry = stillActive && result.retry() && run.attempt() < MAX_RETRIES && now + retryMillis < next;
+
+            // Only the first failed attempt and the final outcome are sent, not every retry
+            if (!retry || run.attempt() == 0) {
+                String text = "🔁 Recurring order #" + order.getId() + " ($" + order.getAmount().toPlainString() + " "
+                        + order.getFrequency().name().toLowerCase() + ")\n" + result.report();
+                if (retry) text += "\nTrying again in " + Math.max(1, retryMillis / 1000) + " s.";
+                notifier.notify(order.getChatId(), text);
+            }
+            if (retry) {
+                // Same planned time: the next regular run stays where it was
+                wheel.add(now + retryMillis, new Run(order, run.at(), run.attempt() + 1));
+            } else if (stillActive) {
+                schedule(new Run(order, next));
+            }
+        }
+    }
+
+    private void schedule(Run run) {
+        // Already due (e.g. a new order): it goes out with the next tick's batch
+        if (!wheel.add(run.at(), run)) wheel.add(System.currentTimeMillis() + wheel.getTickMillis(), run);
+    }
+}
@@ -0,0 +1,58 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Feed that reads recorded stream messages from a file (one JSON message per line)
+ * and plays them back. Lets us test the streaming mode without touching Binance.
+ */
+public class ReplayFileFeed implements MarketDataFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayFileFeed.class);
+
+    private final Path file;
+    private final long delayMillis;
+    private volatile Thread worker;
+
+    // delayMillis = pause between two lines (0 = as fast as possible)
+    public ReplayFileFeed(Path file, long delayMillis) {
+        this.file = file;
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void start(Consumer<BinanceTickerDto> listener) {
+        StreamTickerParser parser = new StreamTickerParser();
+        Thread t = new Thread(() -> {
+            try (BufferedReader reader = Files.newBufferedReader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null && !Thread.currentThread().isInterrupted()) {
+                    if (line.isBlank()) continue;
+                    parser.parse(line, listener);
+                    if (delayMillis > 0) Thread.sleep(delayMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                log.error("Replay feed failed: {}", e.getMessage());
+            }
+        }, "replay-feed");
+        t.setDaemon(true);
+        worker = t;
+        t.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread t = worker;
+        if (t != null) t.interrupt();
+    }
+}
@@ -0,0 +1,100 @@
+package com.learning.cryptobot.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SlidingWindowLimiter
+ * At most "limit" actions per key (a chat, a web session ...) in any "windowMillis" long stretch of time.
+ *
+ * Sliding window counter: we count the current fixed window and remember the previous one's count.
+ * The previous window still counts for the part of it that lies inside the last windowMillis, e.g.
+ * 30% into the current window = 70% of the previous count + the current count. No list of timestamps.
+ *
+ * Each key's state is ONE long (window number | previous count | current count) changed with a
+ * compare-and-set, so callers never block each other, not even on the same key.
+ * Keys that have been quiet for two windows count zero anyway: evictIdle() forgets them.
+ */
+public class SlidingWindowLimiter<K> {
+
+    private static final long COUNT_MASK = 0xFFFF;
+    private static final long WINDOW_MASK = 0xFFFF_FFFFL;
+
+    private final int limit;
+    private final long windowMillis;
+    private final Map<K, AtomicLong> windows = new ConcurrentHashMap<>();
+
+    public SlidingWindowLimiter(int limit, long windowMillis) {
+        if (limit < 1 || limit > COUNT_MASK) throw new IllegalArgumentException("Limit must be between 1 and " + COUNT_MASK);
+        if (windowMillis < 1) throw new IllegalArgumentException("Window must be at least 1 ms");
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+    }
+
+    // Counts one action for key. Returns 0 if it's allowed, else how many ms until it would be.
+    public long tryAcquire(K key) {
+        return tryAcquire(key, System.currentTimeMillis());
+    }
+
+    public long tryAcquire(K key, long now) {
+        AtomicLong state = windows.get(key);
+        if (state == null) state = windows.computeIfAbsent(key, k -> new AtomicLong());
+
+        long window = now / windowMillis;
+        long elapsed = now - window * windowMillis;
+        while (true) {
+            long current = state.get();
+            long stored = current >>> 32;
+            int previousCount, currentCount;
+            if (stored == (window & WINDOW_MASK)) {
+                previousCount = (int) (current >>> 16 & COUNT_MASK);
+                currentCount = (int) (current & COUNT_MASK);
+            } else if (stored == (window - 1 & WINDOW_MASK)) {
+                previousCount = (int) (current & COUNT_MASK); // a new window started
+                currentCount = 0;
+            } else {
+                previousCount = 0; // quiet for longer than a window
+                currentCount = 0;
+            }
+
+            double used = previousCount * (double) (windowMillis - elapsed) / windowMillis + currentCount;
+            if (used + 1 > limit) return retryAfter(previousCount, currentCount, elapsed);
+
+            long next = (window & WINDOW_MASK) << 32 | (long) previousCount << 16 | (currentCount + 1);
+            if (state.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    // Forgets keys whose last action is more than a full window ago (they would count zero).
+    // A key used at the very moment it is evicted loses that one count, which only errs in the user's favour.
+    public int evictIdle(long now) {
+        long window = now / windowMillis;
+        int before = windows.size();
+        windows.entrySet().removeIf(e -> {
+            long stored = e.getValue().get() >>> 32;
+            return stored != (window & WINDOW_MASK) && stored != (window - 1 & WINDOW_MASK);
+        });
+        return before - windows.size();
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    // When one more action fits: the previous window's share shrinks as time goes on,
+    // and a full current window has to become the previous one first
+    private long retryAfter(int previousCount, int currentCount, long elapsed) {
+        double wait;
+        if (currentCount + 1 > limit) {
+            // Next window: currentCount * (1 - e / window) + 1 <= limit
+            wait = windowMillis - elapsed + windowMillis * (1 - (limit - 1) / (double) currentCount);
+        } else {
+            // This window: previousCount * (window - e) / window + currentCount + 1 <= limit
+            wait = windowMillis - (limit - currentCount - 1) * (double) windowMillis / previousCount - elapsed;
+        }
+        return Math.max(1, (long) Math.ceil(wait));
+    }
+}
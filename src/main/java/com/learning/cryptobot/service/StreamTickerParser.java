@@ -0,0 +1,51 @@
+package com.learning.cryptobot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/**
+ * Turns Binance stream messages into our BinanceTickerDto.
+ * The stream uses one-letter field names ("c" = last price, "h" = high ...)
+ * and can wrap the ticker as {"stream": ..., "data": ...} or send an array of tickers.
+ */
+class StreamTickerParser {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Parses one message and hands every ticker inside it to the listener
+    void parse(String message, Consumer<BinanceTickerDto> listener) throws IOException {
+        JsonNode root = objectMapper.readTree(message);
+        if (root.has("data")) root = root.get("data");
+
+        if (root.isArray()) {
+            for (JsonNode node : root) emit(node, listener);
+        } else {
+            emit(root, listener);
+        }
+    }
+
+    private void emit(JsonNode node, Consumer<BinanceTickerDto> listener) {
+        // Subscription acks ({"result":null,"id":1}) have no symbol, skip them
+        if (!node.has("s") || !node.has("c")) return;
+
+        BinanceTickerDto ticker = new BinanceTickerDto();
+        ticker.setSymbol(node.get("s").asText());
+        ticker.setLastPrice(decimal(node, "c"));
+        ticker.setHighPrice(decimal(node, "h"));
+        ticker.setLowPrice(decimal(node, "l"));
+        ticker.setPriceChangePercent(node.path("P").asText(null));
+        ticker.setWeightedAvgPrice(decimal(node, "w"));
+        ticker.setVolume(decimal(node, "v"));
+        listener.accept(ticker);
+    }
+
+    private BigDecimal decimal(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : new BigDecimal(value.asText());
+    }
+}
@@ -0,0 +1,162 @@
+package com.learning.cryptobot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.learning.cryptobot.dto.TradingPair;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SymbolRegistry
+ * Knows every pair that exists on Binance, so "btc", "BTC/USDT" or "ethbtc"
+ * can be turned into the real symbol with one map lookup.
+ * Unknown symbols are rejected here, without calling Binance at all.
+ *
+ * The list is downloaded from /api/v3/exchangeInfo (through BinanceClient, so it counts against
+ * the request weight and respects the circuit breaker) at startup and again every refresh-ms,
+ * so new listings show up without a restart. If the first download fails (offline), we use
+ * the snapshot bundled in symbols-snapshot.csv and try the download again every retry-ms.
+ * A failed refresh keeps the list we already have.
+ */
+@Component
+public class SymbolRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolRegistry.class);
+
+    // Coin-only input like "BTC" is traded against this quote, same rule the app always had
+    public static final String DEFAULT_QUOTE = "USDT";
+
+    private final BinanceClient binanceClient;
+    private final boolean remote;
+    private final long refreshMillis;
+
+    // Every accepted spelling -> pair. Each load builds new maps and swaps them in: never changed
+    // after that, so a plain HashMap is safe to read from any thread.
+    private volatile Map<String, TradingPair> index;
+    // Real symbol -> pair, e.g. "ETHBTC" -> (ETHBTC, ETH, BTC)
+    private volatile Map<String, TradingPair> pairs;
+    // When the list was last downloaded from Binance, 0 = we are on the bundled snapshot
+    private volatile long downloadedAt;
+
+    public SymbolRegistry(BinanceClient binanceClient,
+                          @Value("${binance.symbols.source:remote}") String source,
+                          @Value("${binance.symbols.refresh-ms:21600000}") long refreshMillis) {
+        this.binanceClient = binanceClient;
+        this.remote = "remote".equalsIgnoreCase(source);
+        this.refreshMillis = refreshMillis;
+    }
+
+    // Loaded before any other bean can look a symbol up, so no lookup ever waits for a download
+    @PostConstruct
+    public void init() {
+        refresh();
+        if (index == null) {
+            install(loadSnapshot());
+            if (remote) log.warn("Using the bundled symbol snapshot until exchangeInfo can be downloaded");
+        }
+    }
+
+    // Runs every retry-ms, but only downloads when we are on the snapshot or the list is refresh-ms old
+    @Scheduled(fixedDelayString = "${binance.symbols.retry-ms:60000}", initialDelayString = "${binance.symbols.retry-ms:60000}")
+    public void refresh() {
+        if (!remote) return;
+        long now = System.currentTimeMillis();
+        if (downloadedAt > 0 && now - downloadedAt < refreshMillis) return;
+        try {
+            Map<String, TradingPair> loaded = loadFromExchange();
+            if (loaded.isEmpty()) throw new IllegalStateException("exchangeInfo has no trading pairs");
+            if (downloadedAt == 0 && index != null) log.info("Symbol list downloaded, no longer using the snapshot");
+            install(loaded);
+            downloadedAt = now;
+        } catch (Exception e) {
+            log.warn("Could not load exchangeInfo: {}", e.getMessage());
+        }
+    }
+
+    // "btc" -> BTCUSDT, "BTC/USDT" -> BTCUSDT, "ethbtc" -> ETHBTC
+    public TradingPair resolve(String input) {
+        if (input == null) throw new IllegalArgumentException("Symbol is missing");
+        TradingPair pair = index.get(normalize(input));
+        if (pair == null) throw new IllegalArgumentException("Unknown symbol: " + input.trim());
+        return pair;
+    }
+
+    // Like resolve(), but returns null instead of throwing
+    public TradingPair find(String input) {
+        return input == null ? null : index.get(normalize(input));
+    }
+
+    public Collection<TradingPair> allPairs() {
+        return pairs.values();
+    }
+
+    // Removes spaces, separators and case: " btc/usdt " -> "BTCUSDT"
+    static String normalize(String input) {
+        StringBuilder sb = new StringBuilder(input.length());
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '/' || c == '-' || c == '_' || c == ' ') continue;
+            sb.append(Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+
+    // --- LOADING ---
+
+    private void install(Map<String, TradingPair> loaded) {
+        Map<String, TradingPair> newIndex = new HashMap<>(loaded.size() * 3);
+        for (TradingPair pair : loaded.values()) {
+            // Coin-only alias: "BTC" -> BTCUSDT ("ETH/BTC" already normalizes to "ETHBTC")
+            if (DEFAULT_QUOTE.equals(pair.quoteAsset())) newIndex.put(pair.baseAsset(), pair);
+        }
+        // A real symbol always wins over a coin-only alias
+        for (TradingPair pair : loaded.values()) newIndex.put(pair.symbol(), pair);
+
+        pairs = loaded;
+        index = newIndex;
+    }
+
+    private Map<String, TradingPair> loadFromExchange() {
+        JsonNode info = binanceClient.exchangeInfo();
+        Map<String, TradingPair> result = new HashMap<>();
+        if (info == null) return result;
+
+        for (JsonNode s : info.path("symbols")) {
+            // Skip delisted / halted pairs, they can't return a price anyway
+            if (!"TRADING".equals(s.path("status").asText())) continue;
+            TradingPair pair = new TradingPair(s.get("symbol").asText(),
+                    s.get("baseAsset").asText(), s.get("quoteAsset").asText());
+            result.put(pair.symbol(), pair);
+        }
+        return result;
+    }
+
+    private Map<String, TradingPair> loadSnapshot() {
+        Map<String, TradingPair> result = new HashMap<>();
+        ClassPathResource resource = new ClassPathResource("symbols-snapshot.csv");
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] cols = line.split(",");
+                result.put(cols[0], new TradingPair(cols[0], cols[1], cols[2]));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Bundled symbol snapshot is missing", e);
+        }
+        return result;
+    }
+}
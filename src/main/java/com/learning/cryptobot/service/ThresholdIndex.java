@@ -0,0 +1,72 @@
+package com.learning.cryptobot.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * ThresholdIndex
+ * Price-sorted storage of "do something when the price crosses X" items for ONE symbol.
+ *
+ * Items that wait for the price to go UP to X sit in "above", items waiting for it
+ * to go DOWN to X sit in "below". On a new price we only look at the front of each
+ * sorted map, so a tick costs O(log n + k) where k = items actually triggered,
+ * no matter how many items are waiting.
+ * Thresholds and prices are FixedPoint prices (longs with 8 decimals).
+ */
+public class ThresholdIndex<T> {
+
+    public enum Direction {
+        ABOVE, // fire when price >= threshold
+        BELOW  // fire when price <= threshold
+    }
+
+    private final TreeMap<Long, Set<T>> above = new TreeMap<>();
+    private final TreeMap<Long, Set<T>> below = new TreeMap<>();
+    private int size;
+
+    public synchronized void add(long threshold, Direction direction, T item) {
+        if (map(direction).computeIfAbsent(threshold, k -> new LinkedHashSet<>()).add(item)) size++;
+    }
+
+    public synchronized boolean remove(long threshold, Direction direction, T item) {
+        TreeMap<Long, Set<T>> map = map(direction);
+        Set<T> items = map.get(threshold);
+        if (items == null || !items.remove(item)) return false;
+        if (items.isEmpty()) map.remove(threshold);
+        size--;
+        return true;
+    }
+
+    // Removes and returns every item the price has reached
+    public synchronized List<T> drainCrossed(long price) {
+        List<T> crossed = new ArrayList<>();
+        // Thresholds <= price in "above", thresholds >= price in "below"
+        drain(above.headMap(price, true), crossed);
+        drain(below.tailMap(price, true), crossed);
+        return crossed;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void drain(NavigableMap<Long, Set<T>> hit, List<T> out) {
+        Iterator<Map.Entry<Long, Set<T>>> it = hit.entrySet().iterator();
+        while (it.hasNext()) {
+            Set<T> items = it.next().getValue();
+            out.addAll(items);
+            size -= items.size();
+            it.remove();
+        }
+    }
+
+    private TreeMap<Long, Set<T>> map(Direction direction) {
+        return direction == Direction.ABOVE ? above : below;
+    }
+}
@@ -0,0 +1,148 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * TickerCache
+ * Keeps the last ticker we fetched for every symbol for a short time (the "TTL"),
+ * so 100 users asking for BTC in the same second only cause ONE call to Binance.
+ * If several threads miss at the same moment, only the first one goes to Binance
+ * and the others wait for its answer (single-flight).
+ */
+@Component
+public class TickerCache {
+
+    // One cached ticker + the time we fetched it
+    private record Entry(BinanceTickerDto ticker, long fetchedAt) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Requests currently "on the wire" to Binance, one per symbol
+    private final Map<String, CompletableFuture<BinanceTickerDto>> inFlight = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+    private final int maxSize;
+
+    // Counters so we can see if the cache actually helps
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TickerCache(@Value("${binance.cache.ttl-ms:2000}") long ttlMillis,
+                       @Value("${binance.cache.max-size:1000}") int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    // Returns a fresh ticker from memory, or calls the loader (only once per symbol at a time)
+    public BinanceTickerDto get(String symbol, Function<String, BinanceTickerDto> loader) {
+        Entry entry = entries.get(symbol);
+        if (entry != null && isFresh(entry)) {
+            hits.incrementAndGet();
+            return entry.ticker();
+        }
+
+        // Miss: either we become the "leader" that calls Binance, or we join the leader's request
+        CompletableFuture<BinanceTickerDto> mine = new CompletableFuture<>();
+        CompletableFuture<BinanceTickerDto> running = inFlight.putIfAbsent(symbol, mine);
+
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return join(running);
+        }
+
+        // Another leader may have stored a fresh ticker and left between our check above and
+        // putIfAbsent: use that one instead of asking Binance again
+        Entry latest = entries.get(symbol);
+        if (latest != null && isFresh(latest)) {
+            hits.incrementAndGet();
+            mine.complete(latest.ticker());
+            inFlight.remove(symbol, mine);
+            return latest.ticker();
+        }
+
+        misses.incrementAndGet();
+        try {
+            BinanceTickerDto ticker = loader.apply(symbol);
+            put(symbol, ticker);
+            mine.complete(ticker);
+            return ticker;
+        } catch (Throwable e) {
+            // Followers get the same error as the leader. Errors too (e.g. OutOfMemoryError):
+            // a future that never completes would leave them waiting forever.
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(symbol, mine);
+        }
+    }
+
+    // Stores a ticker we got some other way (e.g. a batch request)
+    public void put(String symbol, BinanceTickerDto ticker) {
+        if (ticker == null) return;
+        if (!entries.containsKey(symbol) && entries.size() >= maxSize) evictOldest();
+        entries.put(symbol, new Entry(ticker, System.currentTimeMillis()));
+    }
+
+    // Returns the cached ticker only if it is still fresh, without calling Binance
+    public BinanceTickerDto getIfFresh(String symbol) {
+        Entry entry = entries.get(symbol);
+        if (entry == null || !isFresh(entry)) return null;
+        hits.incrementAndGet();
+        return entry.ticker();
+    }
+
+    // Last ticker we have for the symbol, however old (until it gets evicted), or null.
+    // Only used as a fallback when Binance can't be reached.
+    public BinanceTickerDto getStale(String symbol) {
+        Entry entry = entries.get(symbol);
+        return entry == null ? null : entry.ticker();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    public long getEvictions() { return evictions.get(); }
+    public int size() { return entries.size(); }
+
+    // --- INTERNAL HELPERS ---
+
+    private boolean isFresh(Entry entry) {
+        return System.currentTimeMillis() - entry.fetchedAt() < ttlMillis;
+    }
+
+    // Drops the entry that was fetched the longest time ago.
+    // This is a full scan, but it only runs when a NEW symbol arrives and the cache is full.
+    private void evictOldest() {
+        String oldestKey = null;
+        long oldestTime = Long.MAX_VALUE;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().fetchedAt() < oldestTime) {
+                oldestTime = e.getValue().fetchedAt();
+                oldestKey = e.getKey();
+            }
+        }
+        if (oldestKey != null && entries.remove(oldestKey) != null) evictions.incrementAndGet();
+    }
+
+    private BinanceTickerDto join(CompletableFuture<BinanceTickerDto> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // Unwrap so callers see the real exception (e.g. HttpClientErrorException)
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
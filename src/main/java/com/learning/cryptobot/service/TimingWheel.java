@@ -0,0 +1,123 @@
+package com.learning.cryptobot.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TimingWheel
+ * "Do this at time T" for a huge number of items, like a clock with several hands.
+ *
+ * Level 0 has one slot per tick (e.g. 64 slots of 1 second), level 1 one slot per full turn
+ * of level 0 (64 slots of 64 seconds), and so on. An item goes into the slot of the coarsest
+ * level it needs. When a hand reaches a slot of a higher level, that slot's items move down
+ * to finer levels ("cascade") until they land in level 0 and fire.
+ *
+ * So a tick only looks at one slot per level, however many items are waiting: adding is O(1),
+ * advancing is O(1) per tick plus the items that fire (each item moves down at most once per level).
+ * Items further away than all levels together sit in an overflow list, re-checked once per full
+ * turn of the top level.
+ *
+ * Items fire at their time or up to one tick later, never early. Thread safe.
+ */
+public class TimingWheel<T> {
+
+    private record Entry<T>(long tick, T item) {}
+
+    private final long tickMillis;
+    private final int slotsPerLevel;
+    private final int levels;
+    // span[i] = ticks covered by one slot of level i (span[levels] = one turn of the top level)
+    private final long[] span;
+    // slots[level][slot], created on first use
+    private final List<Entry<T>>[][] slots;
+    private final List<Entry<T>> overflow = new ArrayList<>();
+
+    // Every tick up to and including this one has been handled
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotsPerLevel, int levels, long startMillis) {
+        if (tickMillis <= 0 || slotsPerLevel < 2 || levels < 1) throw new IllegalArgumentException("Bad timing wheel size");
+        this.tickMillis = tickMillis;
+        this.slotsPerLevel = slotsPerLevel;
+        this.levels = levels;
+        this.span = new long[levels + 1];
+        span[0] = 1;
+        for (int i = 1; i <= levels; i++) span[i] = Math.multiplyExact(span[i - 1], slotsPerLevel);
+        this.slots = new List[levels][slotsPerLevel];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    // Schedules item for dueMillis. Returns false if that time has already passed (run it right away).
+    public synchronized boolean add(long dueMillis, T item) {
+        // Rounded up, so an item never fires before its time
+        long tick = Math.floorDiv(dueMillis, tickMillis) + (Math.floorMod(dueMillis, tickMillis) == 0 ? 0 : 1);
+        if (tick <= currentTick) return false;
+        place(new Entry<>(tick, item), null);
+        size++;
+        return true;
+    }
+
+    // Moves the clock to nowMillis and returns every item that became due, oldest first
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> due = new ArrayList<>();
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < target) {
+            currentTick++;
+
+            // A full turn of the top level: bring far away items closer
+            if (currentTick % span[levels] == 0 && !overflow.isEmpty()) {
+                List<Entry<T>> far = new ArrayList<>(overflow);
+                overflow.clear();
+                for (Entry<T> entry : far) place(entry, due);
+            }
+            // Coarse levels first: what they drop may land in a finer slot of this same tick
+            for (int level = levels - 1; level >= 1; level--) {
+                if (currentTick % span[level] == 0) {
+                    List<Entry<T>> moving = take(level, currentTick / span[level]);
+                    if (moving != null) for (Entry<T> entry : moving) place(entry, due);
+                }
+            }
+            List<Entry<T>> firing = take(0, currentTick);
+            if (firing != null) for (Entry<T> entry : firing) due.add(entry.item());
+        }
+        size -= due.size();
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    // --- INTERNAL HELPERS ---
+
+    // Puts the entry in the finest level whose current turn contains its tick
+    private void place(Entry<T> entry, List<T> due) {
+        if (entry.tick() <= currentTick) {
+            due.add(entry.item()); // only while cascading: its time is this tick
+            return;
+        }
+        for (int level = 0; level < levels; level++) {
+            if (entry.tick() / span[level + 1] == currentTick / span[level + 1]) {
+                int slot = (int) (entry.tick() / span[level] % slotsPerLevel);
+                List<Entry<T>> bucket = slots[level][slot];
+                if (bucket == null) slots[level][slot] = bucket = new ArrayList<>();
+                bucket.add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private List<Entry<T>> take(int level, long position) {
+        int slot = (int) (position % slotsPerLevel);
+        List<Entry<T>> bucket = slots[level][slot];
+        slots[level][slot] = null;
+        return bucket;
+    }
+}
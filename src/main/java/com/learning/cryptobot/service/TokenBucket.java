@@ -0,0 +1,53 @@
+package com.learning.cryptobot.service;
+
+/**
+ * Classic token bucket: holds up to "capacity" tokens and refills at "ratePerSecond".
+ * Each action costs tokens; if the bucket is empty you have to wait.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double ratePerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double capacity, double ratePerSecond) {
+        this.capacity = capacity;
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    // Takes one token if there is one
+    public synchronized boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    // Takes "cost" tokens if there are enough
+    public synchronized boolean tryAcquire(double cost) {
+        refill();
+        if (tokens < cost) return false;
+        tokens -= cost;
+        return true;
+    }
+
+    // How long (nanos) until "cost" tokens are available. 0 = right now.
+    public synchronized long nanosUntilAvailable(double cost) {
+        refill();
+        if (tokens >= cost) return 0;
+        return (long) Math.ceil((cost - tokens) / ratePerNano);
+    }
+
+    // True when nobody has used the bucket for a while (it's full again)
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
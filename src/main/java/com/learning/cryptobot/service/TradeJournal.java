@@ -0,0 +1,283 @@
+package com.learning.cryptobot.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * TradeJournal
+ * Append-only record of every fill, in a compact binary format.
+ *
+ * - Every trade is appended here BEFORE the ledger changes the account, so a crash
+ *   between "trade done in memory" and "saved to H2" can be replayed.
+ * - It's also the trade history / audit trail: entries are never changed or removed.
+ *   "history" is answered from a small per-chat cache of recent fills. Only a chat that isn't
+ *   in it reads the journal, and only its newest ledger.journal.history-segments files.
+ *
+ * Files: journal-&lt;firstSeq&gt;.bin, each a fixed size memory-mapped segment.
+ * A record is [int length][payload][int crc32]. Length 0 means "end of data",
+ * a bad checksum means a half written record (crash) and is treated as the end too.
+ * Amounts are stored as FixedPoint longs.
+ */
+@Component
+public class TradeJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeJournal.class);
+
+    // Side byte of a record
+    private static final byte BUY = 0;
+    private static final byte SELL = 1;
+
+    // Fills kept per chat in the history cache (the "history" command shows 10)
+    static final int HISTORY_DEPTH = 20;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final int historySegments;
+
+    // chatId -> that chat's last HISTORY_DEPTH fills, newest first. Least recently used chats are dropped.
+    private final Map<Long, Deque<LedgerEntry>> recentFills;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private boolean opened;
+
+    public TradeJournal(@Value("${ledger.journal.dir:./data/ledger}") String directory,
+                        @Value("${ledger.journal.segment-bytes:67108864}") int segmentBytes,
+                        @Value("${ledger.journal.fsync:false}") boolean fsync,
+                        @Value("${ledger.journal.history-chats:10000}") int historyChats,
+                        @Value("${ledger.journal.history-segments:4}") int historySegments) {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.historySegments = historySegments;
+        this.recentFills = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Deque<LedgerEntry>> eldest) {
+                return size() > historyChats;
+            }
+        };
+    }
+
+    public synchronized void append(LedgerEntry e) {
+        try {
+            if (!opened) openLastSegment();
+            byte[] payload = encode(e);
+            int recordSize = 4 + payload.length + 4;
+
+            // Keep 4 bytes free at the end for the "length 0" end marker
+            if (segment == null || segment.remaining() < recordSize + 4) startSegment(e.seq());
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            int start = segment.position();
+            segment.position(start + 4);
+            segment.put(payload);
+            segment.putInt((int) crc.getValue());
+            // Length is written last, so a reader never sees a record that isn't complete
+            segment.putInt(start, payload.length);
+            if (fsync) segment.force();
+
+            // Keep a cached history up to date (chats not in the cache are read from the journal when asked)
+            Deque<LedgerEntry> fills = recentFills.get(e.chatId());
+            if (fills != null) {
+                fills.addFirst(e);
+                if (fills.size() > HISTORY_DEPTH) fills.removeLast();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write trade journal", ex);
+        }
+    }
+
+    // Every entry with seq > afterSeq, oldest first (used for recovery)
+    public synchronized List<LedgerEntry> readAfter(long afterSeq) {
+        List<LedgerEntry> entries = new ArrayList<>();
+        List<Path> files = segments();
+        for (int i = 0; i < files.size(); i++) {
+            // Whole segment is older than what we need: the next one starts at or before afterSeq + 1
+            if (i + 1 < files.size() && firstSeq(files.get(i + 1)) <= afterSeq + 1) continue;
+            scan(files.get(i), e -> {
+                if (e.seq() > afterSeq) entries.add(e);
+            });
+        }
+        return entries;
+    }
+
+    // Last "limit" fills of one user, newest first
+    public synchronized List<LedgerEntry> history(long chatId, int limit) {
+        if (limit > HISTORY_DEPTH) return List.copyOf(scanHistory(chatId, limit));
+
+        Deque<LedgerEntry> fills = recentFills.get(chatId);
+        if (fills == null) {
+            fills = scanHistory(chatId, HISTORY_DEPTH);
+            recentFills.put(chatId, fills);
+        }
+        return fills.stream().limit(limit).toList();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            if (segment != null) segment.force();
+            if (channel != null) channel.close();
+        } catch (IOException ex) {
+            log.warn("Could not close trade journal: {}", ex.getMessage());
+        }
+    }
+
+    // --- SEGMENTS ---
+
+    // Continues writing at the end of the newest segment after a restart
+    private void openLastSegment() throws IOException {
+        opened = true;
+        List<Path> files = segments();
+        if (files.isEmpty()) return;
+
+        Path last = files.get(files.size() - 1);
+        channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        segment.position(endOfData(segment));
+    }
+
+    private void startSegment(long firstSeq) throws IOException {
+        if (segment != null) segment.force();
+        if (channel != null) channel.close();
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("journal-%019d.bin", firstSeq));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    private List<Path> segments() {
+        if (!Files.isDirectory(directory)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches("journal-\\d{19}\\.bin"))
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not list trade journal", ex);
+        }
+    }
+
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".bin".length()));
+    }
+
+    // Reads a whole segment file through a read-only mapping
+    private void scan(Path file, Consumer<LedgerEntry> consumer) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            while (true) {
+                LedgerEntry entry = readRecord(buffer);
+                if (entry == null) return;
+                consumer.accept(entry);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read journal segment " + file, ex);
+        }
+    }
+
+    // Walks the newest segments (at most historySegments of them) from the newest, newest fills first.
+    // Fills older than that stay in the journal but aren't shown.
+    private Deque<LedgerEntry> scanHistory(long chatId, int limit) {
+        Deque<LedgerEntry> result = new ArrayDeque<>();
+        List<Path> files = segments();
+        int oldest = Math.max(0, files.size() - historySegments);
+        for (int i = files.size() - 1; i >= oldest && result.size() < limit; i--) {
+            // Keep the last "limit" matches of each segment
+            Deque<LedgerEntry> lastOfSegment = new ArrayDeque<>();
+            scan(files.get(i), e -> {
+                if (e.chatId() != chatId) return;
+                lastOfSegment.addLast(e);
+                if (lastOfSegment.size() > limit) lastOfSegment.removeFirst();
+            });
+            while (!lastOfSegment.isEmpty() && result.size() < limit) result.addLast(lastOfSegment.removeLast());
+        }
+        return result;
+    }
+
+    // Position right after the last complete record
+    private static int endOfData(ByteBuffer buffer) {
+        ByteBuffer copy = buffer.duplicate();
+        copy.position(0);
+        int end = 0;
+        while (readRecord(copy) != null) end = copy.position();
+        return end;
+    }
+
+    // --- ENCODING ---
+
+    private static LedgerEntry readRecord(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) return null;
+        int start = buffer.position();
+        int length = buffer.getInt();
+        if (length <= 0 || buffer.remaining() < length + 4) {
+            buffer.position(start);
+            return null;
+        }
+
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt()) {
+            // Torn write from a crash: stop here
+            buffer.position(start);
+            return null;
+        }
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    private static byte[] encode(LedgerEntry e) {
+        byte[] symbol = e.symbol().getBytes(StandardCharsets.US_ASCII);
+        byte[] name = (e.name() == null ? "" : e.name()).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(8 + 8 + 8 + 1 + 1 + symbol.length + 2 + name.length + 8 + 8 + 8 + 8);
+        b.putLong(e.seq()).putLong(e.timestamp()).putLong(e.chatId());
+        b.put("SELL".equals(e.side()) ? SELL : BUY);
+        b.put((byte) symbol.length).put(symbol);
+        b.putShort((short) name.length).put(name);
+        b.putLong(e.quantityDelta()).putLong(e.price()).putLong(e.cashDelta()).putLong(e.orderId());
+        return b.array();
+    }
+
+    private static LedgerEntry decode(ByteBuffer b) {
+        long seq = b.getLong();
+        long timestamp = b.getLong();
+        long chatId = b.getLong();
+        String side = b.get() == SELL ? "SELL" : "BUY";
+        String symbol = getString(b, b.get(), StandardCharsets.US_ASCII);
+        String name = getString(b, b.getShort(), StandardCharsets.UTF_8);
+        return new LedgerEntry(seq, timestamp, chatId, name, side, symbol, b.getLong(), b.getLong(), b.getLong(), b.getLong());
+    }
+
+    private static String getString(ByteBuffer b, int length, Charset charset) {
+        byte[] bytes = new byte[length];
+        b.get(bytes);
+        return new String(bytes, charset);
+    }
+}
@@ -1,28 +1,67 @@
 package com.learning.cryptobot.service;
 
+import com.learning.cryptobot.cluster.ClusterTopology;
 import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.dto.TradingPair;
 import com.learning.cryptobot.entity.Asset;
 import com.learning.cryptobot.entity.User;
-import com.learning.cryptobot.repository.AssetRepository;
-import com.learning.cryptobot.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.learning.cryptobot.metrics.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 @Service
 public class TradingService {
 
-    private final BinancePriceService binancePriceService;
-    private final UserRepository userRepository;
-    private final AssetRepository assetRepository;
+    private static final Logger log = LoggerFactory.getLogger(TradingService.class);
 
-    public TradingService(BinancePriceService binancePriceService, UserRepository userRepository, AssetRepository assetRepository) {
+    private final BinancePriceService binancePriceService;
+    private final SymbolRegistry symbolRegistry;
+    // Prices between any two assets, and recent pair prices without a request
+    private final CrossRateEngine crossRates;
+    // Trades never use a price older than a cached one (binance.cache.ttl-ms)
+    private final long tradePriceMaxAgeMillis;
+    // Balances and coins live in memory here, the DB is updated in the background
+    private final LedgerService ledgerService;
+    // Cluster mode: only the node owning a user may change their wallet
+    private final ClusterTopology cluster;
+
+    // Metrics: how long a market trade takes and how many SQL statements it costs
+    private final MeterRegistry meterRegistry;
+    private final StatementCounter statementCounter;
+    private final DistributionSummary tradeStatements;
+
+    public TradingService(BinancePriceService binancePriceService, SymbolRegistry symbolRegistry,
+                          CrossRateEngine crossRates, LedgerService ledgerService, ClusterTopology cluster,
+                          MeterRegistry meterRegistry, StatementCounter statementCounter,
+                          @Value("${binance.cache.ttl-ms:2000}") long tradePriceMaxAgeMillis) {
         this.binancePriceService = binancePriceService;
-        this.userRepository = userRepository;
-        this.assetRepository = assetRepository;
+        this.symbolRegistry = symbolRegistry;
+        this.crossRates = crossRates;
+        this.tradePriceMaxAgeMillis = tradePriceMaxAgeMillis;
+        this.ledgerService = ledgerService;
+        this.cluster = cluster;
+        this.meterRegistry = meterRegistry;
+        this.statementCounter = statementCounter;
+        this.tradeStatements = DistributionSummary.builder("trade.db.statements")
+                .description("SQL statements run while handling one market trade")
+                .register(meterRegistry);
     }
 
     // --- WEB HELPERS ---
@@ -33,7 +72,10 @@ public class TradingService {
     }
     public List<Asset> getUserAssets(Long id) {
         // Fetches all crypto holdings for a specific user ID
-        return assetRepository.findByChatId(id);
+        LedgerSnapshot account = ledgerService.find(id);
+        List<Asset> assets = new ArrayList<>();
+        if (account != null) account.holdings().forEach((symbol, qty) -> assets.add(new Asset(id, symbol, FixedPoint.toQuantity(qty))));
+        return assets;
     }
 
     // --- INTERNAL HELPERS ---
@@ -43,124 +85,271 @@ public class TradingService {
         return "$" + amount.setScale(5, RoundingMode.HALF_UP).toPlainString();
     }
 
-    // If user types "BTC", this changes it to "BTCUSDT" for Binance API
-    private String symbolFormat(String cleanSymbol) {
-        cleanSymbol = cleanSymbol.toUpperCase();
-        if (!cleanSymbol.endsWith("USDT")) {
-            return cleanSymbol + "USDT";
-        } else return cleanSymbol;
+    // Same for a FixedPoint long (cents or a price), without going through BigDecimal
+    private static StringBuilder appendCurrency(StringBuilder sb, long amount, int scale) {
+        return FixedPoint.append(sb.append('$'), amount, scale, 5);
+    }
+
+    // If user types "BTC" or "btc/usdt", this changes it to "BTCUSDT" for Binance API
+    public String symbolFormat(String cleanSymbol) {
+        TradingPair pair = symbolRegistry.resolve(cleanSymbol);
+        // Balances are kept in USD, so we can only trade coins priced in USDT
+        if (!SymbolRegistry.DEFAULT_QUOTE.equals(pair.quoteAsset())) {
+            throw new IllegalArgumentException("Only " + SymbolRegistry.DEFAULT_QUOTE + " pairs can be traded, not " + pair.symbol());
+        }
+        return pair.symbol();
+    }
+
+    // Same scales as the DB columns: quantity 8 decimals (Asset), money 2 decimals (User)
+    public BigDecimal toQuantity(BigDecimal quantity) {
+        if (quantity.signum() <= 0) throw new IllegalArgumentException("Quantity must be greater than 0");
+        return quantity.setScale(FixedPoint.QUANTITY_SCALE, RoundingMode.HALF_UP);
+    }
+
+    // Trades of one user are serialized by the owner's ledger lock. A second node touching the same
+    // wallet would have its own copy of it, so that must never happen (it means a routing bug).
+    private void requireOwner(Long id) {
+        if (!cluster.isLocal(id)) {
+            throw new IllegalStateException("User " + id + " belongs to node " + cluster.ownerOf(id)
+                    + ", not node " + cluster.getNodeId());
+        }
     }
 
     // To Auto-Register a new user upon their first interaction
     public User getOrCreateUser(Long userId, String userName) {
-        return userRepository.findById(userId).orElseGet(() -> {
-            User newUser = new User();
-            newUser.setChatId(userId);
-            newUser.setName(userName);
-            // Default "Simulated Money" for new users
-            newUser.setBalance(new BigDecimal("1000.00"));
-            return userRepository.save(newUser);
-        });
+        requireOwner(userId);
+        LedgerSnapshot account = ledgerService.getOrCreate(userId, userName);
+        User user = new User();
+        user.setChatId(account.chatId());
+        user.setName(account.name());
+        user.setBalance(FixedPoint.toMoney(account.balance()));
+        return user;
     }
 
-    // Checks if user owns a specific coin (e.g., BTC). If not, returns an empty Asset object with Qty 0.
-    private Asset getOrCreateAsset(Long userId, String symbol) {
-        return assetRepository.findByChatIdAndSymbol(userId, symbol)
-                .orElse(new Asset(userId, symbol, BigDecimal.ZERO));
-    }
+    // Fetch live price, as a FixedPoint price
+    private long getMarketPrice(String symbol) {
+        // A tick of this pair arrived moments ago (stream, poll, someone's price check): no request at all.
+        // Same age limit as the ticker cache, so trading never uses an older price than a request would.
+        long recent = crossRates.freshPrice(symbol, tradePriceMaxAgeMillis);
+        if (recent > 0) return recent;
 
-    // Fetch live price
-    private BigDecimal getMarketPrice(String symbol) {
         BinanceTickerDto ticker = binancePriceService.getData(symbol);
-        return ticker.getLastPrice();
+        // An old price is fine to look at, but nobody should trade on it
+        if (ticker.isStale()) {
+            throw new IllegalStateException("Binance is unreachable right now, trading is paused. Last known price: "
+                    + formatCurrency(ticker.getLastPrice()));
+        }
+        return FixedPoint.price(ticker.getLastPrice());
     }
 
-    // Generates the success message string
-    private String formatTradeReport(String action, String symbol, BigDecimal qty, BigDecimal price, BigDecimal totalValue, BigDecimal newBalance) {
-        return "✅ **" + action + " " + symbol + "**\n" +
-                "Qty: " + qty + "\n" +
-                "At Price: " + formatCurrency(price) + "\n" +
-                "Total Value: " + formatCurrency(totalValue) + "\n" +
-                "New Balance: " + formatCurrency(newBalance);
+    // Generates the success message string (qty / price with 8 decimals, totalValue / newBalance in cents)
+    private String formatTradeReport(String action, String symbol, long qty, long price, long totalValue, long newBalance) {
+        StringBuilder sb = new StringBuilder(128).append("✅ **").append(action).append(' ').append(symbol).append("**\n");
+        FixedPoint.appendPlain(sb.append("Qty: "), qty, FixedPoint.QUANTITY_SCALE).append('\n');
+        appendCurrency(sb.append("At Price: "), price, FixedPoint.PRICE_SCALE).append('\n');
+        appendCurrency(sb.append("Total Value: "), totalValue, FixedPoint.MONEY_SCALE).append('\n');
+        appendCurrency(sb.append("New Balance: "), newBalance, FixedPoint.MONEY_SCALE);
+        return sb.toString();
     }
 
 
-    @Transactional
     public String buyCrypto(Long id, String username, String symbol, BigDecimal quantity){
-        symbol = symbolFormat(symbol); // "BTC" -> "BTCUSDT"
+        return timedTrade("buy", () -> {
+            String pair = symbolFormat(symbol); // "BTC" -> "BTCUSDT"
+            long qty = FixedPoint.quantity(toQuantity(quantity));
 
-        // Get User and Calculate Cost
-        User user = getOrCreateUser(id,username);
-        BigDecimal currPrice = getMarketPrice(symbol);
-        BigDecimal cost = currPrice.multiply(quantity);
-
-        // Check if they have enough Money
-        if (user.getBalance().compareTo(cost) < 0 ) return "Insufficent Funds";
+            // Price is fetched BEFORE taking the user's lock, so a slow Binance never blocks other trades
+            long currPrice = getMarketPrice(pair);
+            return buyAt(id, username, pair, qty, currPrice, 0);
+        });
+    }
 
-        // Update Balance (User table)
-        user.setBalance(user.getBalance().subtract(cost));
-        userRepository.save(user);
+    public String sellCrypto(Long id, String username, String symbol, BigDecimal quantity){
+        return timedTrade("sell", () -> {
+            String pair = symbolFormat(symbol);
+            long qty = FixedPoint.quantity(toQuantity(quantity));
+
+            // Cheap early exit: don't ask Binance for a price if they obviously don't own enough
+            LedgerSnapshot account = ledgerService.find(id);
+            if (account == null || account.holding(pair) < qty) {
+                return "You dont have enough Asset.";
+            }
 
-        // Update Portfolio (Asset table)
-        Asset asset = getOrCreateAsset(id, symbol);
-        asset.setQuantity(asset.getQuantity().add(quantity));
-        assetRepository.save(asset);
+            long currPrice = getMarketPrice(pair);
+            return sellAt(id, username, pair, qty, currPrice, 0);
+        });
+    }
 
-        return formatTradeReport("BOUGHT", symbol, quantity, currPrice, cost, user.getBalance());
+    // Times a market trade (price lookup + ledger), tagged filled / rejected / error
+    private String timedTrade(String side, Supplier<String> trade) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long statementsBefore = statementCounter.currentThread();
+        String outcome = "error";
+        try {
+            String result = trade.get();
+            outcome = result.startsWith("✅") ? "filled" : "rejected";
+            return result;
+        } finally {
+            tradeStatements.record(statementCounter.currentThread() - statementsBefore);
+            sample.stop(Timer.builder("trade").tag("side", side).tag("outcome", outcome).register(meterRegistry));
+        }
     }
 
-    @Transactional
-    public String sellCrypto(Long id, String username, String symbol, BigDecimal quantity){
-        symbol = symbolFormat(symbol);
+    // Buys at a price we already know (market price, or the tick that triggered an order).
+    // symbol must already be formatted, quantity and price are FixedPoint longs (8 decimals).
+    // orderId: the resting order this fills (OrderEngine), 0 for a market trade.
+    public String buyAt(Long id, String username, String symbol, long quantity, long price, long orderId) {
+        requireOwner(id);
+        long cost = FixedPoint.cost(price, quantity); // in cents, rounded like the balance column
 
-        User user = getOrCreateUser(id, username);
-        // Get the specific asset row
-        Asset asset = assetRepository.findByChatIdAndSymbol(id, symbol).orElse(null);
+        // Checks the balance and moves money + coins in one atomic step
+        LedgerService.Update update = ledgerService.trade(id, username, "BUY", symbol, quantity, price, -cost, orderId);
+        if (!update.accepted()) return "Insufficent Funds";
 
-        // Validate if they actually own enough of this coin?
-        if (asset == null || asset.getQuantity().compareTo(quantity) < 0) return "You dont have enough Asset.";
+        return formatTradeReport("BOUGHT", symbol, quantity, price, cost, update.balance());
+    }
 
-        BigDecimal currPrice = getMarketPrice(symbol);
-        BigDecimal cost = currPrice.multiply(quantity); // "Cost" here is actually "Profit/Revenue"
+    public String sellAt(Long id, String username, String symbol, long quantity, long price, long orderId) {
+        requireOwner(id);
+        long cost = FixedPoint.cost(price, quantity); // "Cost" here is actually "Profit/Revenue"
 
-        // 1. Give money to user
-        user.setBalance(user.getBalance().add(cost));
-        userRepository.save(user);
+        // Checked under the lock, in case they sold from another device meanwhile
+        LedgerService.Update update = ledgerService.trade(id, username, "SELL", symbol, -quantity, price, cost, orderId);
+        if (!update.accepted()) return "You dont have enough Asset.";
 
-        // 2. Reduce Asset Quantity
-        BigDecimal newQuantity = asset.getQuantity().subtract(quantity);
+        return formatTradeReport("SOLD", symbol, quantity, price, cost, update.balance());
+    }
 
-        // If qty reaches 0, delete the row entirely so wallet doesn't show "BTC: 0.00000"
-        if (newQuantity.equals(BigDecimal.ZERO)){
-            assetRepository.delete(asset);
-        } else {
-            asset.setQuantity(newQuantity);
-            assetRepository.save(asset);
+    // One "spend this many dollars on a coin" buy of a batch (recurring orders), symbol already formatted
+    public record Spend(long chatId, String userName, String symbol, long cents) {}
+
+    // What happened to one Spend. retry=true: there was no fresh price, nothing was bought,
+    // worth trying again soon.
+    public record SpendResult(String report, boolean retry) {}
+
+    // Runs many dollar-amount buys together (RecurringOrderEngine):
+    // - ONE price request for all their symbols, every buy of a symbol uses the same price
+    // - the buys only touch the in-memory ledger, then the wallets they changed are written
+    //   to the DB at once, in one transaction (other users' changes wait for the normal flush)
+    // Returns one result per spend, in the same order.
+    public List<SpendResult> spendBatch(List<Spend> spends) {
+        List<SpendResult> results = new ArrayList<>(spends.size());
+        if (spends.isEmpty()) return results;
+
+        Map<String, BinanceTickerDto> prices;
+        try {
+            prices = binancePriceService.getDataBatch(spends.stream().map(Spend::symbol).distinct().toList());
+        } catch (RuntimeException e) {
+            // Every spend fails below with retry=true
+            log.warn("Batch of {} buys: no prices from Binance: {}", spends.size(), e.getMessage());
+            prices = Map.of();
         }
-        return formatTradeReport("SOLD", symbol, quantity, currPrice, cost, user.getBalance());
+
+        Set<Long> bought = new HashSet<>();
+        for (Spend spend : spends) {
+            BinanceTickerDto ticker = prices.get(spend.symbol());
+            if (ticker == null || ticker.isStale()) {
+                results.add(new SpendResult("Transaction Failed: Binance is unreachable right now, trading is paused.", true));
+                continue;
+            }
+            long price = FixedPoint.price(ticker.getLastPrice());
+            long quantity = FixedPoint.quantityFor(spend.cents(), price);
+            if (quantity == 0) {
+                results.add(new SpendResult("Transaction Failed: the amount is too small to buy any " + spend.symbol(), false));
+                continue;
+            }
+            try {
+                results.add(new SpendResult(timedTrade("buy", () -> buyAt(spend.chatId(), spend.userName(), spend.symbol(), quantity, price, 0)), false));
+                bought.add(spend.chatId());
+            } catch (Exception e) {
+                results.add(new SpendResult("Transaction Failed: " + e.getMessage(), false));
+            }
+        }
+        ledgerService.flush(bought);
+        return results;
     }
 
-    // Generates the wallet report
+    // Generates the wallet report, with the USD value of every coin
     public String getWallet(Long id){
-        User user = userRepository.findById(id).orElse(null);
-        if (user ==null) return "No user found, no Assets.";
+        return getWallet(id, null);
+    }
+
+    // Same, plus the total in another currency ("wallet EUR", "wallet BTC"), converted locally by CrossRateEngine
+    public String getWallet(Long id, String quote){
+        LedgerSnapshot account = ledgerService.find(id);
+        if (account == null) return "No user found, no Assets.";
 
         StringBuilder sb = new StringBuilder();
         sb.append("👛 **YOUR WALLET**\n\n");
-        sb.append("💵 **USD Balance:** $").append(user.getBalance().setScale(2, RoundingMode.HALF_UP)).append("\n");
+        FixedPoint.append(sb.append("💵 **USD Balance:** $"), account.balance(), FixedPoint.MONEY_SCALE, 2).append("\n");
 
-        List<Asset> assets = assetRepository.findByChatId(id);
+        // TreeMap = alphabetical order, so the wallet looks the same every time
+        Map<String, Long> assets = new TreeMap<>(account.holdings());
 
         if (assets.isEmpty()) {
             sb.append("\n🚫 No Crypto Assets held.");
-        } else {
-            sb.append("\n🏆 **Crypto Holdings:**\n");
-            for (Asset a : assets) {
-                // stripTrailingZeros cleans up "0.50000000" to "0.5"
-                sb.append("- ").append(a.getSymbol()).append(": ")
-                        .append(a.getQuantity().stripTrailingZeros().toPlainString()).append("\n");
+            appendInQuote(sb, account.balance(), quote);
+            return sb.toString();
+        }
+
+        // One request for ALL coins in the wallet (not one per coin)
+        Map<String, BinanceTickerDto> prices;
+        try {
+            prices = binancePriceService.getDataBatch(assets.keySet());
+        } catch (Exception e) {
+            prices = Map.of(); // Binance down: still show the quantities
+        }
+
+        long total = account.balance();
+        sb.append("\n🏆 **Crypto Holdings:**\n");
+        for (Map.Entry<String, Long> asset : assets.entrySet()) {
+            // Plain = no trailing zeros, "0.50000000" shows as "0.5"
+            FixedPoint.appendPlain(sb.append("- ").append(asset.getKey()).append(": "), asset.getValue(), FixedPoint.QUANTITY_SCALE);
+
+            BinanceTickerDto ticker = prices.get(asset.getKey());
+            if (ticker != null) {
+                long value = FixedPoint.cost(FixedPoint.price(ticker.getLastPrice()), asset.getValue());
+                total = FixedPoint.add(total, value);
+                FixedPoint.append(sb.append(" (≈ $"), value, FixedPoint.MONEY_SCALE, 2)
+                        .append(ticker.isStale() ? ", last known price" : "").append(")");
             }
+            sb.append("\n");
+        }
+        if (prices.size() == assets.size()) {
+            FixedPoint.append(sb.append("\n📊 **Total Value:** $"), total, FixedPoint.MONEY_SCALE, 2);
+            appendInQuote(sb, total, quote);
+        }
+        return sb.toString();
+    }
+
+    // "In BTC: 0.0153" for a USD amount in cents, nothing when no other currency was asked for
+    private void appendInQuote(StringBuilder sb, long cents, String quote) {
+        if (quote == null) return;
+        String asset = crossRates.asset(quote);
+        if (asset.equals(SymbolRegistry.DEFAULT_QUOTE)) return;
+        try {
+            RateGraph.Conversion rate = crossRates.rate(SymbolRegistry.DEFAULT_QUOTE, asset);
+            BigDecimal value = FixedPoint.toMoney(cents).multiply(BigDecimal.valueOf(rate.rate()));
+            sb.append("\n💱 **In ").append(asset).append(":** ≈ ").append(CrossRateEngine.display(value).toPlainString())
+                    .append(rate.fresh() ? "" : " (last known rate)");
+        } catch (IllegalStateException e) {
+            sb.append("\n💱 No ").append(asset).append(" rate right now.");
+        }
+    }
+
+    // Last trades of the user, newest first (read from the trade journal)
+    public String getHistory(Long id) {
+        List<LedgerEntry> fills = ledgerService.history(id, 10);
+        if (fills.isEmpty()) return "📜 No trades yet.";
+
+        StringBuilder sb = new StringBuilder("📜 **LAST TRADES**\n\n");
+        for (LedgerEntry fill : fills) {
+            sb.append(Instant.ofEpochMilli(fill.timestamp()).truncatedTo(ChronoUnit.SECONDS)).append(" ")
+                    .append(fill.side()).append(" ");
+            FixedPoint.appendPlain(sb, Math.abs(fill.quantityDelta()), FixedPoint.QUANTITY_SCALE).append(" ")
+                    .append(fill.symbol()).append(" @ ");
+            appendCurrency(sb, fill.price(), FixedPoint.PRICE_SCALE).append("\n");
         }
         return sb.toString();
     }
-}
\ No newline at end of file
+}
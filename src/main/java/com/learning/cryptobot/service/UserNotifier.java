@@ -0,0 +1,10 @@
+package com.learning.cryptobot.service;
+
+/**
+ * Pushes a message to a user without them asking (order filled, alert hit ...).
+ * The Telegram bot implements it, services only know this interface.
+ */
+public interface UserNotifier {
+
+    void notify(long chatId, String text);
+}
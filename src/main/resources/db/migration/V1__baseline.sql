@@ -0,0 +1,20 @@
+-- Schema as Hibernate (ddl-auto=update) first created it, before Flyway took over.
+-- Database files that already have tables are "baselined" at this version,
+-- so this script only runs on a brand new database.
+
+-- Users (the table was named "Assets" by mistake, V3 renames it)
+create table assets (
+    chat_id bigint not null,
+    balance numeric(18, 2),
+    name    varchar(255),
+    primary key (chat_id)
+);
+
+-- Coins held by users, one row per (user, coin)... in theory, nothing enforced it yet
+create table asset (
+    id       bigint generated by default as identity,
+    chat_id  bigint,
+    quantity numeric(18, 8),
+    symbol   varchar(255),
+    primary key (id)
+);
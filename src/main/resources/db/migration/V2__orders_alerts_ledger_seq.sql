@@ -0,0 +1,29 @@
+-- Tables and columns the app added later through ddl-auto=update.
+-- "if not exists" because databases that ran those versions already have them.
+
+alter table assets add column if not exists ledger_seq bigint;
+
+create table if not exists open_order (
+    id            bigint generated by default as identity,
+    chat_id       bigint,
+    created_at    bigint,
+    quantity      numeric(18, 8),
+    side          enum ('BUY', 'SELL'),
+    symbol        varchar(255),
+    trigger_price numeric(24, 8),
+    type          enum ('LIMIT', 'STOP', 'TAKE_PROFIT'),
+    user_name     varchar(255),
+    primary key (id)
+);
+create index if not exists idx_open_order_chat on open_order (chat_id);
+
+create table if not exists price_alert (
+    id              bigint generated by default as identity,
+    chat_id         bigint,
+    alert_condition enum ('ABOVE', 'BELOW'),
+    created_at      bigint,
+    symbol          varchar(255),
+    threshold       numeric(24, 8),
+    primary key (id)
+);
+create index if not exists idx_price_alert_chat on price_alert (chat_id);
@@ -0,0 +1,27 @@
+-- 1. The user table gets a name that says what it is, plus a version for optimistic locking
+alter table assets rename to users;
+alter table users add column version bigint default 0 not null;
+update users set ledger_seq = 0 where ledger_seq is null;
+alter table users alter column ledger_seq set default 0;
+alter table users alter column ledger_seq set not null;
+
+-- 2. Leftover columns of an old version of the Asset entity (only in some database files)
+alter table asset drop column if exists char_id;
+alter table asset drop column if exists name;
+
+-- 3. One row per (user, coin): merge duplicates into the oldest row, drop empty rows
+delete from asset where chat_id is null or symbol is null or quantity is null;
+update asset a
+   set quantity = (select sum(b.quantity) from asset b where b.chat_id = a.chat_id and b.symbol = a.symbol)
+ where a.id = (select min(c.id) from asset c where c.chat_id = a.chat_id and c.symbol = a.symbol);
+delete from asset a
+ where a.id > (select min(c.id) from asset c where c.chat_id = a.chat_id and c.symbol = a.symbol);
+delete from asset where quantity = 0;
+
+alter table asset alter column chat_id set not null;
+alter table asset alter column symbol set not null;
+alter table asset alter column quantity set not null;
+
+-- Every wallet read / trade upsert looks rows up by (chat_id, symbol): this index is
+-- the lookup path AND the guarantee that duplicates can't come back
+create unique index uk_asset_chat_symbol on asset (chat_id, symbol);
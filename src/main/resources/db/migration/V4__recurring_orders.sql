@@ -0,0 +1,13 @@
+-- Recurring (DCA) buys: "every day buy $10 of BTC"
+create table recurring_order (
+    id         bigint generated by default as identity,
+    chat_id    bigint,
+    user_name  varchar(255),
+    symbol     varchar(255),
+    amount     numeric(18, 2),
+    frequency  enum ('HOURLY', 'DAILY', 'WEEKLY'),
+    start_at   bigint,
+    created_at bigint,
+    primary key (id)
+);
+create index idx_recurring_order_chat on recurring_order (chat_id);
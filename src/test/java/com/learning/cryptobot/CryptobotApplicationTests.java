@@ -3,7 +3,13 @@ package com.learning.cryptobot;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// No Telegram, no Binance download and a throwaway database, so the test runs offline
+@SpringBootTest(properties = {
+		"bot.enabled=false",
+		"binance.symbols.source=snapshot",
+		"spring.datasource.url=jdbc:h2:mem:cryptobot-test",
+		"ledger.journal.dir=target/test-ledger"
+})
 class CryptobotApplicationTests {
 
 	@Test
@@ -0,0 +1,64 @@
+package com.learning.cryptobot;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LegacyDatabaseMigrationTests {
+
+	private static final String URL = "jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1";
+
+	@Test
+	void aPreFlywayDatabaseIsUpgradedWithoutLosingBalancesOrCoins() throws SQLException {
+		try (Connection db = DriverManager.getConnection(URL, "sa", "")) {
+			try (Statement sql = db.createStatement()) {
+				sql.execute("runscript from 'classpath:db/legacy-schema.sql'");
+			}
+
+			// Same settings as application.properties: existing tables = baseline at V1
+			MigrateResult result = Flyway.configure()
+					.dataSource(URL, "sa", "")
+					.baselineOnMigrate(true)
+					.baselineVersion("1")
+					.load()
+					.migrate();
+			assertTrue(result.success);
+			assertEquals("1", result.initialSchemaVersion);
+
+			try (Statement sql = db.createStatement()) {
+				Map<Long, String> users = new LinkedHashMap<>();
+				try (ResultSet rs = sql.executeQuery("select chat_id, balance, name, ledger_seq, version from users order by chat_id")) {
+					while (rs.next()) {
+						users.put(rs.getLong(1), rs.getBigDecimal(2).toPlainString() + " " + rs.getString(3)
+								+ " " + rs.getLong(4) + " " + rs.getLong(5));
+					}
+				}
+				assertEquals(Map.of(1L, "950.25 alice 0 0", 2L, "1000.00 bob 0 0"), users);
+
+				// Duplicates merged, empty and half-written rows gone
+				Map<String, BigDecimal> coins = new LinkedHashMap<>();
+				try (ResultSet rs = sql.executeQuery("select chat_id, symbol, quantity from asset order by chat_id, symbol")) {
+					while (rs.next()) coins.put(rs.getLong(1) + " " + rs.getString(2), rs.getBigDecimal(3));
+				}
+				assertEquals(Map.of("1 BTCUSDT", new BigDecimal("0.01500000"), "1 ETHUSDT", new BigDecimal("0.50000000")), coins);
+
+				// ... and can't come back
+				assertThrows(SQLException.class, () -> sql.execute(
+						"insert into asset (chat_id, quantity, symbol) values (1, 1.00000000, 'BTCUSDT')"));
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.learning.cryptobot;
+
+import com.learning.cryptobot.service.AdmissionControl;
+import com.learning.cryptobot.service.BinanceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebAdmissionInterceptorTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final BinanceClient binanceClient = new BinanceClient("http://127.0.0.1:1", 500, 500, 5, 10_000, 5000, 0, 0, registry);
+	// 3 requests per session and 10 s
+	private final WebAdmissionInterceptor interceptor = new WebAdmissionInterceptor(
+			new AdmissionControl(binanceClient, 20, 10_000, 3, 10_000, 0.8, registry));
+	private final MockHttpSession session = new MockHttpSession();
+
+	private MockHttpServletResponse call(String method, String path) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setServletPath(path);
+		request.setSession(session);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		boolean admitted = interceptor.preHandle(request, response, null);
+		assertEquals(admitted, response.getStatus() == 200);
+		return response;
+	}
+
+	@Test
+	void everyRequestThatMayCallBinanceCountsAgainstTheSession() throws Exception {
+		assertEquals(200, call("GET", "/wallet").getStatus());
+		assertEquals(200, call("GET", "/candles").getStatus());
+		assertEquals(200, call("GET", "/stream/prices").getStatus());
+		// Only forms: free
+		assertEquals(200, call("GET", "/price").getStatus());
+		assertEquals(200, call("GET", "/trade").getStatus());
+
+		MockHttpServletResponse rejected = call("POST", "/trade");
+		assertEquals(429, rejected.getStatus());
+		assertNotNull(rejected.getHeader("Retry-After"));
+		assertTrue(Long.parseLong(rejected.getHeader("Retry-After")) >= 1);
+		assertEquals(429, call("GET", "/stream/wallet").getStatus());
+		assertFalse(rejected.getContentAsString().isEmpty());
+	}
+}
@@ -0,0 +1,52 @@
+package com.learning.cryptobot.backtest;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.service.FixedPoint;
+import com.learning.cryptobot.service.MarketTickBus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TickRecorderTests {
+
+	@TempDir
+	Path dir;
+
+	private static BinanceTickerDto tick(String symbol, long price) {
+		BinanceTickerDto ticker = new BinanceTickerDto();
+		ticker.setSymbol(symbol);
+		ticker.setLastPrice(BigDecimal.valueOf(price));
+		return ticker;
+	}
+
+	@Test
+	void ticksAreWrittenByTheRecorderThreadAndAllReachTheFileOnClose() throws Exception {
+		MarketTickBus tickBus = new MarketTickBus();
+		TickRecorder recorder = new TickRecorder(tickBus, true, dir.toString(), 16, 60_000, 1_000);
+		recorder.init();
+		for (int i = 0; i < 100; i++) tickBus.publish(tick(i % 2 == 0 ? "BTCUSDT" : "ETHUSDT", 1_000 + i));
+		recorder.close();
+
+		assertEquals(100, recorder.getRecorded());
+		TickTapeReader reader = TickTapeReader.of(dir);
+		List<Long> prices = new ArrayList<>();
+		reader.read((symbol, t, price) -> prices.add(price));
+		assertEquals(100, prices.size());
+		assertEquals(FixedPoint.price(BigDecimal.valueOf(1_000)), prices.get(0));
+		assertEquals(FixedPoint.price(BigDecimal.valueOf(1_099)), prices.get(99));
+	}
+
+	@Test
+	void aFullQueueDropsTicksInsteadOfWaiting() {
+		// Never started: nothing takes from the queue
+		TickRecorder recorder = new TickRecorder(new MarketTickBus(), true, dir.toString(), 16, 60_000, 3);
+		for (int i = 0; i < 10; i++) recorder.onTick(tick("BTCUSDT", 1_000 + i));
+		assertEquals(7, recorder.getDropped());
+	}
+}
@@ -0,0 +1,95 @@
+package com.learning.cryptobot.backtest;
+
+import com.learning.cryptobot.entity.OpenOrder;
+import com.learning.cryptobot.service.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickTapeTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void replaysExactlyWhatWasRecordedAcrossBlocksAndRestarts() throws IOException {
+		Path file = dir.resolve("ticks-2026-01-01.bin");
+		String[] coins = {"BTCUSDT", "ETHUSDT", "SOLUSDT"};
+		Random random = new Random(1);
+		List<String> expected = new ArrayList<>();
+		long time = 1_700_000_000_000L;
+		long[] prices = {6_500_000_000_000L, 350_000_000_000L, 15_000_000_000L};
+
+		// Two "app runs" appending to the same file, with a block size that splits the ticks unevenly
+		for (int run = 0; run < 2; run++) {
+			try (TickTapeWriter writer = new TickTapeWriter(file, 100)) {
+				for (int i = 0; i < 1234; i++) {
+					int coin = random.nextInt(coins.length);
+					time += random.nextInt(50);
+					prices[coin] += random.nextInt(2001) - 1000;
+					writer.append(coins[coin], time, prices[coin]);
+					expected.add(coins[coin] + " " + time + " " + prices[coin]);
+				}
+			}
+		}
+
+		TickTapeReader reader = TickTapeReader.of(dir);
+		List<String> replayed = new ArrayList<>();
+		reader.read((symbol, t, price) -> replayed.add(reader.symbols().get(symbol) + " " + t + " " + price));
+		assertEquals(expected, replayed);
+	}
+
+	@Test
+	void halfWrittenBlockIsCutOffWhenWritingContinues() throws IOException {
+		Path file = dir.resolve("ticks-2026-01-02.bin");
+		try (TickTapeWriter writer = new TickTapeWriter(file, 10)) {
+			for (int i = 0; i < 10; i++) writer.append("BTCUSDT", i, 100 + i);
+		}
+		// A crash in the middle of the next block
+		try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+			raw.seek(raw.length());
+			raw.writeInt(500);
+			raw.write(new byte[20]);
+		}
+		try (TickTapeWriter writer = new TickTapeWriter(file, 10)) {
+			writer.append("BTCUSDT", 10, 110);
+		}
+
+		assertEquals(11, TickTapeReader.of(file).read((symbol, t, price) -> assertEquals(100 + t, price)));
+	}
+
+	@Test
+	void backtestFollowsTheBotsTradingRules() {
+		Backtest backtest = new Backtest((b, symbol, t, price) -> {}, List.of("BTCUSDT"), new BigDecimal("1000.00"));
+		backtest.onTick(0, 0, FixedPoint.price(new BigDecimal("333.33333333")));
+
+		// 1 coin costs $333.33, 3 coins would round to $1000.00 exactly, a tiny bit more does not fit
+		assertTrue(backtest.buy(0, Backtest.UNIT));
+		assertEquals(66667, backtest.cash());
+		assertFalse(backtest.buy(0, 2 * Backtest.UNIT + 1_000_000));
+		assertFalse(backtest.sell(0, 2 * Backtest.UNIT));
+
+		// Stop-loss fills at the tick that crosses it, take-profit waits for a rise
+		backtest.place(0, OpenOrder.Side.SELL, OpenOrder.Type.STOP, Backtest.UNIT / 2, FixedPoint.price(new BigDecimal("300")));
+		backtest.place(0, OpenOrder.Side.SELL, OpenOrder.Type.TAKE_PROFIT, Backtest.UNIT / 2, FixedPoint.price(new BigDecimal("400")));
+		backtest.onTick(0, 1, FixedPoint.price(new BigDecimal("290")));
+		assertEquals(Backtest.UNIT / 2, backtest.holdings(0));
+		assertEquals(66667 + 14500, backtest.cash());
+
+		Backtest.Result result = backtest.result();
+		assertEquals(2, result.filled());
+		assertEquals(2, result.rejected());
+		assertEquals(new BigDecimal("956.67"), result.value());
+	}
+}
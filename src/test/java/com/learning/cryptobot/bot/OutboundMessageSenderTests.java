@@ -0,0 +1,119 @@
+package com.learning.cryptobot.bot;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboundMessageSenderTests {
+
+	private OutboundMessageSender sender;
+
+	@AfterEach
+	void stop() {
+		if (sender != null) sender.stop();
+	}
+
+	// Telegram stand-in: records "chatId:text" of every message it accepts.
+	// The first message to throttledChat gets a 429 (retry after 1 second).
+	private AbsSender telegram(List<String> delivered, long throttledChat) throws Exception {
+		ApiResponse<?> tooMany = new ObjectMapper().readValue(
+				"{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests\",\"parameters\":{\"retry_after\":1}}",
+				new TypeReference<ApiResponse<Boolean>>() {});
+		boolean[] throttled = {false};
+		AbsSender telegram = mock(AbsSender.class);
+		when(telegram.executeAsync(any(SendMessage.class))).thenAnswer(call -> {
+			SendMessage message = call.getArgument(0);
+			if (message.getChatId().equals(String.valueOf(throttledChat)) && !throttled[0]) {
+				throttled[0] = true;
+				return CompletableFuture.failedFuture(new TelegramApiRequestException("429", tooMany));
+			}
+			delivered.add(message.getChatId() + ":" + message.getText());
+			return CompletableFuture.completedFuture(new Message());
+		});
+		return telegram;
+	}
+
+	private void await(int sent) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (sender.getSent() < sent && System.currentTimeMillis() < deadline) Thread.sleep(10);
+	}
+
+	// The texts one chat got, in order, with merged messages split up again
+	private static List<String> texts(List<String> delivered, long chatId) {
+		String prefix = chatId + ":";
+		return delivered.stream().filter(m -> m.startsWith(prefix))
+				.flatMap(m -> Arrays.stream(m.substring(prefix.length()).split("\n\n"))).toList();
+	}
+
+	@Test
+	void aThrottledMessageHoldsBackItsChatOnly() throws Exception {
+		List<String> delivered = new CopyOnWriteArrayList<>();
+		sender = new OutboundMessageSender(100, 1000, 1000, 10);
+		sender.start(telegram(delivered, 1));
+
+		sender.notify(1, "processing...");
+		sender.notify(1, "confirmed");
+		sender.notify(2, "hello");
+		await(3);
+
+		// Chat 2 didn't wait for chat 1's 429, chat 1's replies kept their order
+		assertEquals("2:hello", delivered.get(0));
+		assertEquals(List.of("processing...", "confirmed"), texts(delivered, 1));
+		assertEquals(1, sender.getRetried());
+		assertEquals(0, sender.getQueueDepth());
+	}
+
+	@Test
+	void perChatLimitKeepsTheOrder() throws Exception {
+		List<String> delivered = new CopyOnWriteArrayList<>();
+		// One message per chat right away, then 20 per second
+		sender = new OutboundMessageSender(100, 1000, 20, 1);
+		sender.start(telegram(delivered, 0));
+
+		for (int i = 1; i <= 5; i++) {
+			sender.notify(1, "a" + i);
+			sender.notify(2, "b" + i);
+		}
+		await(10);
+
+		assertEquals(List.of("a1", "a2", "a3", "a4", "a5"), texts(delivered, 1));
+		assertEquals(List.of("b1", "b2", "b3", "b4", "b5"), texts(delivered, 2));
+	}
+
+	@Test
+	void repliesWaitingForTheirChatGoOutAsOneMessage() throws Exception {
+		List<String> delivered = new CopyOnWriteArrayList<>();
+		sender = new OutboundMessageSender(100, 1000, 1, 1);
+		// Queued before the sender runs: all of them are waiting when the chat's turn comes
+		for (int i = 1; i <= 4; i++) sender.notify(1, "reply " + i);
+		String big = "x".repeat(OutboundMessageSender.MAX_TEXT_LENGTH - 10);
+		sender.notify(2, big);
+		sender.notify(2, "too long to fit");
+		sender.start(telegram(delivered, 0));
+		await(6);
+
+		assertEquals(List.of("1:reply 1\n\nreply 2\n\nreply 3\n\nreply 4"),
+				delivered.stream().filter(m -> m.startsWith("1:")).toList());
+		// Over Telegram's 4096 characters together: the second one waits for its own turn
+		assertEquals(List.of("2:" + big, "2:too long to fit"), delivered.stream().filter(m -> m.startsWith("2:")).toList());
+		assertEquals(6, sender.getSent());
+		assertEquals(3, sender.getMerged());
+		assertEquals(0, sender.getQueueDepth());
+	}
+}
@@ -0,0 +1,61 @@
+package com.learning.cryptobot.bot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Replays updates recorded from Telegram against the webhook endpoint.
+// bot.enabled=false: replies stay queued in the OutboundMessageSender, where we count them.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"bot.enabled=false",
+		"bot.mode=webhook",
+		"bot.webhook.secret=test-secret",
+		"binance.symbols.source=snapshot",
+		"spring.datasource.url=jdbc:h2:mem:cryptobot-webhook-test",
+		"ledger.journal.dir=target/test-ledger-webhook"
+})
+class TelegramWebhookControllerTests {
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	OutboundMessageSender outboundSender;
+
+	private final HttpClient http = HttpClient.newHttpClient();
+
+	@Test
+	void recordedUpdatesAreAcknowledgedAndAnswered() throws Exception {
+		List<String> updates = Files.readAllLines(Path.of("src/test/resources/telegram-updates.jsonl"));
+		for (String update : updates) {
+			assertEquals(200, post(update, "test-secret"));
+		}
+		assertEquals(403, post(updates.get(0), "wrong"));
+		assertEquals(400, post("not json", "test-secret"));
+
+		// Every text message gets one reply, the edited message is ignored
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (outboundSender.getQueueDepth() < 4 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+		assertEquals(4, outboundSender.getQueueDepth());
+	}
+
+	private int post(String body, String secret) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/telegram/webhook"))
+				.header("Content-Type", "application/json")
+				.header(TelegramWebhookController.SECRET_HEADER, secret)
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
@@ -0,0 +1,116 @@
+package com.learning.cryptobot.bot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdateDispatcherTests {
+
+	private UpdateDispatcher dispatcher;
+
+	@AfterEach
+	void stop() throws InterruptedException {
+		if (dispatcher != null) dispatcher.shutdown();
+	}
+
+	@Test
+	void eachChatRunsInOrderEvenWhenATaskFails() throws Exception {
+		dispatcher = new UpdateDispatcher(8, 10_000);
+		Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+		CountDownLatch done = new CountDownLatch(10 * 100);
+		for (int i = 0; i < 100; i++) {
+			for (long chat = 0; chat < 10; chat++) {
+				long chatId = chat;
+				int n = i;
+				dispatcher.submit(chatId, () -> {
+					try {
+						seen.computeIfAbsent(chatId, c -> new CopyOnWriteArrayList<>()).add(n);
+						if (n == 50) throw new IllegalStateException("a broken command");
+					} finally {
+						done.countDown();
+					}
+				});
+			}
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++) expected.add(i);
+		for (long chat = 0; chat < 10; chat++) assertEquals(expected, seen.get(chat), "chat " + chat);
+		waitUntilIdle();
+	}
+
+	@Test
+	void anErrorInATaskDoesNotStrandTheChat() throws Exception {
+		dispatcher = new UpdateDispatcher(2, 100);
+		dispatcher.submit(1, () -> {
+			throw new StackOverflowError("a broken command");
+		});
+		CountDownLatch nextRan = new CountDownLatch(1);
+		dispatcher.submit(1, nextRan::countDown);
+
+		assertTrue(nextRan.await(5, TimeUnit.SECONDS));
+		waitUntilIdle();
+	}
+
+	@Test
+	void aSlowChatDoesNotHoldUpOtherChats() throws Exception {
+		dispatcher = new UpdateDispatcher(2, 100);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch otherDone = new CountDownLatch(1);
+		dispatcher.submit(1, () -> await(release));
+		dispatcher.submit(1, () -> {});
+		dispatcher.submit(2, otherDone::countDown);
+
+		assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+		release.countDown();
+		waitUntilIdle();
+	}
+
+	@Test
+	void submitBlocksWhileMaxPendingUpdatesWait() throws Exception {
+		dispatcher = new UpdateDispatcher(1, 2);
+		CountDownLatch release = new CountDownLatch(1);
+		dispatcher.submit(1, () -> await(release));
+		dispatcher.submit(1, () -> {});
+
+		CountDownLatch thirdAccepted = new CountDownLatch(1);
+		Thread caller = new Thread(() -> {
+			dispatcher.submit(1, () -> {});
+			thirdAccepted.countDown();
+		});
+		caller.start();
+		assertFalse(thirdAccepted.await(200, TimeUnit.MILLISECONDS), "submit should wait for room");
+
+		release.countDown();
+		assertTrue(thirdAccepted.await(5, TimeUnit.SECONDS));
+		caller.join();
+		waitUntilIdle();
+	}
+
+	private void waitUntilIdle() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while ((dispatcher.getQueueDepth() > 0 || dispatcher.getActiveChats() > 0) && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		assertEquals(0, dispatcher.getQueueDepth());
+		assertEquals(0, dispatcher.getActiveChats());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.learning.cryptobot.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterTopologyTests {
+
+	private static final String NODES = "http://a:8080, http://b:8081/, http://c:8082";
+
+	@Test
+	void everyChatHasExactlyOneOwnerAndNodesAgree() {
+		List<ClusterTopology> nodes = List.of(
+				new ClusterTopology(true, 0, NODES, "s"),
+				new ClusterTopology(true, 1, NODES, "s"),
+				new ClusterTopology(true, 2, NODES, "s"));
+		int[] owned = new int[3];
+		for (long chatId = 1; chatId <= 30_000; chatId++) {
+			int owner = nodes.get(0).ownerOf(chatId);
+			int local = 0;
+			for (ClusterTopology node : nodes) {
+				assertEquals(owner, node.ownerOf(chatId));
+				if (node.isLocal(chatId)) local++;
+			}
+			assertEquals(1, local);
+			owned[owner]++;
+		}
+		// Consecutive ids are spread out, not piled on one node
+		for (int count : owned) assertTrue(count > 9_000 && count < 11_000, "uneven split: " + count);
+
+		assertEquals(Map.of(0, "http://a:8080", 2, "http://c:8082"), nodes.get(1).peers());
+	}
+
+	@Test
+	void standaloneOwnsEverybody() {
+		ClusterTopology single = new ClusterTopology(false, 3, NODES, "");
+		assertEquals(0, single.getNodeId());
+		assertTrue(single.isLocal(-42) && single.isLocal(123_456_789));
+		assertTrue(single.peers().isEmpty());
+		// One node in the list is no cluster either
+		assertEquals(1, new ClusterTopology(true, 0, "http://a:8080", "s").getNodeCount());
+	}
+
+	@Test
+	void badConfigurationFailsAtStartup() {
+		assertThrows(IllegalArgumentException.class, () -> new ClusterTopology(true, 3, NODES, "s"));
+		assertThrows(IllegalArgumentException.class, () -> new ClusterTopology(true, 0, NODES, " "));
+	}
+}
@@ -0,0 +1,88 @@
+package com.learning.cryptobot.cluster;
+
+import com.learning.cryptobot.bot.CryptoBot;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PeerClientTests {
+
+	private static final Pattern UPDATE_ID = Pattern.compile("\"update_id\":(\\d+)");
+
+	private HttpServer peer;
+	private PeerClient client;
+
+	@AfterEach
+	void stop() {
+		if (client != null) client.stop();
+		if (peer != null) peer.stop(0);
+	}
+
+	private static Update update(int id) {
+		Update update = new Update();
+		update.setUpdateId(id);
+		return update;
+	}
+
+	@Test
+	void updatesForADownPeerAreRetriedInOrder() throws Exception {
+		// The owner refuses the first two requests (restarting), then accepts
+		AtomicInteger requests = new AtomicInteger();
+		List<Integer> received = new CopyOnWriteArrayList<>();
+		peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		peer.createContext("/internal/cluster/updates", exchange -> {
+			String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			if (requests.incrementAndGet() <= 2) {
+				exchange.sendResponseHeaders(503, -1);
+			} else {
+				Matcher m = UPDATE_ID.matcher(body);
+				while (m.find()) received.add(Integer.parseInt(m.group(1)));
+				exchange.sendResponseHeaders(200, -1);
+			}
+			exchange.close();
+		});
+		peer.start();
+
+		String nodes = "http://127.0.0.1:1,http://127.0.0.1:" + peer.getAddress().getPort();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		client = new PeerClient(new ClusterTopology(true, 0, nodes, "s"), 2000, 100, 10, registry);
+		client.start();
+		for (int id = 1; id <= 5; id++) client.forwardUpdate(1, update(id));
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (received.size() < 5 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+		assertEquals(List.of(1, 2, 3, 4, 5), received);
+		assertTrue(registry.counter("cluster.updates.forwarded", "result", "retried").count() > 0);
+		assertEquals(0, registry.counter("cluster.updates.forwarded", "result", "lost").count());
+	}
+
+	@Test
+	void aResentBatchIsNotRunTwice() {
+		CryptoBot bot = mock(CryptoBot.class);
+		ClusterController controller = new ClusterController(new ClusterTopology(true, 0, "http://a,http://b", "s"), bot, null, null);
+		List<Update> batch = new ArrayList<>(List.of(update(7), update(8)));
+		controller.updates("s", batch);
+		batch.add(update(9));
+		controller.updates("s", batch); // the answer timed out, the sender tries again with more
+
+		verify(bot, times(3)).dispatchLocal(any());
+	}
+}
@@ -0,0 +1,70 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.entity.PriceAlert;
+import com.learning.cryptobot.repository.PriceAlertRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AlertEngineTests {
+
+	private static PriceAlert alert(long id, long chatId, PriceAlert.Condition condition, String threshold) {
+		PriceAlert alert = new PriceAlert(chatId, "BTCUSDT", condition, new BigDecimal(threshold));
+		alert.setId(id);
+		return alert;
+	}
+
+	private static BinanceTickerDto tick(String price) {
+		BinanceTickerDto ticker = new BinanceTickerDto();
+		ticker.setSymbol("BTCUSDT");
+		ticker.setLastPrice(new BigDecimal(price));
+		return ticker;
+	}
+
+	@Test
+	void crossedAlertsFireOnceWithOneMessagePerUserAndASlowDbDoesNotBlockTicks() throws Exception {
+		PriceAlertRepository repository = mock(PriceAlertRepository.class);
+		when(repository.findAll()).thenReturn(List.of(
+				alert(1, 10, PriceAlert.Condition.ABOVE, "70000"),
+				alert(2, 10, PriceAlert.Condition.ABOVE, "69000"),
+				alert(3, 20, PriceAlert.Condition.BELOW, "60000")));
+		// The DB hangs until the test lets it go
+		CountDownLatch dbFree = new CountDownLatch(1);
+		doAnswer(call -> dbFree.await(5, TimeUnit.SECONDS)).when(repository).deleteAllByIdInBatch(any());
+
+		List<String> messages = new ArrayList<>();
+		AlertEngine engine = new AlertEngine(repository, null, new MarketTickBus(),
+				(chatId, text) -> messages.add(chatId + ":" + text), new ClusterTopology(false, 0, "", ""));
+		engine.init();
+
+		long start = System.nanoTime();
+		engine.onTick(tick("71000"));
+		engine.onTick(tick("72000"));
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "tick waited for the DB");
+
+		assertEquals(1, messages.size());
+		assertTrue(messages.get(0).startsWith("10:") && messages.get(0).contains("70000") && messages.get(0).contains("69000"));
+		assertEquals(1, engine.getActiveAlertCount());
+		assertEquals(Set.of("BTCUSDT"), engine.watchedSymbols());
+
+		dbFree.countDown();
+		verify(repository, timeout(5000)).deleteAllByIdInBatch(List.of(2L, 1L));
+		engine.shutdown();
+	}
+}
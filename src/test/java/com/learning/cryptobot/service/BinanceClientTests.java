@@ -0,0 +1,27 @@
+package com.learning.cryptobot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinanceClientTests {
+
+	@Test
+	void callsRefusedByTheOpenBreakerUseNoWeight() {
+		// Nothing listens on port 1: the first call fails and opens the breaker (no retries)
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BinanceClient client = new BinanceClient("http://127.0.0.1:1", 500, 500, 1, 60_000, 100, 0, 0, registry);
+
+		assertThrows(BinanceUnavailableException.class, () -> client.ticker("BTCUSDT"));
+		int used = client.peekUsedWeight();
+		for (int i = 0; i < 200; i++) assertThrows(BinanceUnavailableException.class, () -> client.ticker("BTCUSDT"));
+
+		// (<=: the minute may have rolled over meanwhile)
+		assertTrue(client.peekUsedWeight() <= used);
+		assertEquals(200, registry.counter("binance.refused", "reason", "breaker_open").count());
+		assertEquals(0, registry.counter("binance.refused", "reason", "weight_limit").count());
+	}
+}
@@ -0,0 +1,58 @@
+package com.learning.cryptobot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CandleSeriesTests {
+
+	private static final long MINUTE = 60_000;
+
+	@Test
+	void ticksBuildCandlesAndOldOnesAreOverwritten() {
+		CandleSeries series = new CandleSeries(MINUTE, 3);
+		series.update(10 * MINUTE + 5_000, 100);
+		series.update(10 * MINUTE + 20_000, 130);
+		series.update(10 * MINUTE + 40_000, 90);
+		series.update(10 * MINUTE + 59_999, 110);
+		// Nothing during minute 11: a flat candle at the last close
+		series.update(12 * MINUTE, 120);
+		series.update(9 * MINUTE, 1); // arrived too late, ignored
+
+		CandleSeries.Candles candles = series.last(10);
+		assertArrayEquals(new long[]{10 * MINUTE, 11 * MINUTE, 12 * MINUTE}, candles.openTime());
+		assertArrayEquals(new long[]{100, 110, 120}, candles.open());
+		assertArrayEquals(new long[]{130, 110, 120}, candles.high());
+		assertArrayEquals(new long[]{90, 110, 120}, candles.low());
+		assertArrayEquals(new long[]{110, 110, 120}, candles.close());
+
+		// Capacity 3: the ring wraps and drops minute 10
+		series.update(13 * MINUTE, 125);
+		assertArrayEquals(new long[]{11 * MINUTE, 12 * MINUTE, 13 * MINUTE}, series.last(10).openTime());
+		assertEquals(3, series.size());
+	}
+
+	@Test
+	void backfillGoesInFrontOfTickCandles() {
+		CandleSeries series = new CandleSeries(MINUTE, 10);
+		series.update(2 * MINUTE + 30_000, 205);
+		series.update(2 * MINUTE + 40_000, 260);
+		series.update(3 * MINUTE, 300);
+
+		// Binance's history ends with minute 2, which we have half of from ticks
+		series.backfill(List.of(
+				new long[]{0, 100, 110, 90, 105},
+				new long[]{MINUTE, 105, 150, 100, 140},
+				new long[]{2 * MINUTE, 140, 250, 130, 210}));
+
+		CandleSeries.Candles candles = series.last(10);
+		assertArrayEquals(new long[]{0, MINUTE, 2 * MINUTE, 3 * MINUTE}, candles.openTime());
+		assertArrayEquals(new long[]{100, 105, 140, 300}, candles.open());
+		assertArrayEquals(new long[]{110, 150, 260, 300}, candles.high());
+		assertArrayEquals(new long[]{90, 100, 130, 300}, candles.low());
+		assertArrayEquals(new long[]{105, 140, 260, 300}, candles.close());
+	}
+}
@@ -0,0 +1,54 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.TradingPair;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CandleServiceTests {
+
+	private static final long IDLE_MS = 60_000;
+
+	private static CandleService service(int maxSymbols) {
+		SymbolRegistry registry = mock(SymbolRegistry.class);
+		when(registry.resolve(anyString())).thenAnswer(call -> new TradingPair(call.getArgument(0), "X", "USDT"));
+		BinanceClient binance = mock(BinanceClient.class);
+		when(binance.klines(anyString(), anyString(), anyInt())).thenReturn(new String[0][]);
+		return new CandleService(binance, registry, new MarketTickBus(), 10, IDLE_MS, maxSymbols);
+	}
+
+	@Test
+	void symbolsNobodyChartsAnyMoreAreDroppedAndNoLongerWatched() {
+		CandleService candles = service(10);
+		candles.candles("BTCUSDT", CandleService.Interval.M1, 5);
+		candles.candles("ETHUSDT", CandleService.Interval.H1, 5);
+		assertEquals(Set.of("BTCUSDT", "ETHUSDT"), candles.watchedSymbols());
+
+		candles.evictIdle(System.currentTimeMillis());
+		assertEquals(2, candles.getSymbolCount());
+
+		candles.evictIdle(System.currentTimeMillis() + IDLE_MS + 1_000);
+		assertEquals(Set.of(), candles.watchedSymbols());
+	}
+
+	@Test
+	void chartingPastTheCapDropsTheSymbolViewedLongestAgo() throws Exception {
+		CandleService candles = service(2);
+		candles.candles("BTCUSDT", CandleService.Interval.M1, 5);
+		Thread.sleep(5);
+		candles.candles("ETHUSDT", CandleService.Interval.M1, 5);
+		Thread.sleep(5);
+		// Viewing BTC again makes ETH the oldest
+		candles.candles("BTCUSDT", CandleService.Interval.M5, 5);
+		Thread.sleep(5);
+		candles.candles("SOLUSDT", CandleService.Interval.M1, 5);
+
+		assertEquals(Set.of("BTCUSDT", "SOLUSDT"), candles.watchedSymbols());
+	}
+}
@@ -0,0 +1,55 @@
+package com.learning.cryptobot.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTests {
+
+	@Test
+	void opensAfterThresholdAndLetsOneTrialThrough() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(3, 50);
+
+		for (int i = 0; i < 3; i++) {
+			assertTrue(breaker.allowRequest());
+			breaker.onFailure();
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+
+		Thread.sleep(80);
+		// Only one trial call is allowed while half-open
+		assertTrue(breaker.allowRequest());
+		assertFalse(breaker.allowRequest());
+
+		breaker.onSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.allowRequest());
+	}
+
+	@Test
+	void failedTrialOpensAgain() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 50);
+		breaker.onFailure();
+		Thread.sleep(80);
+
+		assertTrue(breaker.allowRequest());
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+	}
+
+	@Test
+	void cancelledTrialLetsTheNextCallerTry() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker(1, 50);
+		breaker.onFailure();
+		Thread.sleep(80);
+
+		assertTrue(breaker.allowRequest());
+		breaker.cancelTrial();
+		assertTrue(breaker.allowRequest());
+		assertFalse(breaker.allowRequest());
+	}
+}
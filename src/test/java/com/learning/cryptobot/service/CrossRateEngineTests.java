@@ -0,0 +1,38 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.dto.TradingPair;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CrossRateEngineTests {
+
+	@Test
+	void theGraphIsBuiltAtStartupAndTicksNeverLoadPairs() throws Exception {
+		SymbolRegistry registry = mock(SymbolRegistry.class);
+		when(registry.allPairs()).thenReturn(List.of(new TradingPair("BTCUSDT", "BTC", "USDT")));
+		MarketTickBus tickBus = new MarketTickBus();
+		CrossRateEngine engine = new CrossRateEngine(registry, null, tickBus, 5_000, 600_000);
+		engine.init();
+		verify(registry, times(1)).allPairs();
+
+		BinanceTickerDto ticker = new BinanceTickerDto();
+		ticker.setSymbol("BTCUSDT");
+		ticker.setLastPrice(new BigDecimal("50000"));
+		tickBus.publish(ticker);
+		verify(registry, times(1)).allPairs();
+
+		// Each caller says how old is too old: a trade wants a newer price than a wallet total
+		Thread.sleep(20);
+		assertEquals(FixedPoint.price(new BigDecimal("50000")), engine.freshPrice("BTCUSDT", 5_000));
+		assertEquals(-1, engine.freshPrice("BTCUSDT", 10));
+	}
+}
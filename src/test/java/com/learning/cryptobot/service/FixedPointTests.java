@@ -0,0 +1,44 @@
+package com.learning.cryptobot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPointTests {
+
+	@Test
+	void costMatchesBigDecimalRounding() {
+		Random random = new Random(3);
+		for (int i = 0; i < 10_000; i++) {
+			long price = random.nextLong(1, 10_000_000_000_000L);  // up to $100k
+			long quantity = random.nextLong(1, 100_000_000_000L);  // up to 1000 coins
+			BigDecimal expected = FixedPoint.toPrice(price).multiply(FixedPoint.toQuantity(quantity))
+					.setScale(2, RoundingMode.HALF_UP);
+			assertEquals(FixedPoint.money(expected), FixedPoint.cost(price, quantity));
+		}
+		// Exactly half a cent rounds up
+		assertEquals(1, FixedPoint.cost(FixedPoint.price(new BigDecimal("0.5")), FixedPoint.quantity(new BigDecimal("0.01"))));
+	}
+
+	@Test
+	void overflowThrowsInsteadOfWrapping() {
+		assertThrows(ArithmeticException.class, () -> FixedPoint.add(Long.MAX_VALUE, 1));
+		assertThrows(ArithmeticException.class, () -> FixedPoint.cost(Long.MAX_VALUE, Long.MAX_VALUE));
+		assertThrows(ArithmeticException.class, () -> FixedPoint.money(new BigDecimal("1e30")));
+	}
+
+	@Test
+	void formatsLikeBigDecimal() {
+		assertEquals("12.34", FixedPoint.format(1234, FixedPoint.MONEY_SCALE, 2));
+		assertEquals("-0.05", FixedPoint.format(-5, FixedPoint.MONEY_SCALE, 2));
+		assertEquals("0.00001", FixedPoint.format(1_000, FixedPoint.PRICE_SCALE, 5));
+		assertEquals("0.5", FixedPoint.formatPlain(50_000_000, FixedPoint.QUANTITY_SCALE));
+		assertEquals("3", FixedPoint.formatPlain(300_000_000, FixedPoint.QUANTITY_SCALE));
+		assertEquals(-2, FixedPoint.rescale(-150, 2, 0));
+	}
+}
@@ -0,0 +1,111 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LeaderboardServiceTests {
+
+	private static final ClusterTopology STANDALONE = new ClusterTopology(false, 0, "", "");
+
+	private static final String[] COINS = {"BTCUSDT", "ETHUSDT", "SOLUSDT"};
+
+	@Test
+	void topMatchesFullSortAfterTradesAndTicks() {
+		LeaderboardService leaderboard = new LeaderboardService(null, null, null, STANDALONE, null, 1000);
+		Random random = new Random(42);
+		Map<Long, LedgerSnapshot> accounts = new HashMap<>();
+		Map<String, BigDecimal> prices = new HashMap<>();
+
+		for (int round = 0; round < 3; round++) {
+			for (long chatId = 1; chatId <= 500; chatId++) {
+				Map<String, Long> holdings = new HashMap<>();
+				for (String coin : COINS) {
+					if (random.nextBoolean()) holdings.put(coin, FixedPoint.quantity(BigDecimal.valueOf(random.nextInt(10_000), 3)));
+				}
+				LedgerSnapshot account = new LedgerSnapshot(chatId, "user" + chatId,
+						random.nextInt(200_000), holdings, round * 1000L + chatId);
+				accounts.put(chatId, account);
+				leaderboard.onTrade(new LedgerEntry(account.lastSeq(), 0, chatId, account.name(), "BUY", "BTCUSDT",
+						1, 1, 1, 0), account);
+			}
+			for (String coin : COINS) {
+				BigDecimal price = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+				prices.put(coin, price);
+				leaderboard.onTick(ticker(coin, price));
+			}
+
+			List<LeaderboardService.Standing> top = leaderboard.top(10);
+			List<Long> expected = bruteForceTop(accounts, prices, 10);
+			assertEquals(expected, top.stream().map(LeaderboardService.Standing::chatId).toList());
+			assertEquals(1, top.get(0).rank());
+		}
+		assertEquals(500, leaderboard.stats().users());
+	}
+
+	@Test
+	void olderStateDoesNotReplaceNewerTrade() {
+		LeaderboardService leaderboard = new LeaderboardService(null, null, null, STANDALONE, null, 1000);
+		LedgerSnapshot newer = new LedgerSnapshot(7, "bob", 150_000, Map.of(), 5);
+		leaderboard.onTrade(new LedgerEntry(5, 0, 7, "bob", "SELL", "BTCUSDT",
+				-1, 10, 10, 0), newer);
+		leaderboard.update(new LedgerSnapshot(7, "bob", 100_000, Map.of(), 3));
+
+		assertEquals(new BigDecimal("1500.00"), leaderboard.standing(7).value());
+		assertEquals(new BigDecimal("500.00"), leaderboard.standing(7).pnl());
+	}
+
+	@Test
+	void mergedNodeBoardsMatchOneBoardWithEveryone() {
+		// The same accounts on one node, and split over three nodes the way the cluster splits users
+		LeaderboardService single = new LeaderboardService(null, null, null, STANDALONE, null, 1000);
+		List<LeaderboardService> nodes = List.of(
+				new LeaderboardService(null, null, null, STANDALONE, null, 1000),
+				new LeaderboardService(null, null, null, STANDALONE, null, 1000),
+				new LeaderboardService(null, null, null, STANDALONE, null, 1000));
+		Random random = new Random(7);
+		for (long chatId = 1; chatId <= 300; chatId++) {
+			LedgerSnapshot account = new LedgerSnapshot(chatId, "user" + chatId,
+					random.nextInt(200_000), Map.of("BTCUSDT", FixedPoint.quantity(BigDecimal.valueOf(random.nextInt(1000), 3))), chatId);
+			single.update(account);
+			nodes.get((int) (chatId % 3)).update(account);
+		}
+		single.onTick(ticker("BTCUSDT", new BigDecimal("500.00")));
+		nodes.forEach(node -> node.onTick(ticker("BTCUSDT", new BigDecimal("500.00"))));
+
+		LeaderboardService.Board merged = LeaderboardService.merge(nodes.stream()
+				.map(node -> new LeaderboardService.Board(node.top(10), node.stats())).toList(), 10);
+
+		assertEquals(single.top(10), merged.top());
+		assertEquals(single.stats(), merged.stats());
+	}
+
+	private static List<Long> bruteForceTop(Map<Long, LedgerSnapshot> accounts, Map<String, BigDecimal> prices, int n) {
+		List<Map.Entry<Long, BigDecimal>> values = new ArrayList<>();
+		for (LedgerSnapshot account : accounts.values()) {
+			BigDecimal value = FixedPoint.toMoney(account.balance());
+			for (Map.Entry<String, Long> coin : account.holdings().entrySet()) {
+				value = value.add(prices.get(coin.getKey()).multiply(FixedPoint.toQuantity(coin.getValue())));
+			}
+			values.add(Map.entry(account.chatId(), value));
+		}
+		values.sort(Map.Entry.<Long, BigDecimal>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+		return values.subList(0, n).stream().map(Map.Entry::getKey).toList();
+	}
+
+	private static BinanceTickerDto ticker(String symbol, BigDecimal price) {
+		BinanceTickerDto ticker = new BinanceTickerDto();
+		ticker.setSymbol(symbol);
+		ticker.setLastPrice(price);
+		return ticker;
+	}
+}
@@ -0,0 +1,205 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.metrics.StatementCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LedgerServiceTests {
+
+	private static final long IDLE_MS = 60_000;
+	private static final ClusterTopology STANDALONE = new ClusterTopology(false, 0, "", "");
+
+	private static final long ALICE = 1;
+	private static final long BOB = 2;
+	private static final long COIN = FixedPoint.quantity(new BigDecimal("0.01"));
+
+	@TempDir
+	Path dir;
+
+	// The DB: rows as the last flush left them
+	static class FakeStore extends LedgerStore {
+		final Map<Long, LedgerSnapshot> rows = new HashMap<>();
+		final List<Long> deletedOrders = new ArrayList<>();
+
+		FakeStore() {
+			super(null, null, null, null);
+		}
+
+		@Override
+		public LedgerSnapshot load(long chatId) {
+			return rows.get(chatId);
+		}
+
+		@Override
+		public void save(List<LedgerSnapshot> snapshots, List<Long> filledOrders) {
+			for (LedgerSnapshot s : snapshots) rows.merge(s.chatId(), s, (old, now) -> now.lastSeq() >= old.lastSeq() ? now : old);
+			deletedOrders.addAll(filledOrders);
+		}
+
+		@Override
+		public long maxLedgerSeq() {
+			return rows.values().stream().mapToLong(LedgerSnapshot::lastSeq).max().orElse(0);
+		}
+	}
+
+	private LedgerService ledger(FakeStore store) {
+		return ledger(store, STANDALONE);
+	}
+
+	private LedgerService ledger(FakeStore store, ClusterTopology cluster) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		return new LedgerService(store, new TradeJournal(dir.toString(), 4096, false, 100, 100), new AccountSnapshotFile(dir.toString()),
+				cluster, registry, new StatementCounter(registry), 4, IDLE_MS);
+	}
+
+	private static LedgerEntry buy(long seq, long chatId) {
+		return new LedgerEntry(seq, seq, chatId, "user" + chatId, "BUY", "BTCUSDT", COIN, 1, -100, 0);
+	}
+
+	@Test
+	void crashReplaysEveryAccountFromItsOwnSavedSeq() {
+		// Bob's trades 100-119 only reached the journal, Alice's 120 was flushed before the crash
+		TradeJournal journal = new TradeJournal(dir.toString(), 4096, false, 100, 100);
+		for (long seq = 100; seq <= 119; seq++) journal.append(buy(seq, BOB));
+		journal.append(buy(120, ALICE));
+		journal.append(buy(121, ALICE));
+		journal.close();
+
+		FakeStore store = new FakeStore();
+		store.rows.put(ALICE, new LedgerSnapshot(ALICE, "user1", 50_000, Map.of("BTCUSDT", COIN), 120));
+		store.rows.put(BOB, new LedgerSnapshot(BOB, "user2", 60_000, Map.of(), 99));
+
+		LedgerService ledger = ledger(store);
+		ledger.recover();
+
+		LedgerSnapshot bob = ledger.find(BOB);
+		assertEquals(60_000 - 20 * 100, bob.balance());
+		assertEquals(20 * COIN, bob.holding("BTCUSDT"));
+		assertEquals(119, bob.lastSeq());
+		// 120 was already in Alice's row: only 121 is applied again
+		LedgerSnapshot alice = ledger.find(ALICE);
+		assertEquals(50_000 - 100, alice.balance());
+		assertEquals(2 * COIN, alice.holding("BTCUSDT"));
+
+		// Recovery saved the replayed state, and new trades are numbered after the journal
+		assertEquals(119, store.rows.get(BOB).lastSeq());
+		assertEquals(122, ledger.trade(BOB, "user2", "BUY", "BTCUSDT", COIN, 1, -100).seq());
+		ledger.shutdown();
+	}
+
+	@Test
+	void snapshotPlusJournalTailGivesTheSameState() {
+		FakeStore store = new FakeStore();
+		LedgerService before = ledger(store);
+		before.recover();
+		before.trade(ALICE, "user1", "BUY", "BTCUSDT", COIN, 1, -100);
+		before.snapshot();
+		before.trade(BOB, "user2", "BUY", "BTCUSDT", COIN, 1, -100);
+		before.trade(ALICE, "user1", "SELL", "BTCUSDT", -COIN, 1, 100);
+		// Crash: no flush, no snapshot at shutdown
+
+		LedgerService after = ledger(store);
+		after.recover();
+		assertEquals(LedgerService.STARTING_BALANCE.movePointRight(2).longValue(), after.find(ALICE).balance());
+		assertEquals(0, after.find(ALICE).holding("BTCUSDT"));
+		assertEquals(COIN, after.find(BOB).holding("BTCUSDT"));
+		assertEquals(3, after.find(ALICE).lastSeq());
+	}
+
+	@Test
+	void anOrderFillAndTheOrderDeletionReachTheDbTogether() {
+		FakeStore store = new FakeStore();
+		LedgerService before = ledger(store);
+		before.recover();
+		before.trade(ALICE, "user1", "BUY", "BTCUSDT", COIN, 1, -100, 41);
+		before.snapshot();
+		before.trade(BOB, "user2", "BUY", "BTCUSDT", COIN, 1, -100, 42);
+		// Crash: neither fill was flushed, so both orders are still in the DB
+		assertEquals(List.of(), store.deletedOrders);
+
+		// 41 comes back from the snapshot, 42 from the journal tail: deleted with their trades
+		LedgerService after = ledger(store);
+		after.recover();
+		assertEquals(List.of(41L, 42L), store.deletedOrders.stream().sorted().toList());
+		assertEquals(1, store.rows.get(ALICE).lastSeq());
+		assertEquals(2, store.rows.get(BOB).lastSeq());
+
+		// Once saved they are not deleted again
+		after.trade(ALICE, "user1", "BUY", "BTCUSDT", COIN, 1, -100);
+		after.flush();
+		after.shutdown();
+		assertEquals(2, store.deletedOrders.size());
+	}
+
+	@Test
+	void flushingSomeAccountsLeavesTheOthersForTheScheduledFlush() {
+		FakeStore store = new FakeStore();
+		LedgerService ledger = ledger(store);
+		ledger.recover();
+		ledger.trade(ALICE, "user1", "BUY", "BTCUSDT", COIN, 1, -100);
+		ledger.trade(BOB, "user2", "BUY", "BTCUSDT", COIN, 1, -100);
+
+		ledger.flush(List.of(ALICE, ALICE));
+		assertEquals(1, store.rows.get(ALICE).lastSeq());
+		assertNull(store.rows.get(BOB));
+		assertEquals(1, ledger.getDirtyCount());
+
+		ledger.flush();
+		assertEquals(2, store.rows.get(BOB).lastSeq());
+		assertEquals(0, ledger.getDirtyCount());
+	}
+
+	@Test
+	void idleAccountsLeaveMemoryOnlyOnceTheDbHasThem() {
+		FakeStore store = new FakeStore();
+		LedgerService ledger = ledger(store);
+		ledger.recover();
+		ledger.trade(ALICE, "user1", "BUY", "BTCUSDT", COIN, 1, -100);
+		long later = System.currentTimeMillis() + IDLE_MS + 1_000;
+
+		// Not saved yet: evicting it would lose the trade
+		ledger.evictIdle(later);
+		assertEquals(1, ledger.getCachedAccounts());
+
+		ledger.flush();
+		ledger.evictIdle(System.currentTimeMillis());
+		assertEquals(1, ledger.getCachedAccounts());
+		ledger.evictIdle(later);
+		assertEquals(0, ledger.getCachedAccounts());
+
+		// Loaded again from the DB, and the next trade continues from there
+		assertEquals(COIN, ledger.find(ALICE).holding("BTCUSDT"));
+		assertEquals(2, ledger.trade(ALICE, "user1", "BUY", "BTCUSDT", COIN, 1, -100).seq());
+		assertEquals(2 * COIN, ledger.find(ALICE).holding("BTCUSDT"));
+	}
+
+	@Test
+	void usersNowOwnedByAnotherNodeAreNotReplayed() {
+		ClusterTopology node0 = new ClusterTopology(true, 0, "http://a,http://b", "s");
+		long mine = 1, theirs = 1;
+		while (!node0.isLocal(mine)) mine++;
+		while (node0.isLocal(theirs)) theirs++;
+		TradeJournal journal = new TradeJournal(dir.toString(), 4096, false, 100, 100);
+		journal.append(buy(1, mine));
+		journal.append(buy(2, theirs));
+		journal.close();
+
+		FakeStore store = new FakeStore();
+		ledger(store, node0).recover();
+		assertEquals(1, store.rows.get(mine).lastSeq());
+		// The other node keeps this user's wallet: our old copy must not be written over it
+		assertNull(store.rows.get(theirs));
+	}
+}
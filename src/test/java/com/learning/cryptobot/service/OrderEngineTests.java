@@ -0,0 +1,142 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import com.learning.cryptobot.entity.OpenOrder;
+import com.learning.cryptobot.repository.OpenOrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderEngineTests {
+
+	private static final ClusterTopology STANDALONE = new ClusterTopology(false, 0, "", "");
+	private static final long QUANTITY = FixedPoint.quantity(new BigDecimal("0.5"));
+
+	private static OpenOrder order(long id, long chatId, OpenOrder.Side side, OpenOrder.Type type, String trigger) {
+		OpenOrder order = new OpenOrder(chatId, "user" + chatId, "BTCUSDT", side, type, new BigDecimal("0.5"), new BigDecimal(trigger));
+		order.setId(id);
+		return order;
+	}
+
+	private static BinanceTickerDto tick(String price) {
+		BinanceTickerDto ticker = new BinanceTickerDto();
+		ticker.setSymbol("BTCUSDT");
+		ticker.setLastPrice(new BigDecimal(price));
+		return ticker;
+	}
+
+	@Test
+	void aTickFillsOnlyTheOrdersItCrossesAtTheTickPriceAndOnlyOnce() throws Exception {
+		OpenOrderRepository repository = mock(OpenOrderRepository.class);
+		when(repository.findAll()).thenReturn(List.of(
+				order(1, 10, OpenOrder.Side.BUY, OpenOrder.Type.LIMIT, "60000"),
+				order(2, 10, OpenOrder.Side.SELL, OpenOrder.Type.STOP, "55000"),
+				order(3, 20, OpenOrder.Side.SELL, OpenOrder.Type.TAKE_PROFIT, "70000")));
+		TradingService trading = mock(TradingService.class);
+		when(trading.buyAt(anyLong(), anyString(), anyString(), anyLong(), anyLong(), anyLong())).thenReturn("✅ BOUGHT");
+		when(trading.sellAt(anyLong(), anyString(), anyString(), anyLong(), anyLong(), anyLong())).thenReturn("✅ SOLD");
+		List<String> messages = new CopyOnWriteArrayList<>();
+		MarketTickBus tickBus = new MarketTickBus();
+		OrderEngine engine = new OrderEngine(repository, trading, tickBus, (chatId, text) -> messages.add(chatId + ":" + text), STANDALONE);
+		engine.init();
+		assertEquals(Set.of("BTCUSDT"), engine.watchedSymbols());
+
+		// 59000: the buy limit (waits for <= 60000) fills, the stop (<= 55000) and take-profit (>= 70000) wait
+		tickBus.publish(tick("59000"));
+		tickBus.publish(tick("58000"));
+		long price = FixedPoint.price(new BigDecimal("59000"));
+		verify(trading, timeout(2_000)).buyAt(10L, "user10", "BTCUSDT", QUANTITY, price, 1L);
+		assertEquals(2, engine.getOpenOrderCount());
+
+		tickBus.publish(tick("71000"));
+		verify(trading, timeout(2_000)).sellAt(eq(20L), eq("user20"), eq("BTCUSDT"), eq(QUANTITY), anyLong(), eq(3L));
+		verify(trading, never()).sellAt(eq(10L), anyString(), anyString(), anyLong(), anyLong(), anyLong());
+		long deadline = System.currentTimeMillis() + 2_000;
+		while (messages.size() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		engine.shutdown();
+
+		assertEquals(1, engine.getOpenOrderCount());
+		assertEquals(2, messages.size());
+		assertTrue(messages.get(0).startsWith("10:") && messages.get(0).endsWith("BOUGHT"), messages.get(0));
+		// Filled orders are deleted by the ledger flush that saves their trade, not here
+		verify(repository, never()).deleteById(anyLong());
+	}
+
+	@Test
+	void aFillTheLedgerRejectsCancelsTheOrder() throws Exception {
+		// Two buys waiting on the same money: the first one spends it, the second is refused
+		OpenOrderRepository repository = mock(OpenOrderRepository.class);
+		when(repository.findAll()).thenReturn(List.of(
+				order(1, 10, OpenOrder.Side.BUY, OpenOrder.Type.LIMIT, "60000"),
+				order(2, 10, OpenOrder.Side.BUY, OpenOrder.Type.LIMIT, "61000")));
+		TradingService trading = mock(TradingService.class);
+		when(trading.buyAt(anyLong(), anyString(), anyString(), anyLong(), anyLong(), eq(1L))).thenReturn("✅ BOUGHT");
+		when(trading.buyAt(anyLong(), anyString(), anyString(), anyLong(), anyLong(), eq(2L))).thenReturn("Insufficent Funds");
+		List<String> messages = new CopyOnWriteArrayList<>();
+		MarketTickBus tickBus = new MarketTickBus();
+		OrderEngine engine = new OrderEngine(repository, trading, tickBus, (chatId, text) -> messages.add(text), STANDALONE);
+		engine.init();
+
+		tickBus.publish(tick("59000"));
+		long deadline = System.currentTimeMillis() + 2_000;
+		while (messages.size() < 2 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		engine.shutdown();
+
+		verify(repository).deleteById(2L);
+		verify(repository, never()).deleteById(1L);
+		assertEquals(0, engine.getOpenOrderCount());
+		assertTrue(messages.stream().anyMatch(m -> m.contains("#2") && m.contains("cancelled") && m.endsWith("Insufficent Funds")), messages.toString());
+	}
+
+	@Test
+	void aCancelledOrderNeverFills() throws Exception {
+		OpenOrderRepository repository = mock(OpenOrderRepository.class);
+		when(repository.findAll()).thenReturn(List.of(order(1, 10, OpenOrder.Side.SELL, OpenOrder.Type.LIMIT, "70000")));
+		TradingService trading = mock(TradingService.class);
+		MarketTickBus tickBus = new MarketTickBus();
+		OrderEngine engine = new OrderEngine(repository, trading, tickBus, (chatId, text) -> {}, STANDALONE);
+		engine.init();
+
+		assertFalse(engine.cancel(99, 1)); // somebody else's order
+		assertTrue(engine.cancel(10, 1));
+		assertFalse(engine.cancel(10, 1));
+		tickBus.publish(tick("75000"));
+		engine.shutdown();
+
+		verify(repository).deleteById(1L);
+		verify(trading, never()).sellAt(anyLong(), anyString(), anyString(), anyLong(), anyLong(), anyLong());
+		assertEquals(Set.of(), engine.watchedSymbols());
+	}
+
+	@Test
+	void inClusterModeOnlyOurOwnUsersOrdersAreLoaded() {
+		ClusterTopology node0 = new ClusterTopology(true, 0, "http://a,http://b", "s");
+		long mine = 1, theirs = 1;
+		while (!node0.isLocal(mine)) mine++;
+		while (node0.isLocal(theirs)) theirs++;
+		OpenOrderRepository repository = mock(OpenOrderRepository.class);
+		when(repository.findAll()).thenReturn(List.of(
+				order(1, mine, OpenOrder.Side.SELL, OpenOrder.Type.LIMIT, "70000"),
+				order(2, theirs, OpenOrder.Side.SELL, OpenOrder.Type.LIMIT, "70000")));
+		OrderEngine engine = new OrderEngine(repository, mock(TradingService.class), new MarketTickBus(), (chatId, text) -> {}, node0);
+		engine.init();
+		assertEquals(1, engine.getOpenOrderCount());
+		engine.shutdown();
+	}
+}
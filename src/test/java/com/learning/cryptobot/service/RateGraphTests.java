@@ -0,0 +1,55 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.TradingPair;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateGraphTests {
+
+	private static final List<TradingPair> PAIRS = List.of(
+			new TradingPair("BTCUSDT", "BTC", "USDT"),
+			new TradingPair("ETHUSDT", "ETH", "USDT"),
+			new TradingPair("ETHBTC", "ETH", "BTC"),
+			new TradingPair("EURUSDT", "EUR", "USDT"));
+
+	@Test
+	void crossRatesFollowThePricedPathAndTicks() {
+		RateGraph graph = new RateGraph(PAIRS);
+		assertNull(graph.convert("ETH", "BTC", 0, 1_000)); // nothing priced yet
+		// ETHBTC is listed but has no price: fetching that one pair is all it takes
+		assertEquals(List.of("ETHBTC"), graph.legsToRefresh("ETH", "BTC", 0, 1_000));
+
+		graph.update("ETHUSDT", price("3000"), 100);
+		graph.update("BTCUSDT", price("60000"), 100);
+		RateGraph.Conversion eth = graph.convert("ETH", "BTC", 100, 1_000);
+		assertEquals(List.of("ETH", "USDT", "BTC"), eth.assets());
+		assertEquals(0.05, eth.rate(), 1e-12);
+		assertEquals(1 / 0.05, graph.convert("BTC", "ETH", 100, 1_000).rate(), 1e-9);
+		assertTrue(eth.fresh());
+
+		// A tick changes the rate of the routes through that pair
+		graph.update("BTCUSDT", price("50000"), 200);
+		assertEquals(0.06, graph.convert("ETH", "BTC", 200, 1_000).rate(), 1e-12);
+		assertFalse(graph.convert("ETH", "BTC", 2_000, 1_000).fresh());
+
+		// Once the direct pair has a price, it is the shorter path
+		graph.update("ETHBTC", price("0.061"), 300);
+		RateGraph.Conversion direct = graph.convert("ETH", "BTC", 300, 1_000);
+		assertEquals(List.of("ETHBTC"), direct.symbols());
+		assertEquals(0.061, direct.rate(), 1e-12);
+
+		assertEquals(price("50000"), graph.freshPrice("BTCUSDT", 300, 1_000));
+		assertEquals(-1, graph.freshPrice("EURUSDT", 300, 1_000));
+	}
+
+	private static long price(String text) {
+		return FixedPoint.price(new BigDecimal(text));
+	}
+}
@@ -0,0 +1,55 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.cluster.ClusterTopology;
+import com.learning.cryptobot.entity.RecurringOrder;
+import com.learning.cryptobot.repository.RecurringOrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecurringOrderEngineTests {
+
+	@Test
+	void aBuyWithoutAPriceIsTriedAgainSoonInsteadOfAtItsNextRun() throws Exception {
+		RecurringOrderRepository repository = mock(RecurringOrderRepository.class);
+		when(repository.save(any())).thenAnswer(call -> {
+			RecurringOrder order = call.getArgument(0);
+			order.setId(7L);
+			return order;
+		});
+		TradingService trading = mock(TradingService.class);
+		when(trading.symbolFormat(anyString())).thenAnswer(call -> call.getArgument(0));
+		// Binance is down for the first attempt only
+		when(trading.spendBatch(any())).thenReturn(
+				List.of(new TradingService.SpendResult("Transaction Failed: Binance is unreachable right now, trading is paused.", true)),
+				List.of(new TradingService.SpendResult("BOUGHT", false)));
+
+		List<String> messages = new CopyOnWriteArrayList<>();
+		RecurringOrderEngine engine = new RecurringOrderEngine(repository, trading, (chatId, text) -> messages.add(text),
+				new ClusterTopology(false, 0, "", ""), 10, 64, 4, 100);
+		engine.create(1, "user1", "BTCUSDT", new BigDecimal("10"), RecurringOrder.Frequency.DAILY);
+
+		long deadline = System.currentTimeMillis() + 3_000;
+		while (messages.size() < 2 && System.currentTimeMillis() < deadline) {
+			engine.tick();
+			Thread.sleep(10);
+		}
+		engine.shutdown();
+
+		verify(trading, times(2)).spendBatch(any());
+		assertEquals(2, messages.size());
+		assertTrue(messages.get(0).contains("unreachable") && messages.get(0).contains("Trying again"), messages.get(0));
+		assertTrue(messages.get(1).endsWith("BOUGHT"), messages.get(1));
+	}
+}
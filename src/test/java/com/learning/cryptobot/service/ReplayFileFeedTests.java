@@ -0,0 +1,33 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayFileFeedTests {
+
+	@Test
+	void replayKeepsLatestPricePerSymbol() throws Exception {
+		LivePriceTable table = new LivePriceTable(60_000);
+		CountDownLatch done = new CountDownLatch(3);
+
+		ReplayFileFeed feed = new ReplayFileFeed(Path.of("src/test/resources/ticker-replay.jsonl"), 0);
+		feed.start(ticker -> {
+			table.update(ticker);
+			done.countDown();
+		});
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		BinanceTickerDto btc = table.get("BTCUSDT");
+		assertEquals(new BigDecimal("65010.00"), btc.getLastPrice());
+		assertEquals(new BigDecimal("3200.50"), table.get("ETHUSDT").getLastPrice());
+		assertEquals(2, table.size());
+	}
+}
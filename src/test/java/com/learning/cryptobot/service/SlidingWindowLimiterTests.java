@@ -0,0 +1,29 @@
+package com.learning.cryptobot.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowLimiterTests {
+
+	@Test
+	void limitsEachKeyAndTellsWhenToRetry() {
+		SlidingWindowLimiter<Long> limiter = new SlidingWindowLimiter<>(3, 1_000);
+		assertEquals(0, limiter.tryAcquire(1L, 100));
+		assertEquals(0, limiter.tryAcquire(1L, 200));
+		assertEquals(0, limiter.tryAcquire(1L, 300));
+		assertEquals(0, limiter.tryAcquire(2L, 300)); // other keys have their own window
+
+		// Full: the 3 requests of window 0 must fade out of the sliding window far enough
+		long wait = limiter.tryAcquire(1L, 400);
+		assertEquals(934, wait);
+		assertTrue(limiter.tryAcquire(1L, 400 + wait - 1) > 0);
+		assertEquals(0, limiter.tryAcquire(1L, 400 + wait));
+
+		// Quiet for more than a window: the keys count zero and are forgotten
+		assertEquals(2, limiter.evictIdle(3_000));
+		assertEquals(0, limiter.size());
+		assertEquals(0, limiter.tryAcquire(1L, 3_000));
+	}
+}
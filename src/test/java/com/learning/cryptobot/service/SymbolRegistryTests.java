@@ -0,0 +1,116 @@
+package com.learning.cryptobot.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SymbolRegistryTests {
+
+	// A pair that exists on "Binance" but not in the bundled snapshot
+	private static final String EXCHANGE_INFO = """
+			{"symbols":[
+			 {"symbol":"BTCUSDT","status":"TRADING","baseAsset":"BTC","quoteAsset":"USDT"},
+			 {"symbol":"NEWCOINUSDT","status":"TRADING","baseAsset":"NEWCOIN","quoteAsset":"USDT"},
+			 {"symbol":"OLDCOINUSDT","status":"BREAK","baseAsset":"OLDCOIN","quoteAsset":"USDT"}]}""";
+
+	private HttpServer binance;
+	private final AtomicBoolean up = new AtomicBoolean();
+	private final AtomicInteger requests = new AtomicInteger();
+
+	@AfterEach
+	void stop() {
+		if (binance != null) binance.stop(0);
+	}
+
+	private String startBinance() throws Exception {
+		binance = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		binance.createContext("/api/v3/exchangeInfo", exchange -> {
+			requests.incrementAndGet();
+			if (up.get()) {
+				byte[] body = EXCHANGE_INFO.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+			} else {
+				exchange.sendResponseHeaders(503, -1);
+			}
+			exchange.close();
+		});
+		binance.start();
+		return "http://127.0.0.1:" + binance.getAddress().getPort();
+	}
+
+	// No retries, so every download is exactly one request
+	private BinanceClient client() throws Exception {
+		return new BinanceClient(startBinance(), 500, 2_000, 5, 10_000, 5000, 0, 0, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void snapshotAtStartupIsReplacedOnceBinanceAnswers() throws Exception {
+		SymbolRegistry registry = new SymbolRegistry(client(), "remote", 3_600_000);
+		registry.init();
+		// Offline start: the snapshot works, new listings aren't known yet
+		assertEquals("ETHUSDT", registry.resolve("eth").symbol());
+		assertThrows(IllegalArgumentException.class, () -> registry.resolve("newcoin"));
+
+		registry.refresh();
+		assertNull(registry.find("newcoin"));
+
+		up.set(true);
+		registry.refresh();
+		assertEquals("NEWCOINUSDT", registry.resolve("newcoin").symbol());
+		assertNull(registry.find("OLDCOINUSDT"));
+
+		// Downloaded moments ago: the next check doesn't ask again
+		int asked = requests.get();
+		registry.refresh();
+		assertEquals(asked, requests.get());
+	}
+
+	@Test
+	void aFailedRefreshKeepsTheDownloadedList() throws Exception {
+		up.set(true);
+		SymbolRegistry registry = new SymbolRegistry(client(), "remote", 0);
+		registry.init();
+		assertNotNull(registry.find("NEWCOINUSDT"));
+
+		up.set(false);
+		registry.refresh();
+		assertEquals(2, requests.get());
+		assertNotNull(registry.find("NEWCOINUSDT"));
+	}
+
+	@Test
+	void theDownloadGoesThroughTheClientsCircuitBreaker() throws Exception {
+		// Breaker opens after one failure: the next refresh is refused without a request
+		BinanceClient client = new BinanceClient(startBinance(), 500, 2_000, 1, 60_000, 5000, 0, 0, new SimpleMeterRegistry());
+		SymbolRegistry registry = new SymbolRegistry(client, "remote", 0);
+		registry.init();
+		assertEquals(CircuitBreaker.State.OPEN, client.getBreakerState());
+
+		up.set(true);
+		registry.refresh();
+		assertEquals(1, requests.get());
+		assertNull(registry.find("NEWCOINUSDT"));
+	}
+
+	@Test
+	void snapshotSourceNeverCallsBinance() throws Exception {
+		SymbolRegistry registry = new SymbolRegistry(client(), "snapshot", 0);
+		registry.init();
+		registry.refresh();
+		assertEquals("BTCUSDT", registry.resolve("BTC/USDT").symbol());
+		assertEquals(0, requests.get());
+	}
+}
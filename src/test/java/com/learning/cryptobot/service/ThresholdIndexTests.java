@@ -0,0 +1,34 @@
+package com.learning.cryptobot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThresholdIndexTests {
+
+	@Test
+	void onlyCrossedItemsAreDrained() {
+		ThresholdIndex<String> index = new ThresholdIndex<>();
+		index.add(price("60000"), ThresholdIndex.Direction.BELOW, "buy-limit-60k");
+		index.add(price("55000"), ThresholdIndex.Direction.BELOW, "stop-55k");
+		index.add(price("70000"), ThresholdIndex.Direction.ABOVE, "tp-70k");
+		index.add(price("75000"), ThresholdIndex.Direction.ABOVE, "tp-75k");
+
+		assertTrue(index.drainCrossed(price("65000")).isEmpty());
+		assertEquals(List.of("buy-limit-60k"), index.drainCrossed(price("60000.00")));
+		assertEquals(List.of("tp-70k", "tp-75k"), index.drainCrossed(price("80000")));
+		assertEquals(1, index.size());
+
+		assertTrue(index.remove(price("55000"), ThresholdIndex.Direction.BELOW, "stop-55k"));
+		assertTrue(index.drainCrossed(price("1")).isEmpty());
+		assertEquals(0, index.size());
+	}
+
+	private static long price(String price) {
+		return FixedPoint.price(new BigDecimal(price));
+	}
+}
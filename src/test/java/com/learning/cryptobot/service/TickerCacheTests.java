@@ -0,0 +1,127 @@
+package com.learning.cryptobot.service;
+
+import com.learning.cryptobot.dto.BinanceTickerDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickerCacheTests {
+
+	private static BinanceTickerDto ticker(String symbol) {
+		BinanceTickerDto ticker = new BinanceTickerDto();
+		ticker.setSymbol(symbol);
+		return ticker;
+	}
+
+	@Test
+	void aFreshTickerIsServedFromMemoryUntilTheTtlRunsOut() throws Exception {
+		TickerCache cache = new TickerCache(300, 100);
+		AtomicInteger loads = new AtomicInteger();
+		Function<String, BinanceTickerDto> binance = symbol -> {
+			loads.incrementAndGet();
+			return ticker(symbol);
+		};
+
+		BinanceTickerDto first = cache.get("BTCUSDT", binance);
+		assertSame(first, cache.get("BTCUSDT", binance));
+		assertSame(first, cache.getIfFresh("BTCUSDT"));
+		assertEquals(1, loads.get());
+
+		Thread.sleep(400);
+		assertNull(cache.getIfFresh("BTCUSDT"));
+		assertSame(first, cache.getStale("BTCUSDT"));
+		cache.get("BTCUSDT", binance);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		TickerCache cache = new TickerCache(60_000, 100);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService threads = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<BinanceTickerDto>> callers = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				callers.add(threads.submit(() -> cache.get("BTCUSDT", symbol -> {
+					loads.incrementAndGet();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return ticker(symbol);
+				})));
+			}
+			while (cache.getCoalesced() < 7) Thread.sleep(1);
+			release.countDown();
+			BinanceTickerDto shared = callers.get(0).get(5, TimeUnit.SECONDS);
+			for (Future<BinanceTickerDto> caller : callers) assertSame(shared, caller.get(5, TimeUnit.SECONDS));
+		} finally {
+			threads.shutdownNow();
+		}
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void aFullCacheDropsTheOldestEntry() throws Exception {
+		TickerCache cache = new TickerCache(60_000, 2);
+		cache.put("BTCUSDT", ticker("BTCUSDT"));
+		Thread.sleep(2);
+		cache.put("ETHUSDT", ticker("ETHUSDT"));
+		Thread.sleep(2);
+		cache.put("SOLUSDT", ticker("SOLUSDT"));
+
+		assertEquals(2, cache.size());
+		assertNull(cache.getStale("BTCUSDT"));
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	void anErrorInTheLoaderReachesTheWaitingCallersToo() throws Exception {
+		TickerCache cache = new TickerCache(2_000, 100);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch fail = new CountDownLatch(1);
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			Future<BinanceTickerDto> leader = threads.submit(() -> cache.get("BTCUSDT", symbol -> {
+				loading.countDown();
+				try {
+					fail.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				throw new StackOverflowError("loader broke");
+			}));
+			loading.await();
+			Future<BinanceTickerDto> follower = threads.submit(() -> cache.get("BTCUSDT", symbol -> {
+				throw new AssertionError("only the leader loads");
+			}));
+			// Let the follower join the leader's request before it fails
+			while (cache.getCoalesced() == 0) Thread.sleep(1);
+			fail.countDown();
+
+			assertInstanceOf(StackOverflowError.class, assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+			assertInstanceOf(StackOverflowError.class, assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+		} finally {
+			threads.shutdownNow();
+		}
+		assertTrue(threads.awaitTermination(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,54 @@
+package com.learning.cryptobot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTests {
+
+	private static final long SECOND = 1_000;
+
+	@Test
+	void itemsFireOnTimeAcrossLevelsAndOverflow() {
+		// 4 slots x 2 levels = 16 seconds ahead fit in the wheel, later ones go to the overflow list
+		TimingWheel<String> wheel = new TimingWheel<>(SECOND, 4, 2, 0);
+		assertFalse(wheel.add(0, "past"));
+		assertTrue(wheel.add(2 * SECOND, "level-0"));
+		assertTrue(wheel.add(9 * SECOND + 1, "level-1")); // rounded up to second 10, never early
+		assertTrue(wheel.add(40 * SECOND, "overflow"));
+		assertEquals(3, wheel.size());
+
+		assertEquals(List.of(), wheel.advance(SECOND));
+		assertEquals(List.of("level-0"), wheel.advance(2 * SECOND));
+		assertEquals(List.of(), wheel.advance(9 * SECOND + 999));
+		assertEquals(List.of("level-1"), wheel.advance(10 * SECOND));
+		assertEquals(List.of(), wheel.advance(39 * SECOND));
+		assertEquals(List.of("overflow"), wheel.advance(45 * SECOND)); // late tick: still comes out
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void everyItemFiresExactlyAtItsTick() {
+		TimingWheel<Long> wheel = new TimingWheel<>(SECOND, 8, 3, 0);
+		Random random = new Random(42);
+		int count = 20_000;
+		for (int i = 0; i < count; i++) {
+			long due = SECOND + random.nextInt(2_000) * SECOND; // up to 2000 s, past the 512 s the levels cover
+			wheel.add(due, due);
+		}
+
+		int fired = 0;
+		for (long now = 0; now <= 2_001 * SECOND; now += SECOND) {
+			for (long due : wheel.advance(now)) {
+				assertEquals(now, due);
+				fired++;
+			}
+		}
+		assertEquals(count, fired);
+	}
+}
@@ -0,0 +1,59 @@
+package com.learning.cryptobot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TradeJournalTests {
+
+	@TempDir
+	Path dir;
+
+	private LedgerEntry fill(long seq, long chatId, String side) {
+		long qty = FixedPoint.quantity(new BigDecimal("0.1"));
+		long cost = FixedPoint.money(new BigDecimal("6500.01"));
+		return new LedgerEntry(seq, 1_700_000_000_000L + seq, chatId, "Trader", side, "BTCUSDT",
+				"SELL".equals(side) ? -qty : qty, FixedPoint.price(new BigDecimal("65000.12")),
+				"SELL".equals(side) ? cost : -cost, seq % 4 == 0 ? 500 + seq : 0);
+	}
+
+	@Test
+	void entriesSurviveRestartAndSpanSegments() {
+		// Tiny segments so a handful of records forces several files
+		TradeJournal journal = new TradeJournal(dir.toString(), 256, false, 100, 100);
+		for (long seq = 1; seq <= 10; seq++) journal.append(fill(seq, seq % 2, seq % 3 == 0 ? "SELL" : "BUY"));
+		journal.close();
+
+		// "Restart": a new instance continues after the last record
+		TradeJournal reopened = new TradeJournal(dir.toString(), 256, false, 100, 100);
+		reopened.append(fill(11, 1, "BUY"));
+
+		List<LedgerEntry> tail = reopened.readAfter(7);
+		assertEquals(List.of(8L, 9L, 10L, 11L), tail.stream().map(LedgerEntry::seq).toList());
+		assertEquals(fill(8, 0, "BUY"), tail.get(0)); // an order fill: keeps its order id
+		assertEquals(fill(9, 1, "SELL"), tail.get(1));
+
+		List<LedgerEntry> history = reopened.history(1, 3);
+		assertEquals(List.of(11L, 9L, 7L), history.stream().map(LedgerEntry::seq).toList());
+	}
+
+	@Test
+	void historyComesFromTheCacheAndOnlyTheNewestSegments() {
+		// 256 byte segments hold 3 records: at most 2 segments = fills 4 to 8 are searched
+		TradeJournal journal = new TradeJournal(dir.toString(), 256, false, 1, 2);
+		for (long seq = 1; seq <= 8; seq++) journal.append(fill(seq, seq <= 3 ? 5 : 6, "BUY"));
+
+		// Chat 5 only traded in segments that are too old to search
+		assertEquals(List.of(), journal.history(5, 10));
+		assertEquals(List.of(8L, 7L, 6L, 5L, 4L), journal.history(6, 10).stream().map(LedgerEntry::seq).toList());
+
+		// Cached now: new fills are added as they happen
+		journal.append(fill(9, 6, "SELL"));
+		assertEquals(List.of(9L, 8L), journal.history(6, 2).stream().map(LedgerEntry::seq).toList());
+	}
+}
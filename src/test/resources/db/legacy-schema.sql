@@ -0,0 +1,29 @@
+-- A database file from before Flyway, as Hibernate (ddl-auto=update) left it:
+-- users in "assets", coins in "asset" with a leftover column, duplicates and empty rows.
+create table assets (
+    chat_id bigint not null,
+    balance numeric(18, 2),
+    name    varchar(255),
+    primary key (chat_id)
+);
+
+create table asset (
+    id       bigint generated by default as identity,
+    chat_id  bigint,
+    quantity numeric(18, 8),
+    symbol   varchar(255),
+    char_id  bigint,
+    primary key (id)
+);
+
+insert into assets (chat_id, balance, name) values (1, 950.25, 'alice');
+insert into assets (chat_id, balance, name) values (2, 1000.00, 'bob');
+
+-- alice bought BTC twice (two rows), plus one ETH row
+insert into asset (chat_id, quantity, symbol, char_id) values (1, 0.01000000, 'BTCUSDT', 1);
+insert into asset (chat_id, quantity, symbol, char_id) values (1, 0.50000000, 'ETHUSDT', 1);
+insert into asset (chat_id, quantity, symbol, char_id) values (1, 0.00500000, 'BTCUSDT', 1);
+-- bob sold everything, and a half-written row
+insert into asset (chat_id, quantity, symbol, char_id) values (2, 0.00000000, 'BTCUSDT', 2);
+insert into asset (chat_id, quantity, symbol, char_id) values (2, null, 'SOLUSDT', 2);
+insert into asset (chat_id, quantity, symbol, char_id) values (null, 1.00000000, 'BTCUSDT', null);